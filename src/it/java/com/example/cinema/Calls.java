@@ -74,4 +74,21 @@ public class Calls {
             .block();
   }
 
+  public ResponseEntity<CinemaApiModel.ShowsByAvailableSeatsPage> getShowsByAvailableSeatsPage(int requestedSeatCount, String title, String pageToken, int pageSize) {
+    return webClient.get().uri(uriBuilder -> uriBuilder.path("/cinema-show-api/cinema-shows/by-available-seats/" + requestedSeatCount + "/page")
+        .queryParam("title", title)
+        .queryParam("pageToken", pageToken)
+        .queryParam("pageSize", pageSize)
+        .build())
+      .retrieve()
+      .toEntity(CinemaApiModel.ShowsByAvailableSeatsPage.class)
+      .block(timeout);
+  }
+
+  public CinemaApiModel.ShowSeatChange firstSeatChange(String showId) {
+    return webClient.get().uri("/cinema-shows/" + showId + "/seat-changes")
+      .retrieve()
+      .bodyToFlux(CinemaApiModel.ShowSeatChange.class)
+      .blockFirst(timeout);
+  }
 }
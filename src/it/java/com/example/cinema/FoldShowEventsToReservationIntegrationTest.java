@@ -3,6 +3,7 @@ package com.example.cinema;
 import com.example.Main;
 import com.example.cinema.Calls;
 import com.example.cinema.model.Show;
+import com.example.common.Money;
 import kalix.spring.testkit.KalixIntegrationTestKitSupport;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +16,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
@@ -55,10 +55,10 @@ class FoldShowEventsToReservationIntegrationTest extends KalixIntegrationTestKit
       .ignoreExceptions()
       .untilAsserted(() -> {
         Show.Reservation result = getReservation(reservationId1).getBody();
-        assertThat(result).isEqualTo(new Show.Reservation(reservationId1, showId, walletId, new BigDecimal(100)));
+        assertThat(result).isEqualTo(new Show.Reservation(reservationId1, showId, walletId, Money.of(100)));
 
         Show.Reservation result2 = getReservation(reservationId2).getBody();
-        assertThat(result2).isEqualTo(new Show.Reservation(reservationId2, showId, walletId, new BigDecimal(100)));
+        assertThat(result2).isEqualTo(new Show.Reservation(reservationId2, showId, walletId, Money.of(100)));
       });
   }
 
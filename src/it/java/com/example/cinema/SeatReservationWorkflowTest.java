@@ -4,7 +4,10 @@ import com.example.Main;
 import com.example.cinema.Calls;
 import com.example.cinema.model.Show;
 import com.example.cinema.SeatReservationWorkflow.ReserveSeat;
+import com.example.cinema.SeatReservationWorkflow.ReserveSeats;
+import com.example.common.Money;
 import com.example.wallet.model.WalletApiModel;
+import com.typesafe.config.ConfigFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -13,8 +16,8 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static com.example.cinema.TestUtils.randomId;
@@ -42,6 +45,8 @@ class SeatReservationWorkflowTest {
 
   private Duration timeout = Duration.ofSeconds(10);
 
+  private static final String PARALLEL_RESERVE_AND_CHARGE = "cinema.seat-reservation-workflow.parallel-reserve-and-charge";
+
   @Test
   public void shouldCompleteSeatReservation() {
     //given
@@ -53,7 +58,7 @@ class SeatReservationWorkflowTest {
     walletCalls.createWallet(walletId, 200);
     calls.createShow(showId, "pulp fiction");
 
-    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, new BigDecimal(100), walletId);
+    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, Money.of(100), walletId);
 
     //when
     ResponseEntity<Void> reservationResponse = reserveSeat(reservationId, reserveSeat);
@@ -68,13 +73,52 @@ class SeatReservationWorkflowTest {
         assertThat(status).isEqualTo(Show.SeatReservationStatus.COMPLETED);
 
         WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
-        assertThat(walletResponse.balance()).isEqualTo(new BigDecimal(200 - 100));
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(200 - 100));
+        assertThat(walletResponse.held()).isEqualTo(Money.of(0));
 
         Show.SeatStatus seatStatus = calls.getSeatStatus(showId, seatNumber);
         assertThat(seatStatus).isEqualTo(Show.SeatStatus.PAID);
       });
   }
 
+  @Test
+  public void shouldCompleteReservationOfSeveralSeatsWithOneCharge() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var seatNumbers = List.of(20, 21, 22);
+
+    walletCalls.createWallet(walletId, 500);
+    calls.createShow(showId, "pulp fiction");
+
+    ReserveSeats reserveSeats = new ReserveSeats(showId, seatNumbers, Money.of(300), walletId);
+
+    //when
+    ResponseEntity<Void> reservationResponse = webClient.post().uri("/seat-reservation/" + reservationId + "/seats")
+      .bodyValue(reserveSeats)
+      .retrieve()
+      .toBodilessEntity()
+      .block(timeout);
+    assertThat(reservationResponse.getStatusCode()).isEqualTo(OK);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        Show.SeatReservationStatus status = getReservationStatus(reservationId);
+        assertThat(status).isEqualTo(Show.SeatReservationStatus.COMPLETED);
+
+        WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(500 - 300));
+
+        for (int seatNumber : seatNumbers) {
+          assertThat(calls.getSeatStatus(showId, seatNumber)).isEqualTo(Show.SeatStatus.PAID);
+        }
+      });
+  }
+
   @Test
   public void shouldRejectReservationIfCaseOfInsufficientWalletBalance() {
     //given
@@ -86,7 +130,7 @@ class SeatReservationWorkflowTest {
     walletCalls.createWallet(walletId, 50);
     calls.createShow(showId, "pulp fiction");
 
-    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, new BigDecimal(100), walletId);
+    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, Money.of(100), walletId);
 
     //when
     ResponseEntity<Void> reservationResponse = reserveSeat(reservationId, reserveSeat);
@@ -101,7 +145,7 @@ class SeatReservationWorkflowTest {
         assertThat(status).isEqualTo(Show.SeatReservationStatus.SEAT_RESERVATION_FAILED);
 
         WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
-        assertThat(walletResponse.balance()).isEqualTo(new BigDecimal(50));
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(50));
 
         Show.SeatStatus seatStatus = calls.getSeatStatus(showId, seatNumber);
         assertThat(seatStatus).isEqualTo(Show.SeatStatus.AVAILABLE);
@@ -119,14 +163,14 @@ class SeatReservationWorkflowTest {
       walletCalls.createWallet(walletId, 200);
     calls.createShow(showId, "pulp fiction");
 
-    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, new BigDecimal(100), walletId);
+    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, Money.of(100), walletId);
 
     //when
     ResponseEntity<Void> reservationResponse = reserveSeat(reservationId, reserveSeat);
     assertThat(reservationResponse.getStatusCode()).isEqualTo(OK);
 
-    //simulating charging after timeout
-      walletCalls.chargeWallet(walletId, reservationId, new ChargeWallet(new BigDecimal(100), randomId()));
+    //simulating holding funds after timeout
+      walletCalls.holdFunds(walletId, reservationId, new HoldFunds(Money.of(100), randomId()));
 
     //then
     await()
@@ -138,13 +182,156 @@ class SeatReservationWorkflowTest {
         assertThat(status).isEqualTo(SEAT_RESERVATION_REFUNDED);
 
         WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
-        assertThat(walletResponse.balance()).isEqualTo(new BigDecimal(200));
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(200));
+        assertThat(walletResponse.held()).isEqualTo(Money.of(0));
 
         Show.SeatStatus seatStatus = calls.getSeatStatus(showId, seatNumber);
         assertThat(seatStatus).isEqualTo(Show.SeatStatus.AVAILABLE);
       });
   }
 
+  @Test
+  public void shouldCompleteSeatReservationInParallelMode() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var seatNumber = 10;
+
+    walletCalls.createWallet(walletId, 200);
+    calls.createShow(showId, "pulp fiction");
+
+    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, Money.of(100), walletId);
+
+    //when
+    ResponseEntity<Void> reservationResponse = reserveSeatInParallelMode(reservationId, reserveSeat);
+    assertThat(reservationResponse.getStatusCode()).isEqualTo(OK);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        Show.SeatReservationStatus status = getReservationStatus(reservationId);
+        assertThat(status).isEqualTo(Show.SeatReservationStatus.COMPLETED);
+
+        WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(200 - 100));
+        assertThat(walletResponse.held()).isEqualTo(Money.of(0));
+
+        Show.SeatStatus seatStatus = calls.getSeatStatus(showId, seatNumber);
+        assertThat(seatStatus).isEqualTo(Show.SeatStatus.PAID);
+      });
+  }
+
+  @Test
+  public void shouldReleaseHeldFundsInParallelModeIfSeatReservationFails() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var missingSeatNumber = 1000;
+
+    walletCalls.createWallet(walletId, 200);
+    calls.createShow(showId, "pulp fiction");
+
+    ReserveSeat reserveSeat = new ReserveSeat(showId, missingSeatNumber, Money.of(100), walletId);
+
+    //when
+    ResponseEntity<Void> reservationResponse = reserveSeatInParallelMode(reservationId, reserveSeat);
+    assertThat(reservationResponse.getStatusCode()).isEqualTo(OK);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        Show.SeatReservationStatus status = getReservationStatus(reservationId);
+        assertThat(status).isEqualTo(SEAT_RESERVATION_REFUNDED);
+
+        WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(200));
+        assertThat(walletResponse.held()).isEqualTo(Money.of(0));
+      });
+  }
+
+  @Test
+  public void shouldCancelSeatReservationInParallelModeIfHoldIsRejected() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var seatNumber = 10;
+
+    walletCalls.createWallet(walletId, 50);
+    calls.createShow(showId, "pulp fiction");
+
+    ReserveSeat reserveSeat = new ReserveSeat(showId, seatNumber, Money.of(100), walletId);
+
+    //when
+    ResponseEntity<Void> reservationResponse = reserveSeatInParallelMode(reservationId, reserveSeat);
+    assertThat(reservationResponse.getStatusCode()).isEqualTo(OK);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        Show.SeatReservationStatus status = getReservationStatus(reservationId);
+        assertThat(status).isEqualTo(Show.SeatReservationStatus.SEAT_RESERVATION_FAILED);
+
+        WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(50));
+        assertThat(walletResponse.held()).isEqualTo(Money.of(0));
+
+        Show.SeatStatus seatStatus = calls.getSeatStatus(showId, seatNumber);
+        assertThat(seatStatus).isEqualTo(Show.SeatStatus.AVAILABLE);
+      });
+  }
+
+  @Test
+  public void shouldFailReservationInParallelModeIfBothSeatReservationAndHoldFail() {
+    //given
+    var walletId = randomId();
+    var showId = randomId();
+    var reservationId = randomId();
+    var missingSeatNumber = 1000;
+
+    walletCalls.createWallet(walletId, 50);
+    calls.createShow(showId, "pulp fiction");
+
+    ReserveSeat reserveSeat = new ReserveSeat(showId, missingSeatNumber, Money.of(100), walletId);
+
+    //when
+    ResponseEntity<Void> reservationResponse = reserveSeatInParallelMode(reservationId, reserveSeat);
+    assertThat(reservationResponse.getStatusCode()).isEqualTo(OK);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        Show.SeatReservationStatus status = getReservationStatus(reservationId);
+        assertThat(status).isEqualTo(Show.SeatReservationStatus.SEAT_RESERVATION_FAILED);
+
+        WalletApiModel.WalletResponse walletResponse = walletCalls.getWallet(walletId);
+        assertThat(walletResponse.balance()).isEqualTo(Money.of(50));
+        assertThat(walletResponse.held()).isEqualTo(Money.of(0));
+      });
+  }
+
+  //the mode is read from configuration when the workflow starts and kept in its state, later steps do not read it
+  private ResponseEntity<Void> reserveSeatInParallelMode(String reservationId, ReserveSeat reserveSeat) {
+    System.setProperty(PARALLEL_RESERVE_AND_CHARGE, "on");
+    ConfigFactory.invalidateCaches();
+    try {
+      return reserveSeat(reservationId, reserveSeat);
+    } finally {
+      System.clearProperty(PARALLEL_RESERVE_AND_CHARGE);
+      ConfigFactory.invalidateCaches();
+    }
+  }
+
   private ResponseEntity<Void> reserveSeat(String reservationId, ReserveSeat reserveSeat) {
     return webClient.post().uri("/seat-reservation/" + reservationId)
       .bodyValue(reserveSeat)
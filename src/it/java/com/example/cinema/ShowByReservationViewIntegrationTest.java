@@ -0,0 +1,81 @@
+package com.example.cinema;
+
+import com.example.Main;
+import com.example.cinema.reservation.PublishShowReservationsAction;
+import com.example.cinema.reservation.ShowByReservationView;
+import kalix.javasdk.testkit.EventingTestKit.IncomingMessages;
+import kalix.javasdk.testkit.KalixTestKit;
+import kalix.spring.testkit.KalixIntegrationTestKitSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cinema.TestUtils.randomId;
+import static com.example.cinema.reservation.PublishShowReservationsAction.ReservationClosed;
+import static com.example.cinema.reservation.PublishShowReservationsAction.ReservationOpened;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+@DirtiesContext
+@SpringBootTest(classes = Main.class)
+@ActiveProfiles("choreography")
+class ShowByReservationViewIntegrationTest extends KalixIntegrationTestKitSupport {
+
+  @Autowired
+  private WebClient webClient;
+  @Autowired
+  private KalixTestKit kalixTestKit;
+
+  @Override
+  protected KalixTestKit.Settings kalixTestKitSettings() {
+    return KalixTestKit.Settings.DEFAULT.withTopicIncomingMessages(PublishShowReservationsAction.TOPIC);
+  }
+
+  @Test
+  public void shouldKeepOneRowPerPendingReservation() {
+    //given
+    var showId = randomId();
+    var reservationId1 = randomId();
+    var reservationId2 = randomId();
+    IncomingMessages showReservations = kalixTestKit.getTopicIncomingMessages(PublishShowReservationsAction.TOPIC);
+
+    //when
+    showReservations.publish(new ReservationOpened(reservationId1, showId), reservationId1);
+    showReservations.publish(new ReservationOpened(reservationId2, showId), reservationId2);
+    showReservations.publish(new ReservationClosed(reservationId1), reservationId1);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        assertThat(getShowByReservation(reservationId1).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(getShowByReservation(reservationId2).getBody())
+          .isEqualTo(new ShowByReservationView.ShowByReservation(reservationId2, showId));
+      });
+  }
+
+  private ResponseEntity<ShowByReservationView.ShowByReservation> getShowByReservation(String reservationId) {
+    return webClient.get().uri("/cinema-shows/by-reservation/" + reservationId)
+      .retrieve()
+      .toEntity(ShowByReservationView.ShowByReservation.class)
+      .onErrorResume(WebClientResponseException.class, error -> {
+        if (error.getStatusCode().is4xxClientError()) {
+          return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+        } else {
+          return Mono.error(error);
+        }
+      })
+      .block();
+  }
+}
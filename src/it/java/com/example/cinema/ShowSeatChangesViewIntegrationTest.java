@@ -0,0 +1,45 @@
+package com.example.cinema;
+
+import com.example.Main;
+import com.example.cinema.model.CinemaApiModel;
+import com.example.cinema.model.Show;
+import kalix.spring.testkit.KalixIntegrationTestKitSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+@DirtiesContext
+@SpringBootTest(classes = Main.class)
+class ShowSeatChangesViewIntegrationTest extends KalixIntegrationTestKitSupport {
+
+  @Autowired
+  private Calls calls;
+
+  @Test
+  public void shouldStreamLatestSeatChange() {
+    //given
+    var showId = TestUtils.randomId();
+    var maxSeats = 100;
+    calls.createShow(showId, "title", maxSeats);
+
+    //when
+    calls.reserveSeat(showId, TestUtils.randomId(), TestUtils.randomId(), 3);
+
+    //then
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        CinemaApiModel.ShowSeatChange seatChange = calls.firstSeatChange(showId);
+        assertThat(seatChange).isEqualTo(new CinemaApiModel.ShowSeatChange(showId, 1, List.of(3), Show.SeatStatus.RESERVED, maxSeats - 1));
+      });
+  }
+}
@@ -4,6 +4,7 @@ import com.example.Main;
 import com.example.cinema.Calls;
 import com.example.cinema.TestUtils;
 import com.example.cinema.model.Show;
+import com.example.common.Money;
 import com.example.wallet.model.WalletApiModel;
 import kalix.spring.testkit.KalixIntegrationTestKitSupport;
 import org.junit.jupiter.api.Test;
@@ -14,7 +15,6 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
@@ -63,7 +63,7 @@ public class ShowSeatReservationIntegrationTest extends KalixIntegrationTestKitS
         assertThat(seatStatus).isEqualTo(Show.SeatStatus.PAID);
 
         WalletApiModel.WalletResponse wallet = walletCalls.getWallet(walletId);
-        assertThat(wallet.balance()).isEqualTo(new BigDecimal(100));
+        assertThat(wallet.balance()).isEqualTo(Money.of(100));
       });
   }
 
@@ -115,13 +115,13 @@ public class ShowSeatReservationIntegrationTest extends KalixIntegrationTestKitS
 //      });
 //
 //    //simulating that the wallet was actually charged
-//    calls.chargeWallet(walletId, new ChargeWallet(new BigDecimal(100), reservationId, TestUtils.randomId()));
+//    calls.chargeWallet(walletId, new ChargeWallet(Money.of(100), reservationId, TestUtils.randomId()));
 //
 //    await()
 //      .atMost(20, TimeUnit.of(SECONDS))
 //      .untilAsserted(() -> {
 //        WalletApiModel.WalletResponse wallet = calls.getWallet(walletId);
-//        assertThat(wallet.balance()).isEqualTo(new BigDecimal(300));
+//        assertThat(wallet.balance()).isEqualTo(Money.of(300));
 //      });
 //  }
 
@@ -148,14 +148,14 @@ public class ShowSeatReservationIntegrationTest extends KalixIntegrationTestKitS
         assertThat(seatStatus).isEqualTo(Show.SeatStatus.AVAILABLE);
       });
 
-    //simulating that the wallet charging was rejected for this reservation
-    walletCalls.chargeWallet(walletId, reservationId, new ChargeWallet(new BigDecimal(400), TestUtils.randomId()));
+    //simulating that holding funds was rejected for this reservation
+    walletCalls.holdFunds(walletId, reservationId, new HoldFunds(Money.of(400), TestUtils.randomId()));
 
     await()
       .atMost(20, TimeUnit.of(SECONDS))
       .untilAsserted(() -> {
         WalletApiModel.WalletResponse wallet = walletCalls.getWallet(walletId);
-        assertThat(wallet.balance()).isEqualTo(new BigDecimal(300));
+        assertThat(wallet.balance()).isEqualTo(Money.of(300));
       });
   }
 }
\ No newline at end of file
@@ -47,7 +47,7 @@ class ShowsByAvailableSeatsViewIntegrationTest extends KalixIntegrationTestKitSu
 
     //then
     List<CinemaApiModel.ShowsByAvailableSeatsViewRecord> list = new ArrayList<>();
-    list.add(new CinemaApiModel.ShowsByAvailableSeatsViewRecord(showId,showTitle,maxSeats-2));
+    list.add(CinemaApiModel.ShowsByAvailableSeatsViewRecord.of(showId,showTitle,maxSeats-2));
     CinemaApiModel.ShowsByAvailableSeatsRecordList expected = new CinemaApiModel.ShowsByAvailableSeatsRecordList(list);
     await()
       .atMost(10, TimeUnit.of(SECONDS))
@@ -59,4 +59,29 @@ class ShowsByAvailableSeatsViewIntegrationTest extends KalixIntegrationTestKitSu
       });
   }
 
-}
\ No newline at end of file
+  @Test
+  public void shouldPageShowsByAvailableSeatsAndTitle() {
+    //given
+    var showTitle = "paged-" + TestUtils.randomId();
+    var maxSeats = 10;
+    calls.createShow(TestUtils.randomId(), showTitle, maxSeats);
+    calls.createShow(TestUtils.randomId(), showTitle, maxSeats);
+    calls.createShow(TestUtils.randomId(), showTitle, maxSeats);
+
+    //when
+    await()
+      .atMost(10, TimeUnit.of(SECONDS))
+      .ignoreExceptions()
+      .untilAsserted(() -> {
+        CinemaApiModel.ShowsByAvailableSeatsPage firstPage = calls.getShowsByAvailableSeatsPage(maxSeats, showTitle, "", 2).getBody();
+        CinemaApiModel.ShowsByAvailableSeatsPage secondPage = calls.getShowsByAvailableSeatsPage(maxSeats, showTitle, firstPage.nextPageToken(), 2).getBody();
+
+        //then
+        assertThat(firstPage.list()).hasSize(2);
+        assertThat(firstPage.hasMore()).isTrue();
+        assertThat(secondPage.list()).hasSize(1);
+        assertThat(secondPage.hasMore()).isFalse();
+        assertThat(secondPage.list().get(0).title()).isEqualTo(showTitle);
+      });
+  }
+}
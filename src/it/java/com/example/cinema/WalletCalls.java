@@ -45,4 +45,15 @@ public class WalletCalls {
 
         assertThat(response.getStatusCode()).isEqualTo(OK);
     }
+
+    public void holdFunds(String walletId, String holdId, WalletApiModel.WalletCommand.HoldFunds holdFunds) {
+        ResponseEntity<Void> response = webClient.patch().uri("/wallet/" + walletId + "/hold/" + holdId)
+                .bodyValue(holdFunds)
+                .header("skip-failure-simulation", "true")
+                .retrieve()
+                .toBodilessEntity()
+                .block(timeout);
+
+        assertThat(response.getStatusCode()).isEqualTo(OK);
+    }
 }
@@ -0,0 +1,93 @@
+package com.example;
+
+import com.example.cinema.model.Show;
+import com.example.cinema.model.ShowEvent;
+import com.example.cinema.model.VenueLayout;
+import com.example.common.Money;
+import com.example.wallet.model.WalletEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kalix.javasdk.JsonSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cinema.DomainGenerators.randomReservationId;
+import static com.example.cinema.DomainGenerators.randomShowId;
+import static com.example.cinema.DomainGenerators.randomTitle;
+import static com.example.cinema.DomainGenerators.randomWalletId;
+import static com.example.wallet.DomainGenerators.randomCommandId;
+
+/**
+ * Jackson (de)serialisation of the events written to the journal, with the object mapper the Kalix SDK uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EventSerializationBenchmark {
+
+  private final ObjectMapper objectMapper = JsonSupport.getObjectMapper();
+
+  private ShowEvent.ShowCreated showCreated;
+  private ShowEvent.SeatReserved seatReserved;
+  private WalletEvent.WalletCharged walletCharged;
+  private byte[] showCreatedJson;
+  private byte[] seatReservedJson;
+  private byte[] walletChargedJson;
+
+  @Setup
+  public void setup() throws IOException {
+    var showId = randomShowId();
+    var layout = new VenueLayout(List.of(Money.of(50), Money.of(120)),
+      List.of(new VenueLayout.Section("stalls", 200, 100, 1), new VenueLayout.Section("balcony", 100, 50, 0)));
+    showCreated = new ShowEvent.ShowCreated(showId, new Show.InitialShow(showId, randomTitle(), layout));
+    seatReserved = new ShowEvent.SeatReserved(showId, randomWalletId(), randomReservationId(), 42, Money.of(120), 24_999);
+    walletCharged = new WalletEvent.WalletCharged(randomWalletId(), Money.of(120), randomReservationId(), randomCommandId());
+    showCreatedJson = objectMapper.writeValueAsBytes(showCreated);
+    seatReservedJson = objectMapper.writeValueAsBytes(seatReserved);
+    walletChargedJson = objectMapper.writeValueAsBytes(walletCharged);
+  }
+
+  @Benchmark
+  public byte[] serializeShowCreated() throws IOException {
+    return objectMapper.writeValueAsBytes(showCreated);
+  }
+
+  @Benchmark
+  public ShowEvent.ShowCreated deserializeShowCreated() throws IOException {
+    return objectMapper.readValue(showCreatedJson, ShowEvent.ShowCreated.class);
+  }
+
+  @Benchmark
+  public byte[] serializeSeatReserved() throws IOException {
+    return objectMapper.writeValueAsBytes(seatReserved);
+  }
+
+  @Benchmark
+  public ShowEvent.SeatReserved deserializeSeatReserved() throws IOException {
+    return objectMapper.readValue(seatReservedJson, ShowEvent.SeatReserved.class);
+  }
+
+  @Benchmark
+  public byte[] serializeWalletCharged() throws IOException {
+    return objectMapper.writeValueAsBytes(walletCharged);
+  }
+
+  @Benchmark
+  public WalletEvent.WalletCharged deserializeWalletCharged() throws IOException {
+    return objectMapper.readValue(walletChargedJson, WalletEvent.WalletCharged.class);
+  }
+}
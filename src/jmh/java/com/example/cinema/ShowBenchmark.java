@@ -0,0 +1,80 @@
+package com.example.cinema;
+
+import com.example.cinema.model.CinemaApiModel.ShowCommand.ReserveSeat;
+import com.example.cinema.model.CinemaApiModel.ShowCommandError;
+import com.example.cinema.model.Show;
+import com.example.cinema.model.ShowEvent;
+import com.example.cinema.model.ShowEvent.SeatReservationCancelled;
+import com.example.cinema.model.ShowEvent.SeatReservationPaid;
+import com.example.cinema.model.ShowEvent.SeatReserved;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cinema.DomainGenerators.randomReservationId;
+import static com.example.cinema.DomainGenerators.randomWalletId;
+import static com.example.cinema.ShowBuilder.showBuilder;
+
+/**
+ * Command handling and event application of a single {@link Show}, for shows of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ShowBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  public int seats;
+
+  private Show show;
+  private Show showWithReservation;
+  private ReserveSeat reserveSeat;
+  private SeatReserved seatReserved;
+  private SeatReservationPaid seatReservationPaid;
+  private SeatReservationCancelled seatReservationCancelled;
+
+  @Setup
+  public void setup() {
+    show = showBuilder().withRandomSeats(seats).build();
+    int seatNumber = seats / 2;
+    reserveSeat = new ReserveSeat(randomWalletId(), randomReservationId(), seatNumber);
+    seatReserved = (SeatReserved) show.handleReservation(reserveSeat).get();
+    showWithReservation = show.apply(seatReserved);
+    seatReservationPaid = new SeatReservationPaid(show.id(), reserveSeat.reservationId(), seatNumber);
+    seatReservationCancelled = new SeatReservationCancelled(show.id(), reserveSeat.reservationId(), seatNumber, show.availableSeats());
+  }
+
+  @Benchmark
+  public Either<ShowCommandError, ShowEvent> handleReservation() {
+    return show.handleReservation(reserveSeat);
+  }
+
+  @Benchmark
+  public Show applyReserved() {
+    return show.applyReserved(seatReserved);
+  }
+
+  @Benchmark
+  public Show applyReservationPaid() {
+    return showWithReservation.applyReservationPaid(seatReservationPaid);
+  }
+
+  @Benchmark
+  public Show applyReservationCancelled() {
+    return showWithReservation.applyReservationCancelled(seatReservationCancelled);
+  }
+}
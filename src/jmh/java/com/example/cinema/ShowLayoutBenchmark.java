@@ -0,0 +1,70 @@
+package com.example.cinema;
+
+import com.example.cinema.model.CinemaApiModel.ShowCommand.CreateShowWithLayout;
+import com.example.cinema.model.CinemaApiModel.ShowCommand.ReserveSeat;
+import com.example.cinema.model.Show;
+import com.example.cinema.model.ShowEvent;
+import com.example.cinema.model.VenueLayout;
+import com.example.common.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cinema.DomainGenerators.randomReservationId;
+import static com.example.cinema.DomainGenerators.randomShowId;
+import static com.example.cinema.DomainGenerators.randomTitle;
+import static com.example.cinema.DomainGenerators.randomWalletId;
+
+/**
+ * A whole on-sale of a show created from a {@link VenueLayout}: creation, a reservation of every seat and the replay
+ * of the resulting journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ShowLayoutBenchmark {
+
+  @Param({"10000", "50000"})
+  public int seats;
+
+  private CreateShowWithLayout createShow;
+
+  @Setup
+  public void setup() {
+    int rows = seats / 200;
+    createShow = new CreateShowWithLayout(randomTitle(), new VenueLayout(List.of(Money.of(50), Money.of(120)),
+      List.of(new VenueLayout.Section("stalls", rows, 100, 1), new VenueLayout.Section("balcony", rows, 100, 0))));
+  }
+
+  @Benchmark
+  public Show createReserveAndReplay() {
+    var showCreated = Show.ShowCreator.create(randomShowId(), createShow).get();
+    var show = Show.create(showCreated);
+    var events = new ArrayList<ShowEvent>(seats);
+    for (int seatNumber = 0; seatNumber < seats; seatNumber++) {
+      var event = show.process(new ReserveSeat(randomWalletId(), randomReservationId(), seatNumber)).get();
+      show = show.apply(event);
+      events.add(event);
+    }
+    var replayed = Show.create(showCreated);
+    for (ShowEvent event : events) {
+      replayed = replayed.apply(event);
+    }
+    return replayed;
+  }
+}
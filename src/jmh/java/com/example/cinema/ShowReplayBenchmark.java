@@ -0,0 +1,72 @@
+package com.example.cinema;
+
+import com.example.cinema.model.CinemaApiModel.ShowCommand.ConfirmReservationPayment;
+import com.example.cinema.model.CinemaApiModel.ShowCommand.CreateShow;
+import com.example.cinema.model.CinemaApiModel.ShowCommand.ReserveSeat;
+import com.example.cinema.model.Show;
+import com.example.cinema.model.ShowEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cinema.DomainGenerators.randomReservationId;
+import static com.example.cinema.DomainGenerators.randomShowId;
+import static com.example.cinema.DomainGenerators.randomTitle;
+import static com.example.cinema.DomainGenerators.randomWalletId;
+
+/**
+ * Recovery of a {@link Show} from its journal: a show created with one seat per reservation, followed by a reserved
+ * and a paid event for every seat, folded the same way the entity replays events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ShowReplayBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int events;
+
+  private ShowEvent.ShowCreated showCreated;
+  private List<ShowEvent> journal;
+
+  @Setup
+  public void setup() {
+    int reservations = Math.max(1, (events - 1) / 2);
+    showCreated = Show.ShowCreator.create(randomShowId(), new CreateShow(randomTitle(), reservations)).get();
+    journal = new ArrayList<>(events);
+    Show show = Show.create(showCreated);
+    for (int seatNumber = 0; journal.size() + 2 < events; seatNumber++) {
+      var reservationId = randomReservationId();
+      ShowEvent reserved = show.handleReservation(new ReserveSeat(randomWalletId(), reservationId, seatNumber)).get();
+      show = show.apply(reserved);
+      ShowEvent paid = show.handleConfirmation(new ConfirmReservationPayment(reservationId)).get();
+      show = show.apply(paid);
+      journal.add(reserved);
+      journal.add(paid);
+    }
+  }
+
+  @Benchmark
+  public Show replay() {
+    Show show = Show.create(showCreated);
+    for (ShowEvent event : journal) {
+      show = show.apply(event);
+    }
+    return show;
+  }
+}
@@ -0,0 +1,122 @@
+package com.example.cinema;
+
+import com.example.cinema.model.BloomFilter;
+import com.example.cinema.model.ReservationDeduplication;
+import com.example.cinema.model.SeatMap;
+import com.example.cinema.model.Show;
+import com.example.cinema.model.ShowEvent;
+import com.example.cinema.model.VenueLayout;
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kalix.javasdk.JsonSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cinema.DomainGenerators.randomShowId;
+import static com.example.cinema.DomainGenerators.randomTitle;
+import static com.example.cinema.DomainGenerators.randomWalletId;
+
+/**
+ * Snapshot size and encode/decode time of the compact {@link com.example.cinema.model.ShowSnapshot} form against the
+ * reflective form of the show state (vavr collections replaced by their java counterparts). A third of the seats are
+ * paid and a couple of reservations are pending. Snapshot sizes are reported as the {@link SnapshotSize} counters of
+ * the encode benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ShowSnapshotBenchmark {
+
+  @Param({"100", "10000"})
+  public int seats;
+
+  private final ObjectMapper objectMapper = JsonSupport.getObjectMapper();
+
+  private Show show;
+  private ReflectiveShowState reflectiveState;
+  private byte[] compactJson;
+  private byte[] reflectiveJson;
+
+  public record ReflectiveShowState(String id, String title, SeatMap seats, Map<String, List<Integer>> pendingReservations,
+                                    ReflectiveDeduplication finishedReservations, int availableSeats) {
+
+    static ReflectiveShowState of(Show show) {
+      var deduplication = show.finishedReservations();
+      return new ReflectiveShowState(show.id(), show.title(), show.seats(), show.pendingReservations().toJavaMap(),
+        new ReflectiveDeduplication(deduplication.settings(), deduplication.recent().toJavaList(), deduplication.current(), deduplication.previous()),
+        show.availableSeats());
+    }
+  }
+
+  public record ReflectiveDeduplication(ReservationDeduplication.Settings settings, List<String> recent,
+                                        BloomFilter current, BloomFilter previous) {
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    var showId = randomShowId();
+    var layout = VenueLayout.singleSection(Money.of(100), seats);
+    show = Show.create(new ShowEvent.ShowCreated(showId, new Show.InitialShow(showId, randomTitle(), layout)));
+    var available = seats;
+    for (int seatNumber = 10; seatNumber < seats; seatNumber += 3) {
+      var reservationId = "paid-" + seatNumber;
+      show = show.apply(new ShowEvent.SeatReserved(showId, randomWalletId(), reservationId, seatNumber, Money.of(100), --available))
+        .apply(new ShowEvent.SeatReservationPaid(showId, reservationId, seatNumber));
+    }
+    show = show
+      .apply(new ShowEvent.SeatReserved(showId, randomWalletId(), "pending-0", 0, Money.of(100), --available))
+      .apply(new ShowEvent.SeatsReserved(showId, randomWalletId(), "pending-1", List.of(2, 3), Money.of(200), available - 2));
+    reflectiveState = ReflectiveShowState.of(show);
+    compactJson = objectMapper.writeValueAsBytes(show);
+    reflectiveJson = objectMapper.writeValueAsBytes(reflectiveState);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class SnapshotSize {
+    public long compactBytes;
+    public long reflectiveBytes;
+  }
+
+  @Benchmark
+  public byte[] encodeCompact(SnapshotSize snapshotSize) throws IOException {
+    byte[] json = objectMapper.writeValueAsBytes(show);
+    snapshotSize.compactBytes = json.length;
+    return json;
+  }
+
+  @Benchmark
+  public Show decodeCompact() throws IOException {
+    return objectMapper.readValue(compactJson, Show.class);
+  }
+
+  @Benchmark
+  public byte[] encodeReflective(SnapshotSize snapshotSize) throws IOException {
+    byte[] json = objectMapper.writeValueAsBytes(reflectiveState);
+    snapshotSize.reflectiveBytes = json.length;
+    return json;
+  }
+
+  @Benchmark
+  public ReflectiveShowState decodeReflective() throws IOException {
+    return objectMapper.readValue(reflectiveJson, ReflectiveShowState.class);
+  }
+}
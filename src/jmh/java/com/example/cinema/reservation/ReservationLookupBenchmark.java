@@ -0,0 +1,74 @@
+package com.example.cinema.reservation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kalix.javasdk.JsonSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cost of the reservation read models. Per booking {@link ReservationEntity} costs a write, a read and a
+ * delete, all remote calls; {@link ShowByReservationView} writes one small row per reservation when it is made and
+ * deletes it when it is paid or cancelled, so the row written does not grow with the pending reservations of the show.
+ * A remote read is needed only when the {@link ReservationLookup} cache misses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ReservationLookupBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  public int pendingReservations;
+
+  private final ObjectMapper objectMapper = JsonSupport.getObjectMapper();
+  private ReservationLookup lookup;
+  private String reservationId;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class RowSize {
+    public long rowBytes;
+  }
+
+  @Setup
+  public void setup() {
+    lookup = new ReservationLookup(ReservationLookup.ReadModel.VIEW, pendingReservations);
+    for (int i = 0; i < pendingReservations; i++) {
+      reservationId = UUID.randomUUID().toString();
+      lookup.cache(reservationId, "show-1");
+    }
+  }
+
+  /**
+   * Row written when a reservation is made, its delete on payment or cancellation carries no row.
+   */
+  @Benchmark
+  public byte[] reserveRowWrite(RowSize rowSize) throws IOException {
+    byte[] reserved = objectMapper.writeValueAsBytes(
+      new ShowByReservationView.ShowByReservation(UUID.randomUUID().toString(), "show-1"));
+    rowSize.rowBytes = reserved.length;
+    return reserved;
+  }
+
+  @Benchmark
+  public CompletionStage<String> cachedLookup() {
+    return lookup.getShowId(reservationId, null);
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.common;
+
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletApiModel.WalletCommand.ChargeWallet;
+import com.example.wallet.model.WalletApiModel.WalletCommand.Refund;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charge and refund arithmetic on {@link BigDecimal} versus {@link Money}. Run with {@code -prof gc} to compare the
+ * allocation rate ({@code gc.alloc.rate.norm}, bytes per operation).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class MoneyBenchmark {
+
+  private BigDecimal decimalBalance;
+  private BigDecimal decimalAmount;
+  private Money balance;
+  private Money amount;
+  private Wallet wallet;
+  private ChargeWallet charge;
+  private Refund refund;
+
+  @Setup
+  public void setup() {
+    decimalBalance = new BigDecimal("1000000.00");
+    decimalAmount = new BigDecimal("123.45");
+    balance = Money.of(decimalBalance);
+    amount = Money.of(decimalAmount);
+    wallet = new Wallet("w1", balance);
+    charge = new ChargeWallet(amount, "charge-1");
+    refund = new Refund("refund-1");
+  }
+
+  @Benchmark
+  public void bigDecimalChargeAndRefund(Blackhole blackhole) {
+    if (decimalBalance.compareTo(decimalAmount) >= 0) {
+      BigDecimal charged = decimalBalance.subtract(decimalAmount);
+      blackhole.consume(charged.add(decimalAmount));
+    }
+  }
+
+  @Benchmark
+  public void moneyChargeAndRefund(Blackhole blackhole) {
+    if (!balance.isLessThan(amount)) {
+      Money charged = balance.minus(amount);
+      blackhole.consume(charged.plus(amount));
+    }
+  }
+
+  @Benchmark
+  public Wallet walletChargeAndRefund() {
+    Wallet charged = wallet.apply(wallet.handleCharge("expense-1", charge).get());
+    return charged.apply(charged.handleRefund("expense-1", refund).get());
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.wallet;
+
+import com.example.common.Money;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletApiModel.WalletCommand.ChargeWallet;
+import com.example.wallet.model.WalletApiModel.WalletCommandError;
+import com.example.wallet.model.WalletEvent;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.wallet.DomainGenerators.randomCommandId;
+
+/**
+ * Charging a {@link Wallet} that has already processed a number of charges, so that deduplication and expense
+ * bookkeeping work on realistically sized state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class WalletBenchmark {
+
+  @Param({"0", "1000", "20000"})
+  public int previousCharges;
+
+  private Wallet wallet;
+  private ChargeWallet charge;
+  private WalletEvent.WalletCharged charged;
+
+  @Setup
+  public void setup() {
+    wallet = Wallet.EMPTY_WALLET.apply(new WalletEvent.WalletCreated("w1", Money.of(1_000_000)));
+    for (int i = 0; i < previousCharges; i++) {
+      wallet = wallet.apply(new WalletEvent.WalletCharged(wallet.id(), Money.of(1), "expense-" + i, randomCommandId()));
+    }
+    charge = new ChargeWallet(Money.of(10), randomCommandId());
+    charged = (WalletEvent.WalletCharged) wallet.handleCharge("expense-new", charge).get();
+  }
+
+  @Benchmark
+  public Either<WalletCommandError, WalletEvent> handleCharge() {
+    return wallet.handleCharge("expense-new", charge);
+  }
+
+  @Benchmark
+  public Wallet applyCharged() {
+    return wallet.apply(charged);
+  }
+}
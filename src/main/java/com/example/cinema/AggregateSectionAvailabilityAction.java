@@ -0,0 +1,68 @@
+package com.example.cinema;
+
+import com.example.cinema.model.ShowSections;
+import kalix.javasdk.action.Action;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.client.ComponentClient;
+
+import static com.example.cinema.model.ShowEvent.*;
+
+/**
+ * Reports the available seats of section shows to their sharded show. Every report carries the absolute count of the
+ * section, so a redelivered or repeated report is a no-op. With the available seats projection coalescing, a section
+ * reports once per window on {@link AvailabilityPublished} instead of on every reservation.
+ */
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class AggregateSectionAvailabilityAction extends Action {
+
+  private static final AvailabilityProjectionSettings AVAILABILITY_PROJECTION = AvailabilityProjectionSettings.load();
+
+  private final ComponentClient componentClient;
+
+  public AggregateSectionAvailabilityAction(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect<String> onEvent(SeatReserved reserved) {
+    return reportSeatChange(reserved.showId(), reserved.availableSeatsCount());
+  }
+
+  public Effect<String> onEvent(SeatReservationCancelled cancelled) {
+    return reportSeatChange(cancelled.showId(), cancelled.availableSeatsCount());
+  }
+
+  public Effect<String> onEvent(SeatsReserved reserved) {
+    return reportSeatChange(reserved.showId(), reserved.availableSeatsCount());
+  }
+
+  public Effect<String> onEvent(SeatsReservationCancelled cancelled) {
+    return reportSeatChange(cancelled.showId(), cancelled.availableSeatsCount());
+  }
+
+  public Effect<String> onEvent(AvailabilityPublished published) {
+    if (ShowSections.isSection(published.showId())) {
+      return report(published.showId(), published.availableSeatsCount());
+    } else {
+      return effects().ignore();
+    }
+  }
+
+  private Effect<String> reportSeatChange(String showId, int availableSeatsCount) {
+    if (!ShowSections.isSection(showId) || AVAILABILITY_PROJECTION.coalesce()) {
+      return effects().ignore();
+    } else {
+      return report(showId, availableSeatsCount);
+    }
+  }
+
+  private Effect<String> report(String sectionShowId, int availableSeatsCount) {
+    String showId = ShowSections.shardedShowId(sectionShowId);
+    return effects().asyncReply(
+      CreateShowSectionsAction.RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(showId)
+          .call(ShowEntity::updateSectionAvailability)
+          .params(sectionShowId, availableSeatsCount)
+          .execute())
+        .thenApply(response -> "section availability reported")
+    );
+  }
+}
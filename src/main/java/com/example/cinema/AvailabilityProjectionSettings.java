@@ -0,0 +1,22 @@
+package com.example.cinema;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.time.Duration;
+
+/**
+ * @param coalesce     publish available seats of a show to {@link ShowsByAvailableSeatsView} once per window instead of
+ *                     on every reservation event
+ * @param maxStaleness length of the window, how long the view may lag behind the show
+ */
+public record AvailabilityProjectionSettings(boolean coalesce, Duration maxStaleness) {
+
+  static AvailabilityProjectionSettings load() {
+    return of(ConfigFactory.load().getConfig("cinema.show.availability-projection"));
+  }
+
+  static AvailabilityProjectionSettings of(Config config) {
+    return new AvailabilityProjectionSettings(config.getBoolean("coalesce"), config.getDuration("max-staleness"));
+  }
+}
@@ -1,8 +1,9 @@
 package com.example.cinema;
 
-import akka.actor.ActorSystem;
-import akka.pattern.Patterns;
+import com.example.common.Money;
+import com.example.common.RetryPolicy;
 import com.example.wallet.WalletEntity;
+import com.typesafe.config.ConfigFactory;
 import kalix.javasdk.action.Action;
 import kalix.javasdk.annotations.Subscribe;
 import kalix.javasdk.client.ComponentClient;
@@ -11,20 +12,32 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import java.time.Duration;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.time.Duration.ofSeconds;
 
 import static com.example.cinema.model.ShowEvent.*;
 import static com.example.wallet.model.WalletApiModel.WalletCommand.*;
 
+/**
+ * Holds the price of a reservation in the wallet, {@link CompleteReservationAction} captures or releases it.
+ */
 @Profile("choreography")
 @Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
 public class ChargeForReservationAction extends Action {
 
+  /**
+   * Hold metadata key carrying the show of the reservation, echoed in wallet events for {@link CompleteReservationAction}.
+   */
+  static final String SHOW_ID_METADATA = "showId";
+
+  /**
+   * Shared by the choreography actions, so that they draw from one retry budget.
+   */
+  static final RetryPolicy RETRY_POLICY = RetryPolicy.of(ConfigFactory.load().getConfig("cinema.choreography.retry"));
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   private final ComponentClient componentClient;
@@ -34,40 +47,43 @@ public class ChargeForReservationAction extends Action {
   }
 
   public Effect<String> charge(SeatReserved seatReserved) {
-    logger.info("charging for reservation, triggered by " + seatReserved);
-    String expenseId = seatReserved.reservationId();
+    logger.info("holding funds for reservation, triggered by " + seatReserved);
+    return chargeForReservation(seatReserved.showId(), seatReserved.walletId(), seatReserved.reservationId(), seatReserved.price());
+  }
+
+  public Effect<String> charge(SeatsReserved seatsReserved) {
+    logger.info("holding funds for reservation, triggered by " + seatsReserved);
+    return chargeForReservation(seatsReserved.showId(), seatsReserved.walletId(), seatsReserved.reservationId(), seatsReserved.price());
+  }
+
+  private Effect<String> chargeForReservation(String showId, String walletId, String reservationId, Money price) {
+    String holdId = reservationId;
 
     String sequenceNum = contextForComponents().metadata().get("ce-sequence").orElseThrow();
-    String walletId = seatReserved.walletId();
 
     String commandId = UUID.nameUUIDFromBytes(sequenceNum.getBytes(UTF_8)).toString();
-    var chargeWallet = new ChargeWallet(seatReserved.price(),commandId);
-
-    var attempts = 3;
-    var retryDelay = Duration.ofSeconds(1);
-    ActorSystem actorSystem = actionContext().materializer().system();
+    var holdFunds = new HoldFunds(price, commandId, Map.of(SHOW_ID_METADATA, showId));
 
     return effects().asyncReply(
-      Patterns.retry(() -> chargeWallet(walletId, expenseId, chargeWallet),
-          attempts,
-          retryDelay,
-          actorSystem)
+      RETRY_POLICY.retry(() -> holdFunds(walletId, holdId, holdFunds))
         .exceptionallyComposeAsync(throwable ->
-            registerFailure(seatReserved.showId(), expenseId, throwable)
+            registerFailure(showId, holdId, throwable)
         )
     );
   }
 
-  private CompletionStage<String> chargeWallet(String walletId, String expenseId, ChargeWallet chargeWallet) {
-    return componentClient.forEventSourcedEntity(walletId)
-      .call(WalletEntity::charge)
-      .params(expenseId, chargeWallet)
-      .execute()
+  //a hold that landed despite the failure is released by CompleteReservationAction, the reservation is cancelled by then
+  private CompletionStage<String> holdFunds(String walletId, String holdId, HoldFunds holdFunds) {
+    return WalletCircuitBreaker.INSTANCE.call(() -> componentClient.forEventSourcedEntity(walletId)
+        .call(WalletEntity::hold)
+        .params(holdId, holdFunds)
+        .execute())
       .thenApply(response -> "done");
   }
   private CompletionStage<String> registerFailure(String showId, String reservationId, Throwable throwable) {
     var msg = getMessage(throwable);
-    return componentClient.forEventSourcedEntity(showId).call(ShowEntity::cancelReservation).params(reservationId).execute().thenApply(res -> msg);
+    return RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(showId).call(ShowEntity::cancelReservation).params(reservationId).execute())
+      .thenApply(res -> msg);
   }
 
   private String getMessage(Throwable throwable) {
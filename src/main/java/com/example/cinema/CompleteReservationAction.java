@@ -1,8 +1,9 @@
 package com.example.cinema;
 
-import com.example.cinema.reservation.ReservationEntity;
-import com.example.cinema.model.Show;
+import com.example.cinema.reservation.ReservationLookup;
 import com.example.wallet.WalletEntity;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import kalix.javasdk.action.Action;
 import kalix.javasdk.annotations.Subscribe;
 import kalix.javasdk.client.ComponentClient;
@@ -10,10 +11,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 
+import static com.example.wallet.model.WalletApiModel.WalletCommand.Refund;
 import static com.example.wallet.model.WalletEvent.*;
 import static com.example.cinema.model.CinemaApiModel.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Profile("choreography")
 @Subscribe.EventSourcedEntity(value = WalletEntity.class, ignoreUnknown = true)
@@ -27,14 +34,68 @@ public class CompleteReservationAction extends Action {
     this.componentClient = componentClient;
   }
 
+  /**
+   * Refunds the charge when the reservation was cancelled or expired. A reservation or show that can't be found is
+   * logged and left, redelivering the event would not make it appear. Other failures are retried.
+   */
   public Effect<Response> confirmReservation(WalletCharged walletCharged) {
     logger.info("confirming reservation, triggered by " + walletCharged);
 
     String reservationId = walletCharged.expenseId();
 
     return effects().asyncReply(
-      getShowIdBy(reservationId).thenCompose(showId ->
+      getShowIdBy(reservationId, walletCharged.metadata()).thenCompose(showId ->
         confirmReservation(showId, reservationId)
+      ).thenCompose(response -> switch (response) {
+        case Response.Success __ -> CompletableFuture.completedFuture(response);
+        case Response.Failure failure -> {
+          if (ShowCommandError.RESERVATION_CANCELLED.name().equals(failure.message())) {
+            logger.warn("confirming reservation failed with: " + failure + ", refunding");
+            yield refund(walletCharged.walletId(), reservationId);
+          } else if (ShowCommandError.RESERVATION_NOT_FOUND.name().equals(failure.message())) {
+            yield reservationNotFound(walletCharged);
+          } else {
+            yield CompletableFuture.<Response>failedFuture(new IllegalStateException("Expecting confirmed or cancelled reservation, but got: " + failure));
+          }
+        }
+      }).exceptionallyCompose(throwable -> isNotFound(throwable)
+        ? reservationNotFound(walletCharged)
+        : CompletableFuture.<Response>failedFuture(throwable)));
+  }
+
+  /**
+   * Captures the hold once the reservation is confirmed, also when it was already paid by an earlier delivery of the
+   * event, and releases it only when the reservation was cancelled or expired. Other failures are retried.
+   */
+  public Effect<Response> confirmReservation(FundsHeld fundsHeld) {
+    logger.info("confirming reservation, triggered by " + fundsHeld);
+
+    String reservationId = fundsHeld.holdId();
+
+    return effects().asyncReply(
+      getShowIdBy(reservationId, fundsHeld.metadata()).thenCompose(showId ->
+        confirmReservation(showId, reservationId)
+      ).thenCompose(response -> switch (response) {
+        case Response.Success __ -> captureFunds(fundsHeld.walletId(), reservationId);
+        case Response.Failure failure -> {
+          if (ShowCommandError.RESERVATION_CANCELLED.name().equals(failure.message())) {
+            logger.warn("confirming reservation failed with: " + failure + ", releasing funds");
+            yield releaseFunds(fundsHeld.walletId(), reservationId);
+          } else {
+            yield CompletableFuture.<Response>failedFuture(new IllegalStateException("Expecting confirmed or cancelled reservation, but got: " + failure));
+          }
+        }
+      }));
+  }
+
+  public Effect<Response> cancelReservation(FundsHoldRejected fundsHoldRejected) {
+    logger.info("cancelling reservation, triggered by " + fundsHoldRejected);
+
+    String reservationId = fundsHoldRejected.holdId();
+
+    return effects().asyncReply(
+      getShowIdBy(reservationId, fundsHoldRejected.metadata()).thenCompose(showId ->
+        cancelReservation(showId, reservationId)
       ));
   }
 
@@ -44,34 +105,65 @@ public class CompleteReservationAction extends Action {
     String reservationId = walletChargeRejected.expenseId();
 
     return effects().asyncReply(
-      getShowIdBy(reservationId).thenCompose(showId ->
+      getShowIdBy(reservationId, walletChargeRejected.metadata()).thenCompose(showId ->
         cancelReservation(showId, reservationId)
       ));
   }
 
   private CompletionStage<Response> confirmReservation(String showId, String reservationId) {
-    return componentClient.forEventSourcedEntity(showId)
+    return ChargeForReservationAction.RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(showId)
       .call(ShowEntity::confirmPayment)
       .params(reservationId)
-      .execute();
+      .execute());
   }
 
   private CompletionStage<Response> cancelReservation(String showId, String reservationId) {
-    return componentClient.forEventSourcedEntity(showId)
+    return ChargeForReservationAction.RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(showId)
       .call(ShowEntity::cancelReservation)
       .params(reservationId)
-      .execute();
+      .execute());
+  }
+
+  private CompletionStage<Response> captureFunds(String walletId, String holdId) {
+    return ChargeForReservationAction.RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(walletId)
+      .call(WalletEntity::capture)
+      .params(holdId)
+      .execute());
+  }
+
+  //the charge used the reservation id as command id, the refund needs another one that is the same on redelivery
+  private CompletionStage<Response> refund(String walletId, String expenseId) {
+    var commandId = UUID.nameUUIDFromBytes(expenseId.getBytes(UTF_8)).toString();
+    return ChargeForReservationAction.RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(walletId)
+      .call(WalletEntity::refund)
+      .params(expenseId, new Refund(commandId))
+      .execute());
   }
 
-  //Value Entity as a read model
-  private CompletionStage<String> getShowIdBy(String reservationId) {
-    return componentClient.forValueEntity(reservationId).call(ReservationEntity::get).execute()
-      .thenApply(Show.Reservation::showId);
+  private CompletionStage<Response> reservationNotFound(WalletCharged walletCharged) {
+    logger.error("reservation not found for " + walletCharged + ", leaving the charge to be reconciled");
+    return CompletableFuture.completedFuture(Response.Failure.of("reservation not found"));
   }
 
-  //View as a read model
-//  private CompletionStage<String> getShowIdBy2(String reservationId) {
-//    return componentClient.forView().call(ShowByReservationView::getShow).params(reservationId).execute()
-//      .thenApply(CinemaDomainModel.ShowByReservation::showId);
-//  }
+  private static boolean isNotFound(Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+    return cause instanceof StatusRuntimeException statusException && statusException.getStatus().getCode() == Status.Code.NOT_FOUND;
+  }
+
+  private CompletionStage<Response> releaseFunds(String walletId, String holdId) {
+    return ChargeForReservationAction.RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(walletId)
+      .call(WalletEntity::release)
+      .params(holdId)
+      .execute());
+  }
+
+  //show id carried by the charge, the read model is needed only for charges made before it was added
+  private CompletionStage<String> getShowIdBy(String reservationId, Map<String, String> chargeMetadata) {
+    String showId = chargeMetadata.get(ChargeForReservationAction.SHOW_ID_METADATA);
+    if (showId != null) {
+      return CompletableFuture.completedFuture(showId);
+    } else {
+      return ReservationLookup.SHARED.getShowId(reservationId, componentClient);
+    }
+  }
 }
@@ -0,0 +1,53 @@
+package com.example.cinema;
+
+import com.example.cinema.model.ShowSections;
+import com.example.common.RetryPolicy;
+import com.typesafe.config.ConfigFactory;
+import kalix.javasdk.action.Action;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.client.ComponentClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.cinema.model.CinemaApiModel.ShowCommand.CreateShowWithLayout;
+import static com.example.cinema.model.ShowEvent.ShowSharded;
+
+/**
+ * Creates the section shows of a sharded show, one {@link ShowEntity} per section of its layout. Section creation is
+ * idempotent, so a redelivered {@link ShowSharded} creates only the sections that are still missing.
+ */
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class CreateShowSectionsAction extends Action {
+
+  /**
+   * Shared by the sharding actions, so that they draw from one retry budget, apart from the choreography's.
+   */
+  static final RetryPolicy RETRY_POLICY = RetryPolicy.of(ConfigFactory.load().getConfig("cinema.show.sharding.retry"));
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ComponentClient componentClient;
+
+  public CreateShowSectionsAction(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect<String> onEvent(ShowSharded showSharded) {
+    List<String> sectionShowIds = ShowSections.sectionShowIds(showSharded.showId(), showSharded.layout());
+    logger.debug("creating {} sections of show {}", sectionShowIds.size(), showSharded.showId());
+    CompletableFuture<?>[] sectionsCreated = new CompletableFuture<?>[sectionShowIds.size()];
+    for (int section = 0; section < sectionShowIds.size(); section++) {
+      String sectionShowId = sectionShowIds.get(section);
+      var createSection = new CreateShowWithLayout(showSharded.title(), ShowSections.sectionLayout(showSharded.layout(), section));
+      sectionsCreated[section] = RETRY_POLICY.retry(() -> componentClient.forEventSourcedEntity(sectionShowId)
+          .call(ShowEntity::createSection)
+          .params(sectionShowId, createSection)
+          .execute())
+        .toCompletableFuture();
+    }
+    return effects().asyncReply(CompletableFuture.allOf(sectionsCreated).thenApply(__ -> "sections created"));
+  }
+}
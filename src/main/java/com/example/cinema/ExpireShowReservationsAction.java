@@ -0,0 +1,43 @@
+package com.example.cinema;
+
+import kalix.javasdk.action.Action;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.client.ComponentClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.example.cinema.model.ShowEvent.ReservationExpiryScheduled;
+
+/**
+ * Runs the reservation expiry sweeps of a show: a single timer per show fires {@link ShowEntity#expireReservations(long)}
+ * one {@link ReservationExpirySettings#window()} after the sweep was scheduled, whatever the number of pending
+ * reservations.
+ */
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class ExpireShowReservationsAction extends Action {
+
+  private static final ReservationExpirySettings RESERVATION_EXPIRY = ReservationExpirySettings.load();
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ComponentClient componentClient;
+
+  public ExpireShowReservationsAction(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect<String> onEvent(ReservationExpiryScheduled reservationExpiryScheduled) {
+    String showId = reservationExpiryScheduled.showId();
+    long sweep = reservationExpiryScheduled.sweep();
+    logger.debug("scheduling reservation expiry sweep {} for show {}", sweep, showId);
+    var expireReservations = componentClient.forEventSourcedEntity(showId)
+      .call(ShowEntity::expireReservations)
+      .params(sweep);
+
+    //the next sweep is scheduled while the timer of the previous one is still running, the sweep number tells them apart
+    return effects().asyncReply(
+      timers().startSingleTimer("reservation-expiry-" + showId + "-" + sweep, RESERVATION_EXPIRY.window(), expireReservations)
+        .thenApply(done -> "timer started")
+    );
+  }
+}
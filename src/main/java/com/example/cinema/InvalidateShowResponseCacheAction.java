@@ -0,0 +1,48 @@
+package com.example.cinema;
+
+import kalix.javasdk.action.Action;
+import kalix.javasdk.annotations.Subscribe;
+
+import static com.example.cinema.model.ShowEvent.*;
+
+/**
+ * Drops a show from the {@link ShowResponseCache} whenever its seats change. Section shows of a sharded show are cached
+ * under their own ids, the sharded show itself is never cached.
+ */
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class InvalidateShowResponseCacheAction extends Action {
+
+  public Effect<String> onEvent(SeatReserved seatReserved) {
+    return invalidate(seatReserved.showId());
+  }
+
+  public Effect<String> onEvent(SeatReservationPaid seatReservationPaid) {
+    return invalidate(seatReservationPaid.showId());
+  }
+
+  public Effect<String> onEvent(SeatReservationCancelled seatReservationCancelled) {
+    return invalidate(seatReservationCancelled.showId());
+  }
+
+  public Effect<String> onEvent(SeatsReserved seatsReserved) {
+    return invalidate(seatsReserved.showId());
+  }
+
+  public Effect<String> onEvent(SeatsReservationPaid seatsReservationPaid) {
+    return invalidate(seatsReservationPaid.showId());
+  }
+
+  public Effect<String> onEvent(SeatsReservationCancelled seatsReservationCancelled) {
+    return invalidate(seatsReservationCancelled.showId());
+  }
+
+  //drops a response cached between the show's creation and its sharding
+  public Effect<String> onEvent(ShowSharded showSharded) {
+    return invalidate(showSharded.showId());
+  }
+
+  private Effect<String> invalidate(String showId) {
+    ShowResponseCache.SHARED.invalidate(showId);
+    return effects().reply("invalidated");
+  }
+}
@@ -0,0 +1,39 @@
+package com.example.cinema;
+
+import kalix.javasdk.action.Action;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.client.ComponentClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.example.cinema.model.ShowEvent.AvailabilityFlushScheduled;
+
+/**
+ * Closes a coalescing window of the available seats projection: a timer fires {@link ShowEntity#publishAvailability()}
+ * once {@link AvailabilityProjectionSettings#maxStaleness()} after the first change in the window.
+ */
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class PublishShowAvailabilityAction extends Action {
+
+  private static final AvailabilityProjectionSettings AVAILABILITY_PROJECTION = AvailabilityProjectionSettings.load();
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ComponentClient componentClient;
+
+  public PublishShowAvailabilityAction(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect<String> onEvent(AvailabilityFlushScheduled availabilityFlushScheduled) {
+    String showId = availabilityFlushScheduled.showId();
+    logger.debug("scheduling availability publish for show {}", showId);
+    var publishAvailability = componentClient.forEventSourcedEntity(showId)
+      .call(ShowEntity::publishAvailability);
+
+    return effects().asyncReply(
+      timers().startSingleTimer("availability-" + showId, AVAILABILITY_PROJECTION.maxStaleness(), publishAvailability)
+        .thenApply(done -> "timer started")
+    );
+  }
+}
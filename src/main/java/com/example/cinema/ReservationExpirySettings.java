@@ -0,0 +1,21 @@
+package com.example.cinema;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.time.Duration;
+
+/**
+ * @param enabled cancel reservations left pending by a stalled reservation saga
+ * @param window  interval of the expiry sweeps of a show, a reservation is cancelled after one to two windows
+ */
+public record ReservationExpirySettings(boolean enabled, Duration window) {
+
+  static ReservationExpirySettings load() {
+    return of(ConfigFactory.load().getConfig("cinema.show.reservation-expiry"));
+  }
+
+  static ReservationExpirySettings of(Config config) {
+    return new ReservationExpirySettings(config.getBoolean("enabled"), config.getDuration("window"));
+  }
+}
@@ -3,6 +3,9 @@ package com.example.cinema;
 import com.example.cinema.model.CinemaApiModel;
 import com.example.cinema.ShowEntity;
 import com.example.cinema.model.Show;
+import com.example.common.CircuitBreaker;
+import com.example.common.LatencyTracker;
+import com.example.common.Money;
 import com.example.wallet.WalletEntity;
 import com.google.protobuf.any.Any;
 import kalix.javasdk.DeferredCall;
@@ -19,10 +22,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.RESERVATION_CANCELLED;
 import static com.example.cinema.model.Show.SeatReservationStatus.STARTED;
 import static io.grpc.Status.Code.INVALID_ARGUMENT;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -39,7 +47,17 @@ public class SeatReservationWorkflow extends Workflow<Show.SeatReservation> {
   public static final String CHARGE_WALLET_STEP = "charge-wallet";
   public static final String CANCEL_RESERVATION_STEP = "cancel-reservation";
   public static final String CONFIRM_RESERVATION_STEP = "confirm-reservation";
+  public static final String CONFIRM_CHARGED_RESERVATION_STEP = "confirm-charged-reservation";
   public static final String REFUND_STEP = "refund";
+  public static final String RESERVE_AND_CHARGE_STEP = "reserve-and-charge";
+  public static final String HOLD_FUNDS_STEP = "hold-funds";
+  public static final String CAPTURE_FUNDS_STEP = "capture-funds";
+  public static final String RELEASE_FUNDS_STEP = "release-funds";
+  private static final SeatReservationWorkflowSettings SETTINGS = SeatReservationWorkflowSettings.load();
+  /**
+   * Latencies of the step calls of all workflows on this node, source of the adaptive step timeouts.
+   */
+  static final LatencyTracker STEP_LATENCIES = new LatencyTracker(SETTINGS.adaptiveTimeouts().window());
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private final ComponentClient componentClient;
 
@@ -47,40 +65,97 @@ public class SeatReservationWorkflow extends Workflow<Show.SeatReservation> {
     this.componentClient = componentClient;
   }
 
-  record ReserveSeat(String showId, int seatNumber, BigDecimal price, String walletId) {
+  record ReserveSeat(String showId, int seatNumber, Money price, String walletId) {
+  }
+
+  /**
+   * @param price price of all seats, charged from the wallet at once
+   */
+  record ReserveSeats(String showId, List<Integer> seatNumbers, Money price, String walletId) {
+  }
+
+  /**
+   * @param walletCharge outcome of holding the price in the wallet
+   */
+  record ReserveAndChargeResult(CinemaApiModel.Response seatReservation, CinemaApiModel.Response walletCharge) {
   }
 
   @Override
   public WorkflowDef<Show.SeatReservation> definition() {
     var reserveSeat = step(RESERVE_SEAT_STEP)
-      .call(this::reserveSeat)
-      .andThen(CinemaApiModel.Response.class, this::chargeWalletOrStop);
+      .asyncCall(() -> timed(RESERVE_SEAT_STEP, () -> reserveSeat().execute()))
+      .andThen(CinemaApiModel.Response.class, this::holdFundsOrStop)
+      .timeout(stepTimeout(RESERVE_SEAT_STEP));
+
+    var holdFunds = step(HOLD_FUNDS_STEP)
+      .asyncCall(() -> callWallet(HOLD_FUNDS_STEP, holdFunds()))
+      .andThen(CinemaApiModel.Response.class, this::confirmOrCancelReservation)
+      .timeout(stepTimeout(HOLD_FUNDS_STEP));
 
     var chargeWallet = step(CHARGE_WALLET_STEP)
-      .call(this::chargeWallet)
-      .andThen(CinemaApiModel.Response.class, this::confirmOrCancelReservation);
+      .asyncCall(() -> callWallet(CHARGE_WALLET_STEP, chargeWallet()))
+      .andThen(CinemaApiModel.Response.class, this::confirmChargedOrCancelReservation)
+      .timeout(stepTimeout(CHARGE_WALLET_STEP));
 
     var confirmReservation = step(CONFIRM_RESERVATION_STEP)
-      .call(this::confirmReservation)
-      .andThen(CinemaApiModel.Response.class, this::endAsCompleted);
+      .asyncCall(() -> timed(CONFIRM_RESERVATION_STEP, () -> confirmReservation().execute()))
+      .andThen(CinemaApiModel.Response.class, this::captureOrReleaseFunds)
+      .timeout(stepTimeout(CONFIRM_RESERVATION_STEP));
+
+    var confirmChargedReservation = step(CONFIRM_CHARGED_RESERVATION_STEP)
+      .asyncCall(() -> timed(CONFIRM_CHARGED_RESERVATION_STEP, () -> confirmReservation().execute()))
+      .andThen(CinemaApiModel.Response.class, this::completeOrRefund)
+      .timeout(stepTimeout(CONFIRM_CHARGED_RESERVATION_STEP));
+
+    var captureFunds = step(CAPTURE_FUNDS_STEP)
+      .asyncCall(() -> timed(CAPTURE_FUNDS_STEP, () -> captureFunds().execute()))
+      .andThen(CinemaApiModel.Response.class, this::endAsCompleted)
+      .timeout(stepTimeout(CAPTURE_FUNDS_STEP));
 
     var cancelReservation = step(CANCEL_RESERVATION_STEP)
-      .call(this::cancelReservation)
-      .andThen(CinemaApiModel.Response.class, this::endAsFailed);
+      .asyncCall(() -> timed(CANCEL_RESERVATION_STEP, () -> cancelReservation().execute()))
+      .andThen(CinemaApiModel.Response.class, this::endAsFailed)
+      .timeout(stepTimeout(CANCEL_RESERVATION_STEP));
 
     var refund = step(REFUND_STEP)
-      .call(this::refund)
-      .andThen(CinemaApiModel.Response.class, this::cancelReservation);
+      .asyncCall(() -> timed(REFUND_STEP, () -> refund().execute()))
+      .andThen(CinemaApiModel.Response.class, this::cancelReservation)
+      .timeout(stepTimeout(REFUND_STEP));
+
+    var releaseFunds = step(RELEASE_FUNDS_STEP)
+      .asyncCall(() -> timed(RELEASE_FUNDS_STEP, () -> releaseFunds().execute()))
+      .andThen(CinemaApiModel.Response.class, this::cancelReservation)
+      .timeout(stepTimeout(RELEASE_FUNDS_STEP));
+
+    var reserveAndCharge = step(RESERVE_AND_CHARGE_STEP)
+      .asyncCall(this::reserveAndHold)
+      .andThen(ReserveAndChargeResult.class, this::confirmOrCompensate)
+      .timeout(stepTimeout(RESERVE_AND_CHARGE_STEP));
 
     return workflow()
-      .defaultStepTimeout(Duration.ofSeconds(3))
-      .addStep(reserveSeat, maxRetries(3).failoverTo(CANCEL_RESERVATION_STEP))
-      .addStep(chargeWallet, maxRetries(3).failoverTo(REFUND_STEP))
+      .defaultStepTimeout(SETTINGS.step("default").timeout())
+      .addStep(reserveSeat, maxRetries(SETTINGS.step(RESERVE_SEAT_STEP).maxRetries()).failoverTo(CANCEL_RESERVATION_STEP))
+      //outcome of both calls is unknown, release and cancel are no-ops for a missing hold or reservation
+      .addStep(reserveAndCharge, maxRetries(SETTINGS.step(RESERVE_AND_CHARGE_STEP).maxRetries()).failoverTo(RELEASE_FUNDS_STEP))
+      .addStep(holdFunds, maxRetries(SETTINGS.step(HOLD_FUNDS_STEP).maxRetries()).failoverTo(RELEASE_FUNDS_STEP))
       .addStep(confirmReservation)
+      .addStep(captureFunds)
       .addStep(cancelReservation)
+      .addStep(releaseFunds)
+      //charge, its confirmation and refund are left for workflows started before funds were held
+      .addStep(chargeWallet, maxRetries(SETTINGS.step(CHARGE_WALLET_STEP).maxRetries()).failoverTo(REFUND_STEP))
+      .addStep(confirmChargedReservation)
       .addStep(refund);
   }
 
+  private Duration stepTimeout(String step) {
+    return SETTINGS.timeout(step, STEP_LATENCIES);
+  }
+
+  private <T> CompletionStage<T> timed(String step, Supplier<CompletionStage<T>> call) {
+    return STEP_LATENCIES.time(step, call);
+  }
+
   private DeferredCall<Any, CinemaApiModel.Response> refund() {
     logger.info("refunding");
     //we can't use reservationId for refund, because it was used for charging.
@@ -90,6 +165,13 @@ public class SeatReservationWorkflow extends Workflow<Show.SeatReservation> {
       .params(currentState().reservationId(),new Refund(commandId));
   }
 
+  private DeferredCall<Any, CinemaApiModel.Response> releaseFunds() {
+    logger.info("releasing funds");
+    return componentClient.forEventSourcedEntity(currentState().walletId())
+      .call(WalletEntity::release)
+      .params(currentState().reservationId());
+  }
+
   private TransitionalEffect<Void> cancelReservation(CinemaApiModel.Response response) {
     return switch (response) {
       case CinemaApiModel.Response.Failure failure -> throw new IllegalStateException("Expecting successful response, but got: " + failure);
@@ -122,6 +204,55 @@ public class SeatReservationWorkflow extends Workflow<Show.SeatReservation> {
       .params(currentState().reservationId());
   }
 
+  private TransitionalEffect<Void> captureOrReleaseFunds(CinemaApiModel.Response response) {
+    return switch (response) {
+      case CinemaApiModel.Response.Failure failure -> {
+        if (isCancelled(failure)) {
+          //the reservation expired before it was confirmed
+          logger.warn("confirming reservation failed with: " + failure + ", releasing funds");
+          yield effects()
+            .transitionTo(RELEASE_FUNDS_STEP);
+        } else {
+          throw new IllegalStateException("Expecting confirmed or cancelled reservation, but got: " + failure);
+        }
+      }
+      //also a confirmation retried after the reservation was paid
+      case CinemaApiModel.Response.Success __ -> effects()
+        .transitionTo(CAPTURE_FUNDS_STEP);
+    };
+  }
+
+  /**
+   * Funds of a charged wallet were taken, not held, so a cancelled reservation is refunded instead of released.
+   */
+  private TransitionalEffect<Void> completeOrRefund(CinemaApiModel.Response response) {
+    return switch (response) {
+      case CinemaApiModel.Response.Failure failure -> {
+        if (isCancelled(failure)) {
+          logger.warn("confirming reservation failed with: " + failure + ", refunding");
+          yield effects()
+            .transitionTo(REFUND_STEP);
+        } else {
+          throw new IllegalStateException("Expecting confirmed or cancelled reservation, but got: " + failure);
+        }
+      }
+      case CinemaApiModel.Response.Success __ -> effects()
+        .updateState(currentState().asCompleted())
+        .end();
+    };
+  }
+
+  private static boolean isCancelled(CinemaApiModel.Response.Failure failure) {
+    return RESERVATION_CANCELLED.name().equals(failure.message());
+  }
+
+  private DeferredCall<Any, CinemaApiModel.Response> captureFunds() {
+    logger.info("capturing funds");
+    return componentClient.forEventSourcedEntity(currentState().walletId())
+      .call(WalletEntity::capture)
+      .params(currentState().reservationId());
+  }
+
   private TransitionalEffect<Void> endAsCompleted(CinemaApiModel.Response response) {
     return switch (response) {
       case CinemaApiModel.Response.Failure failure -> throw new IllegalStateException("Expecting successful response, but got: " + failure);
@@ -135,34 +266,128 @@ public class SeatReservationWorkflow extends Workflow<Show.SeatReservation> {
     logger.info("charging wallet");
     var expenseId = currentState().reservationId();
     var commandId = expenseId; //reusing the same id, since we know that it will be unique
-    return componentClient.forEventSourcedEntity(currentState().walletId())
+    var walletId = currentState().walletId();
+    var chargeWallet = new ChargeWallet(currentState().price(), commandId);
+    return componentClient.forEventSourcedEntity(walletId)
       .call(WalletEntity::charge)
-      .params(expenseId, new ChargeWallet(currentState().price(), commandId));
+      .params(expenseId, chargeWallet);
   }
 
-  private TransitionalEffect<Void> confirmOrCancelReservation(CinemaApiModel.Response response) {
+  private DeferredCall<Any, CinemaApiModel.Response> holdFunds() {
+    logger.info("holding funds");
+    var holdId = currentState().reservationId();
+    var commandId = holdId; //reusing the same id, since we know that it will be unique
+    var walletId = currentState().walletId();
+    var holdFunds = new HoldFunds(currentState().price(), commandId);
+    return componentClient.forEventSourcedEntity(walletId)
+      .call(WalletEntity::hold)
+      .params(holdId, holdFunds);
+  }
+
+  /**
+   * Times only calls let through by the circuit breaker, fast failures would drag the adaptive timeout down.
+   */
+  private CompletionStage<CinemaApiModel.Response> callWallet(String step, DeferredCall<Any, CinemaApiModel.Response> call) {
+    return callWallet(() -> timed(step, call::execute));
+  }
+
+  private CompletionStage<CinemaApiModel.Response> callWallet(Supplier<CompletionStage<CinemaApiModel.Response>> call) {
+    return WalletCircuitBreaker.INSTANCE.call(call)
+      .exceptionallyCompose(throwable -> {
+        if (throwable instanceof CircuitBreaker.OpenException || throwable.getCause() instanceof CircuitBreaker.OpenException) {
+          //wallet was not called, nothing to release
+          return CompletableFuture.completedFuture(CinemaApiModel.Response.Failure.of(throwable.getMessage()));
+        } else {
+          return CompletableFuture.failedFuture(throwable);
+        }
+      });
+  }
+
+  private TransitionalEffect<Void> confirmChargedOrCancelReservation(CinemaApiModel.Response response) {
     return switch (response) {
       case CinemaApiModel.Response.Failure failure -> {
-        //Here we know that wallet was not charged. We can just cancel reservation as compensation action
         logger.warn("charging wallet failed with: " + failure);
         yield effects()
           .updateState(currentState().asWalletChargeRejected())
           .transitionTo(CANCEL_RESERVATION_STEP);
       }
+      case CinemaApiModel.Response.Success __ -> effects()
+        .updateState(currentState().asWalletCharged())
+        .transitionTo(CONFIRM_CHARGED_RESERVATION_STEP);
+    };
+  }
+
+  private TransitionalEffect<Void> confirmOrCancelReservation(CinemaApiModel.Response response) {
+    return switch (response) {
+      case CinemaApiModel.Response.Failure failure -> {
+        //Here we know that funds were not held. We can just cancel reservation as compensation action
+        logger.warn("holding funds failed with: " + failure);
+        yield effects()
+          .updateState(currentState().asWalletChargeRejected())
+          .transitionTo(CANCEL_RESERVATION_STEP);
+      }
       case CinemaApiModel.Response.Success __ -> effects()
         .updateState(currentState().asWalletCharged())
         .transitionTo(CONFIRM_RESERVATION_STEP);
     };
   }
 
+  private CompletionStage<ReserveAndChargeResult> reserveAndHold() {
+    logger.info("reserving seats {} and holding funds", currentState().seatNumbers());
+    long start = System.nanoTime();
+    var walletCalled = new AtomicBoolean();
+    var seatReservation = reserveSeat().execute();
+    var fundsHold = callWallet(() -> {
+      walletCalled.set(true);
+      return holdFunds().execute();
+    });
+    return seatReservation.thenCombine(fundsHold, ReserveAndChargeResult::new)
+      .whenComplete((result, throwable) -> {
+        //a hold failed fast by the circuit breaker would make the step look faster than it is
+        if (walletCalled.get()) {
+          STEP_LATENCIES.record(RESERVE_AND_CHARGE_STEP, Duration.ofNanos(System.nanoTime() - start));
+        }
+      });
+  }
+
+  private TransitionalEffect<Void> confirmOrCompensate(ReserveAndChargeResult result) {
+    return switch (result.seatReservation()) {
+      case CinemaApiModel.Response.Success seatsReserved -> switch (result.walletCharge()) {
+        case CinemaApiModel.Response.Success walletCharged -> effects()
+          .updateState(currentState().asWalletCharged())
+          .transitionTo(CONFIRM_RESERVATION_STEP);
+        case CinemaApiModel.Response.Failure failure -> {
+          logger.warn("holding funds failed with: " + failure);
+          yield effects()
+            .updateState(currentState().asWalletChargeRejected())
+            .transitionTo(CANCEL_RESERVATION_STEP);
+        }
+      };
+      case CinemaApiModel.Response.Failure failure -> switch (result.walletCharge()) {
+        case CinemaApiModel.Response.Success walletCharged -> {
+          logger.warn("seat reservation failed with: " + failure + ", releasing funds");
+          yield effects()
+            .updateState(currentState().asWalletCharged())
+            .transitionTo(RELEASE_FUNDS_STEP);
+        }
+        case CinemaApiModel.Response.Failure walletFailure -> {
+          logger.warn("seat reservation failed with: " + failure + ", holding funds failed with: " + walletFailure);
+          yield effects()
+            .updateState(currentState().asSeatReservationFailed())
+            .end();
+        }
+      };
+    };
+  }
+
   private DeferredCall<Any, CinemaApiModel.Response> reserveSeat() {
-    logger.info("reserving seat");
+    logger.info("reserving seats {}", currentState().seatNumbers());
     return componentClient.forEventSourcedEntity(currentState().showId())
-      .call(ShowEntity::reserve)
-      .params(new CinemaApiModel.ShowCommand.ReserveSeat(currentState().walletId(), currentState().reservationId(), currentState().seatNumber()));
+      .call(ShowEntity::reserveSeats)
+      .params(new CinemaApiModel.ShowCommand.ReserveSeats(currentState().walletId(), currentState().reservationId(), currentState().seatNumbers()));
   }
 
-  private TransitionalEffect<Void> chargeWalletOrStop(CinemaApiModel.Response response) {
+  private TransitionalEffect<Void> holdFundsOrStop(CinemaApiModel.Response response) {
     return switch (response) {
       case CinemaApiModel.Response.Failure failure -> {
         logger.warn("seat reservation failed with: " + failure);
@@ -172,18 +397,33 @@ public class SeatReservationWorkflow extends Workflow<Show.SeatReservation> {
       }
       case CinemaApiModel.Response.Success __ -> effects()
         .updateState(currentState().asSeatReserved())
-        .transitionTo(CHARGE_WALLET_STEP);
+        .transitionTo(HOLD_FUNDS_STEP);
     };
   }
 
   @PostMapping
   public Effect<String> start(@RequestBody ReserveSeat reserveSeat) {
+    return startReservation(reserveSeat.showId, List.of(reserveSeat.seatNumber), reserveSeat.price, reserveSeat.walletId);
+  }
+
+  @PostMapping("/seats")
+  public Effect<String> startForSeats(@RequestBody ReserveSeats reserveSeats) {
+    if (reserveSeats.seatNumbers == null || reserveSeats.seatNumbers.isEmpty()) {
+      return effects().error("no seats to reserve", INVALID_ARGUMENT);
+    } else {
+      return startReservation(reserveSeats.showId, List.copyOf(reserveSeats.seatNumbers), reserveSeats.price, reserveSeats.walletId);
+    }
+  }
+
+  private Effect<String> startReservation(String showId, List<Integer> seatNumbers, Money price, String walletId) {
     if (currentState() != null) {
       return effects().error("seat reservation already exists", INVALID_ARGUMENT);
     } else {
+      //read on every start, a running workflow keeps the mode recorded in its state
+      boolean parallelReserveAndCharge = SeatReservationWorkflowSettings.load().parallelReserveAndCharge();
       return effects()
-        .updateState(new Show.SeatReservation(reservationId(), reserveSeat.showId, reserveSeat.seatNumber, reserveSeat.walletId, reserveSeat.price, STARTED))
-        .transitionTo(RESERVE_SEAT_STEP)
+        .updateState(new Show.SeatReservation(reservationId(), showId, seatNumbers, walletId, price, STARTED, parallelReserveAndCharge))
+        .transitionTo(parallelReserveAndCharge ? RESERVE_AND_CHARGE_STEP : RESERVE_SEAT_STEP)
         .thenReply("reservation workflow started");
     }
   }
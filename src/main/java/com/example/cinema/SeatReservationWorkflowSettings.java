@@ -0,0 +1,68 @@
+package com.example.cinema;
+
+import com.example.common.LatencyTracker;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.time.Duration;
+
+/**
+ * Settings of {@link SeatReservationWorkflow}. {@code parallelReserveAndCharge} reserves seats and holds funds in the
+ * wallet concurrently, saving a round trip when both succeed at the cost of a hold and release when the seats are taken.
+ * It is read when a workflow starts and kept in the workflow state.
+ * <p>
+ * With adaptive timeouts a step times out after {@code multiplier} times the configured percentile of its recent
+ * latencies, kept between {@code min} and {@code max}, and after the configured timeout until enough latencies are
+ * observed. Timeouts are computed when the SDK builds the workflow definition and how often it does so is up to the
+ * SDK: if it builds the definition once and caches it, the adaptive timeouts stay fixed at the values of that build,
+ * which are the configured timeouts when no latencies were observed yet. Wallet calls failed fast by the circuit
+ * breaker are not counted as latencies.
+ */
+record SeatReservationWorkflowSettings(boolean parallelReserveAndCharge, Config steps, AdaptiveTimeouts adaptiveTimeouts) {
+
+  record StepSettings(Duration timeout, int maxRetries) {
+  }
+
+  record AdaptiveTimeouts(boolean enabled, double percentile, double multiplier, int window, int minSamples, Duration min,
+                          Duration max) {
+
+    static AdaptiveTimeouts of(Config config) {
+      return new AdaptiveTimeouts(
+        config.getBoolean("enabled"),
+        config.getDouble("percentile"),
+        config.getDouble("multiplier"),
+        config.getInt("window"),
+        config.getInt("min-samples"),
+        config.getDuration("min"),
+        config.getDuration("max"));
+    }
+  }
+
+  static SeatReservationWorkflowSettings load() {
+    return of(ConfigFactory.load().getConfig("cinema.seat-reservation-workflow"));
+  }
+
+  static SeatReservationWorkflowSettings of(Config config) {
+    return new SeatReservationWorkflowSettings(
+      config.getBoolean("parallel-reserve-and-charge"),
+      config.getConfig("steps"),
+      AdaptiveTimeouts.of(config.getConfig("adaptive-timeouts")));
+  }
+
+  StepSettings step(String name) {
+    Config step = steps.hasPath(name) ? steps.getConfig(name).withFallback(steps.getConfig("default")) : steps.getConfig("default");
+    return new StepSettings(step.getDuration("timeout"), step.getInt("max-retries"));
+  }
+
+  Duration timeout(String name, LatencyTracker stepLatencies) {
+    Duration configured = step(name).timeout();
+    if (!adaptiveTimeouts.enabled()) {
+      return configured;
+    }
+    return stepLatencies.percentile(name, adaptiveTimeouts.percentile(), adaptiveTimeouts.minSamples())
+      .map(latency -> Duration.ofNanos((long) (latency.toNanos() * adaptiveTimeouts.multiplier())))
+      .map(timeout -> timeout.compareTo(adaptiveTimeouts.min()) < 0 ? adaptiveTimeouts.min() : timeout)
+      .map(timeout -> timeout.compareTo(adaptiveTimeouts.max()) > 0 ? adaptiveTimeouts.max() : timeout)
+      .orElse(configured);
+  }
+}
@@ -1,16 +1,24 @@
 package com.example.cinema;
 
 import com.example.cinema.model.CinemaApiModel;
+import com.example.common.CircuitBreaker;
+import com.example.common.LatencyTracker;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import kalix.javasdk.action.Action;
 import kalix.javasdk.client.ComponentClient;
 import kalix.javasdk.eventsourcedentity.EventSourcedEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
 
 @RequestMapping("/cinema-show-api")
 public class ShowApiControllerAction extends Action {
 
     private final ComponentClient componentClient;
+    private final ShowResponseCache showResponseCache = ShowResponseCache.SHARED;
 
     public ShowApiControllerAction(ComponentClient componentClient) {
         this.componentClient = componentClient;
@@ -21,11 +29,26 @@ public class ShowApiControllerAction extends Action {
         return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::create).params(id, createShow));
     }
 
+    @PostMapping("/{id}/create-with-layout")
+    public Effect<CinemaApiModel.Response> createWithLayout(@PathVariable String id, @RequestBody CinemaApiModel.ShowCommand.CreateShowWithLayout createShow) {
+        return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::createWithLayout).params(id, createShow));
+    }
+
     @PatchMapping("/{id}/reserve")
     public Effect<CinemaApiModel.Response> reserve(@PathVariable String id, @RequestBody CinemaApiModel.ShowCommand.ReserveSeat reserveSeat) {
         return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::reserve).params(reserveSeat));
     }
 
+    @PatchMapping("/{id}/reserve-seats")
+    public Effect<CinemaApiModel.Response> reserveSeats(@PathVariable String id, @RequestBody CinemaApiModel.ShowCommand.ReserveSeats reserveSeats) {
+        return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::reserveSeats).params(reserveSeats));
+    }
+
+    @PatchMapping("/{id}/reserve-best-available")
+    public Effect<CinemaApiModel.Response> reserveBestAvailable(@PathVariable String id, @RequestBody CinemaApiModel.ShowCommand.ReserveBestAvailableSeats reserveBestAvailableSeats) {
+        return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::reserveBestAvailable).params(reserveBestAvailableSeats));
+    }
+
     @PatchMapping("/{id}/cancel-reservation/{reservationId}")
     public Effect<CinemaApiModel.Response> cancelReservation(@PathVariable String id, @PathVariable String reservationId) {
         return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::confirmPayment).params(reservationId));
@@ -37,11 +60,61 @@ public class ShowApiControllerAction extends Action {
     }
     @GetMapping("/{id}/get")
     public Effect<CinemaApiModel.ShowResponse> get(@PathVariable String id) {
-        return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::get));
+        return showResponseCache.get(id)
+            .map(cached -> effects().reply(cached))
+            .orElseGet(() -> effects().asyncEffect(
+                componentClient.forEventSourcedEntity(id).call(ShowEntity::get).execute()
+                    .thenApply(showResponse -> effects().reply(showResponseCache.put(id, showResponse)))
+                    .exceptionally(this::getFailed)));
+    }
+
+    //only found, unsharded shows are cached, a missing show keeps the entity's NOT_FOUND and a sharded one its INVALID_ARGUMENT
+    private Effect<CinemaApiModel.ShowResponse> getFailed(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        if (cause instanceof StatusRuntimeException statusException && statusException.getStatus().getCode() == Status.Code.NOT_FOUND) {
+            return effects().error("show not found", Status.Code.NOT_FOUND);
+        } else if (cause instanceof StatusRuntimeException statusException && statusException.getStatus().getCode() == Status.Code.INVALID_ARGUMENT) {
+            return effects().error(statusException.getStatus().getDescription(), Status.Code.INVALID_ARGUMENT);
+        } else {
+            return effects().error(cause.getMessage(), Status.Code.INTERNAL);
+        }
+    }
+
+    @GetMapping("/cache-stats")
+    public Effect<ShowResponseCache.Stats> getCacheStats() {
+        return effects().reply(showResponseCache.stats());
+    }
+
+    @GetMapping("/seat-reservation-step-latencies")
+    public Effect<Map<String, LatencyTracker.Percentiles>> getSeatReservationStepLatencies() {
+        return effects().reply(SeatReservationWorkflow.STEP_LATENCIES.percentiles());
+    }
+
+    @GetMapping("/wallet-circuit-breaker-stats")
+    public Effect<CircuitBreaker.Stats> getWalletCircuitBreakerStats() {
+        return effects().reply(WalletCircuitBreaker.INSTANCE.stats());
+    }
+
+    @GetMapping("/{id}/available-seats")
+    public Effect<CinemaApiModel.AvailableSeatsResponse> getAvailableSeats(@PathVariable String id) {
+        return effects().forward(componentClient.forEventSourcedEntity(id).call(ShowEntity::getAvailableSeats));
     }
 
     @GetMapping("/cinema-shows/by-available-seats/{requestedSeatCount}")
     public Effect<CinemaApiModel.ShowsByAvailableSeatsRecordList> getShowsByAvailableSeats(@PathVariable Integer requestedSeatCount) {
         return effects().forward(componentClient.forView().call(ShowsByAvailableSeatsView::getShows).params(requestedSeatCount));
     }
+
+    @GetMapping("/cinema-shows/by-available-seats/{requestedSeatCount}/page")
+    public Effect<CinemaApiModel.ShowsByAvailableSeatsPage> getShowsByAvailableSeatsPage(@PathVariable Integer requestedSeatCount,
+                                                                                        @RequestParam(required = false) String title,
+                                                                                        @RequestParam(required = false) String pageToken,
+                                                                                        @RequestParam(defaultValue = "0") int pageSize) {
+        var query = CinemaApiModel.ShowsByAvailableSeatsQuery.of(requestedSeatCount, title, pageToken, pageSize);
+        if (title == null || title.isBlank()) {
+            return effects().forward(componentClient.forView().call(ShowsByAvailableSeatsView::getShowsPage).params(query));
+        } else {
+            return effects().forward(componentClient.forView().call(ShowsByAvailableSeatsView::getShowsByTitlePage).params(query));
+        }
+    }
 }
@@ -1,7 +1,10 @@
 package com.example.cinema;
 
+import com.example.cinema.model.ReservationDeduplication;
 import com.example.cinema.model.Show;
 import com.example.cinema.model.ShowEvent;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
 import kalix.javasdk.annotations.EventHandler;
 import kalix.javasdk.annotations.Id;
 import kalix.javasdk.annotations.TypeId;
@@ -15,6 +18,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.CANCELLING_CONFIRMED_RESERVATION;
@@ -33,6 +38,11 @@ import static com.example.cinema.model.ShowEvent.*;
 @RequestMapping("/cinema-show/{id}")
 public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
 
+  private static final ReservationDeduplication.Settings DEDUPLICATION_SETTINGS =
+    deduplicationSettings(ConfigFactory.load().getConfig("cinema.show.deduplication"));
+  private static final AvailabilityProjectionSettings AVAILABILITY_PROJECTION = AvailabilityProjectionSettings.load();
+  private static final ReservationExpirySettings RESERVATION_EXPIRY = ReservationExpirySettings.load();
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   @PostMapping
@@ -47,6 +57,45 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  @PostMapping("/with-layout")
+  public Effect<Response> createWithLayout(@PathVariable String id, @RequestBody CreateShowWithLayout createShow) {
+    if (currentState() != null) {
+      return effects().error("show already exists", BAD_REQUEST);
+    } else {
+      return Show.ShowCreator.create(id, createShow).fold(
+        error -> errorEffect(error, createShow),
+        showCreated -> persistEffect(showCreated, "show created")
+      );
+    }
+  }
+
+  @PostMapping("/sharded")
+  public Effect<Response> createSharded(@PathVariable String id, @RequestBody CreateShowWithLayout createShow) {
+    if (currentState() != null) {
+      return effects().error("show already exists", BAD_REQUEST);
+    } else {
+      return Show.ShowCreator.createSharded(id, createShow).fold(
+        error -> errorEffect(error, createShow),
+        showEvents -> persistEffect(showEvents, "show created")
+      );
+    }
+  }
+
+  /**
+   * Creates a section show of a sharded show, repeated creation is a no-op so that it can be retried.
+   */
+  @PostMapping("/section")
+  public Effect<Response> createSection(@PathVariable String id, @RequestBody CreateShowWithLayout createShow) {
+    if (currentState() != null) {
+      return effects().reply(Success.of("ok"));
+    } else {
+      return Show.ShowCreator.createSection(id, createShow).fold(
+        error -> errorEffect(error, createShow),
+        showCreated -> persistEffect(showCreated, "section created")
+      );
+    }
+  }
+
   @PatchMapping("/reserve")
   public Effect<Response> reserve(@RequestBody ReserveSeat reserveSeat) {
     if (currentState() == null) {
@@ -59,6 +108,30 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  @PatchMapping("/reserve-seats")
+  public Effect<Response> reserveSeats(@RequestBody ReserveSeats reserveSeats) {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return currentState().handleReservation(reserveSeats).fold(
+        error -> errorEffect(error, reserveSeats),
+        showEvent -> persistEffect(showEvent, "reserved")
+      );
+    }
+  }
+
+  @PatchMapping("/reserve-best-available")
+  public Effect<Response> reserveBestAvailable(@RequestBody ReserveBestAvailableSeats reserveBestAvailableSeats) {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return currentState().handleReservation(reserveBestAvailableSeats).fold(
+        error -> errorEffect(error, reserveBestAvailableSeats),
+        showEvent -> persistEffect(showEvent, "reserved")
+      );
+    }
+  }
+
   @PatchMapping("/cancel-reservation/{reservationId}")
   public Effect<Response> cancelReservation(@PathVariable String reservationId) {
     if (currentState() == null) {
@@ -87,10 +160,89 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  @PatchMapping("/publish-availability")
+  public Effect<Response> publishAvailability() {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return currentState().handleAvailabilityFlush().fold(
+        error -> effects().reply(Success.of("ok")),
+        showEvent -> effects()
+          .emitEvent(showEvent)
+          .thenReply(__ -> Success.of("availability published"))
+      );
+    }
+  }
+
+  //a sweep that is not the scheduled one already ran, it is acknowledged without events so its timer stops
+  @PatchMapping("/expire-reservations/{sweep}")
+  public Effect<Response> expireReservations(@PathVariable long sweep) {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return currentState().handleReservationExpiry(sweep).fold(
+        error -> effects().reply(Success.of("ok")),
+        showEvents -> persistEffect(showEvents, "reservations expired")
+      );
+    }
+  }
+
+  @PatchMapping("/section-availability/{sectionShowId}/{availableSeats}")
+  public Effect<Response> updateSectionAvailability(@PathVariable String sectionShowId, @PathVariable int availableSeats) {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      UpdateSectionAvailability updateSectionAvailability = new UpdateSectionAvailability(sectionShowId, availableSeats);
+      return currentState().handleSectionAvailability(updateSectionAvailability).fold(
+        error -> errorEffect(error, updateSectionAvailability),
+        showEvent -> persistEffect(showEvent, "section availability updated")
+      );
+    }
+  }
+
   private Effect<Response> persistEffect(ShowEvent showEvent, String message) {
-    return effects()
-      .emitEvent(showEvent)
-      .thenReply(__ -> Success.of(message));
+    return persistEffect(List.of(showEvent), message);
+  }
+
+  private Effect<Response> persistEffect(List<ShowEvent> showEvents, String message) {
+    if (currentState() == null) {
+      return effects()
+        .emitEvents(showEvents)
+        .thenReply(__ -> Success.of(message));
+    } else {
+      List<ShowEvent> events = new ArrayList<>(showEvents);
+      if (AVAILABILITY_PROJECTION.coalesce()) {
+        showEvents.stream()
+          .flatMap(showEvent -> currentState().availabilityFlushFor(showEvent).toJavaStream())
+          .findFirst()
+          .ifPresent(events::add);
+      }
+      if (RESERVATION_EXPIRY.enabled()) {
+        showEvents.stream()
+          .flatMap(showEvent -> currentState().reservationExpiryFor(showEvent).toJavaStream())
+          .findFirst()
+          .ifPresent(events::add);
+      }
+      ReservationDeduplication deduplication = currentState().finishedReservations();
+      return effects()
+        .emitEvents(events)
+        .thenReply(updatedShow -> {
+          logDeduplicationRotation(deduplication, updatedShow);
+          return Success.of(message);
+        });
+    }
+  }
+
+  /**
+   * Reports the deduplication state size whenever a filter generation is rotated, that is when the oldest filtered
+   * reservation ids are forgotten, see {@link #getDeduplicationStats()} for the current figures.
+   */
+  private void logDeduplicationRotation(ReservationDeduplication before, Show updatedShow) {
+    ReservationDeduplication after = updatedShow.finishedReservations();
+    if (after.previous() != before.previous()) {
+      logger.info("reservation deduplication of show {} rotated: recentReservationIds={} filteredReservationIds={} filterSizeInBytes={}",
+        updatedShow.id(), after.recentCount(), after.filteredCount(), after.filterSizeInBytes());
+    }
   }
 
   private Effect<Response> errorEffect(ShowCommandError error, ShowCommand showCommand) {
@@ -106,30 +258,67 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
     }
   }
 
+  //a sharded show keeps no seats, they are read from its section shows
   @GetMapping
   public Effect<ShowResponse> get() {
     if (currentState() == null) {
       return effects().error("show not found", NOT_FOUND);
+    } else if (currentState().isSharded()) {
+      return effects().error("show is sharded, get its sections with /cinema-show/" + currentState().id() + "/sections", BAD_REQUEST);
     } else {
       return effects().reply(ShowResponse.from(currentState()));
     }
   }
 
+  @GetMapping("/available-seats")
+  public Effect<AvailableSeatsResponse> getAvailableSeats() {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return effects().reply(AvailableSeatsResponse.from(currentState()));
+    }
+  }
+
+  @GetMapping("/sections")
+  public Effect<ShowSectionsResponse> getSections() {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return effects().reply(ShowSectionsResponse.from(currentState()));
+    }
+  }
+
+  @GetMapping("/deduplication-stats")
+  public Effect<DeduplicationStats> getDeduplicationStats() {
+    if (currentState() == null) {
+      return effects().error("show not found", NOT_FOUND);
+    } else {
+      return effects().reply(DeduplicationStats.from(currentState()));
+    }
+  }
+
   @GetMapping("/seat-status/{seatNumber}")
   public Effect<Show.SeatStatus> getSeatStatus(@PathVariable int seatNumber) {
     if (currentState() == null) {
       return effects().error("show not found", NOT_FOUND);
     } else {
-      return currentState().seats().get(seatNumber).fold(
+      return currentState().getSeat(seatNumber).fold(
         () -> effects().error("seat not found", NOT_FOUND),
         seat -> effects().reply(seat.status())
       );
     }
   }
 
+  private static ReservationDeduplication.Settings deduplicationSettings(Config config) {
+    return new ReservationDeduplication.Settings(
+      config.getInt("recent-reservations"),
+      config.getInt("filtered-reservations"),
+      config.getDouble("false-positive-rate"));
+  }
+
   @EventHandler
   public Show onEvent(ShowCreated showCreated) {
-    return Show.create(showCreated);
+    return Show.create(showCreated, DEDUPLICATION_SETTINGS);
   }
 
   @EventHandler
@@ -146,4 +335,49 @@ public class ShowEntity extends EventSourcedEntity<Show, ShowEvent> {
   public Show onEvent(SeatReservationPaid seatReservationPaid) {
     return currentState().applyReservationPaid(seatReservationPaid);
   }
+
+  @EventHandler
+  public Show onEvent(SeatsReserved seatsReserved) {
+    return currentState().applyReserved(seatsReserved);
+  }
+
+  @EventHandler
+  public Show onEvent(SeatsReservationCancelled seatsReservationCancelled) {
+    return currentState().applyReservationCancelled(seatsReservationCancelled);
+  }
+
+  @EventHandler
+  public Show onEvent(SeatsReservationPaid seatsReservationPaid) {
+    return currentState().applyReservationPaid(seatsReservationPaid);
+  }
+
+  @EventHandler
+  public Show onEvent(AvailabilityFlushScheduled availabilityFlushScheduled) {
+    return currentState().withAvailabilityFlushPending(true);
+  }
+
+  @EventHandler
+  public Show onEvent(AvailabilityPublished availabilityPublished) {
+    return currentState().withAvailabilityFlushPending(false);
+  }
+
+  @EventHandler
+  public Show onEvent(ReservationExpiryScheduled reservationExpiryScheduled) {
+    return currentState().apply(reservationExpiryScheduled);
+  }
+
+  @EventHandler
+  public Show onEvent(ReservationExpiryCompleted reservationExpiryCompleted) {
+    return currentState().apply(reservationExpiryCompleted);
+  }
+
+  @EventHandler
+  public Show onEvent(ShowSharded showSharded) {
+    return currentState().applySharded(showSharded);
+  }
+
+  @EventHandler
+  public Show onEvent(SectionAvailabilityUpdated sectionAvailabilityUpdated) {
+    return currentState().applySectionAvailabilityUpdated(sectionAvailabilityUpdated);
+  }
 }
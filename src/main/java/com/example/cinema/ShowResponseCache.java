@@ -0,0 +1,99 @@
+package com.example.cinema;
+
+import com.example.cinema.model.CinemaApiModel.ShowResponse;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process, size bounded LRU cache of {@link ShowResponse}s read by {@link ShowApiControllerAction}. Entries are
+ * invalidated by {@link InvalidateShowResponseCacheAction} when the show changes, {@code maxStaleness} bounds how long
+ * an entry can be served when the invalidating event is processed on another node.
+ */
+public class ShowResponseCache {
+
+  static final ShowResponseCache SHARED = of(ConfigFactory.load().getConfig("cinema.show.response-cache"), Clock.systemUTC());
+
+  private final int maxEntries;
+  private final Duration maxStaleness;
+  private final Clock clock;
+  private final LinkedHashMap<String, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public record Stats(long hits, long misses, long evictions, int size) {
+  }
+
+  private record Entry(ShowResponse response, Instant cachedAt) {
+  }
+
+  ShowResponseCache(int maxEntries, Duration maxStaleness, Clock clock) {
+    this.maxEntries = maxEntries;
+    this.maxStaleness = maxStaleness;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > ShowResponseCache.this.maxEntries) {
+          evictions.increment();
+          return true;
+        } else {
+          return false;
+        }
+      }
+    };
+  }
+
+  static ShowResponseCache of(Config config, Clock clock) {
+    return new ShowResponseCache(config.getInt("max-entries"), config.getDuration("max-staleness"), clock);
+  }
+
+  public Optional<ShowResponse> get(String showId) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(showId);
+      if (entry != null && entry.cachedAt().plus(maxStaleness).isBefore(clock.instant())) {
+        entries.remove(showId);
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.increment();
+      return Optional.empty();
+    } else {
+      hits.increment();
+      return Optional.of(entry.response());
+    }
+  }
+
+  public ShowResponse put(String showId, ShowResponse response) {
+    if (maxEntries > 0) {
+      synchronized (entries) {
+        entries.put(showId, new Entry(response, clock.instant()));
+      }
+    }
+    return response;
+  }
+
+  public void invalidate(String showId) {
+    synchronized (entries) {
+      entries.remove(showId);
+    }
+  }
+
+  public Stats stats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.cinema;
+
+import com.example.cinema.model.Show;
+import kalix.javasdk.annotations.Query;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.annotations.Table;
+import kalix.javasdk.annotations.ViewId;
+import kalix.javasdk.view.View;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static com.example.cinema.model.CinemaApiModel.ShowSeatChange;
+import static com.example.cinema.model.ShowEvent.*;
+
+/**
+ * Keeps the latest seat status delta per show, the streaming query pushes every delta to watching clients instead of
+ * having them poll the whole show.
+ */
+@ViewId("show_seat_changes_view")
+@Table("show_seat_changes")
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class ShowSeatChangesView extends View<ShowSeatChange> {
+
+  @GetMapping("/cinema-shows/{showId}/seat-changes")
+  @Query(value = "SELECT * FROM show_seat_changes WHERE showId = :showId", streamUpdates = true)
+  public Flux<ShowSeatChange> streamSeatChanges(@PathVariable String showId) {
+    return null;
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(ShowCreated created) {
+    return effects().updateState(ShowSeatChange.initial(created.showId(), created.initialShow().layout().seatCount()));
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(SeatReserved reserved) {
+    return effects().updateState(viewState().next(List.of(reserved.seatNumber()), Show.SeatStatus.RESERVED, reserved.availableSeatsCount()));
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(SeatReservationPaid paid) {
+    return effects().updateState(viewState().next(List.of(paid.seatNumber()), Show.SeatStatus.PAID));
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(SeatReservationCancelled cancelled) {
+    return effects().updateState(viewState().next(List.of(cancelled.seatNumber()), Show.SeatStatus.AVAILABLE, cancelled.availableSeatsCount()));
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(SeatsReserved reserved) {
+    return effects().updateState(viewState().next(reserved.seatNumbers(), Show.SeatStatus.RESERVED, reserved.availableSeatsCount()));
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(SeatsReservationPaid paid) {
+    return effects().updateState(viewState().next(paid.seatNumbers(), Show.SeatStatus.PAID));
+  }
+
+  public UpdateEffect<ShowSeatChange> onEvent(SeatsReservationCancelled cancelled) {
+    return effects().updateState(viewState().next(cancelled.seatNumbers(), Show.SeatStatus.AVAILABLE, cancelled.availableSeatsCount()));
+  }
+}
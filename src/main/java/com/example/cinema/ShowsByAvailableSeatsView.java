@@ -1,5 +1,6 @@
 package com.example.cinema;
 
+import kalix.javasdk.annotations.Acl;
 import kalix.javasdk.annotations.Query;
 import kalix.javasdk.annotations.Subscribe;
 import kalix.javasdk.annotations.Table;
@@ -7,30 +8,108 @@ import kalix.javasdk.annotations.ViewId;
 import kalix.javasdk.view.View;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import reactor.core.publisher.Flux;
 
+import static com.example.cinema.model.CinemaApiModel.ShowsByAvailableSeatsPage;
+import static com.example.cinema.model.CinemaApiModel.ShowsByAvailableSeatsQuery;
 import static com.example.cinema.model.CinemaApiModel.ShowsByAvailableSeatsRecordList;
 import static com.example.cinema.model.CinemaApiModel.ShowsByAvailableSeatsViewRecord;
 import static com.example.cinema.model.ShowEvent.*;
+import static com.example.cinema.model.ShowSections.isSection;
 
-@ViewId("show_by_available_seats_view")
+@ViewId("show_by_available_seats_view_v2")
 @Table("show_by_available_seats")
 @Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
 public class ShowsByAvailableSeatsView extends View<ShowsByAvailableSeatsViewRecord> {
 
+  private static final AvailabilityProjectionSettings AVAILABILITY_PROJECTION = AvailabilityProjectionSettings.load();
+
   @GetMapping("/cinema-shows/by-available-seats/{requestedSeatCount}")
   @Query("SELECT * as list FROM show_by_available_seats WHERE availableSeats >= :requestedSeatCount")
   public ShowsByAvailableSeatsRecordList getShows(@PathVariable Integer requestedSeatCount) {
     return null;
   }
 
+  //minBucket must be derived from requestedSeatCount, so the paged queries are only called through ShowApiControllerAction
+  @Acl(deny = @Acl.Matcher(service = "*"))
+  @PostMapping("/cinema-shows/by-available-seats/page")
+  @Query("""
+    SELECT * AS list, next_page_token() AS nextPageToken, has_more() AS hasMore
+    FROM show_by_available_seats
+    WHERE availableSeatsBucket >= :minBucket AND availableSeats >= :requestedSeatCount
+    OFFSET page_token_offset(:pageToken) LIMIT :pageSize
+    """)
+  public ShowsByAvailableSeatsPage getShowsPage(@RequestBody ShowsByAvailableSeatsQuery query) {
+    return null;
+  }
+
+  @Acl(deny = @Acl.Matcher(service = "*"))
+  @PostMapping("/cinema-shows/by-available-seats/by-title/page")
+  @Query("""
+    SELECT * AS list, next_page_token() AS nextPageToken, has_more() AS hasMore
+    FROM show_by_available_seats
+    WHERE title = :title AND availableSeatsBucket >= :minBucket AND availableSeats >= :requestedSeatCount
+    OFFSET page_token_offset(:pageToken) LIMIT :pageSize
+    """)
+  public ShowsByAvailableSeatsPage getShowsByTitlePage(@RequestBody ShowsByAvailableSeatsQuery query) {
+    return null;
+  }
+
+  //the bucket cannot be derived inside a query, so the stream filters on the exact count only
+  @GetMapping("/cinema-shows/by-available-seats/{requestedSeatCount}/stream")
+  @Query(value = "SELECT * FROM show_by_available_seats WHERE availableSeats >= :requestedSeatCount",
+    streamUpdates = true)
+  public Flux<ShowsByAvailableSeatsViewRecord> streamShows(@PathVariable Integer requestedSeatCount) {
+    return null;
+  }
+
+  //section shows of a sharded show are listed through the sharded show only
   public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(ShowCreated created) {
-    return effects().updateState(new ShowsByAvailableSeatsViewRecord(created.showId(), created.initialShow().title(), created.initialShow().seats().size()));
+    if (isSection(created.showId())) {
+      return effects().ignore();
+    } else {
+      return effects().updateState(ShowsByAvailableSeatsViewRecord.of(created.showId(), created.initialShow().title(), created.initialShow().layout().seatCount()));
+    }
   }
 
   public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(SeatReserved reserved) {
-    return effects().updateState(viewState().updateAvailableSeats(reserved.availableSeatsCount()));
+    return updateAvailableSeats(reserved.showId(), reserved.availableSeatsCount());
   }
+
   public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(SeatReservationCancelled cancelled) {
-    return effects().updateState(viewState().updateAvailableSeats(cancelled.availableSeatsCount()));
+    return updateAvailableSeats(cancelled.showId(), cancelled.availableSeatsCount());
+  }
+
+  public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(SeatsReserved reserved) {
+    return updateAvailableSeats(reserved.showId(), reserved.availableSeatsCount());
+  }
+
+  public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(SeatsReservationCancelled cancelled) {
+    return updateAvailableSeats(cancelled.showId(), cancelled.availableSeatsCount());
+  }
+
+  public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(SectionAvailabilityUpdated updated) {
+    return updateAvailableSeats(updated.showId(), updated.availableSeatsCount());
+  }
+
+  public UpdateEffect<ShowsByAvailableSeatsViewRecord> onEvent(AvailabilityPublished published) {
+    if (isSection(published.showId())) {
+      return effects().ignore();
+    } else {
+      return effects().updateState(viewState().updateAvailableSeats(published.availableSeatsCount()));
+    }
+  }
+
+  private UpdateEffect<ShowsByAvailableSeatsViewRecord> updateAvailableSeats(String showId, int availableSeatsCount) {
+    if (isSection(showId)) {
+      return effects().ignore();
+    } else if (AVAILABILITY_PROJECTION.coalesce()) {
+      //written once per window by AvailabilityPublished
+      return effects().ignore();
+    } else {
+      return effects().updateState(viewState().updateAvailableSeats(availableSeatsCount));
+    }
   }
 }
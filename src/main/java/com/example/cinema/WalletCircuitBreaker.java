@@ -0,0 +1,16 @@
+package com.example.cinema;
+
+import com.example.common.CircuitBreaker;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Single circuit breaker for wallet charges of this service, used by both the choreography and the orchestration
+ * saga, so a degraded wallet is detected once and all reservations fail fast to compensation.
+ */
+final class WalletCircuitBreaker {
+
+  static final CircuitBreaker INSTANCE = CircuitBreaker.of("wallet", ConfigFactory.load().getConfig("cinema.wallet-circuit-breaker"));
+
+  private WalletCircuitBreaker() {
+  }
+}
@@ -0,0 +1,130 @@
+package com.example.cinema.model;
+
+import com.example.common.PackedLongs;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, blocked bloom filter for string ids. All bits of a value land in the same block, so adding a value
+ * copies a single block; blocks that were never written are not allocated.
+ */
+public final class BloomFilter {
+
+  private static final int BLOCK_SHIFT = 12;
+  private static final int BLOCK_BITS = 1 << BLOCK_SHIFT;
+  private static final int BLOCK_WORDS = BLOCK_BITS >>> 6;
+
+  private final int hashes;
+  private final int count;
+  private final long[][] blocks;
+
+  private BloomFilter(int hashes, int count, long[][] blocks) {
+    this.hashes = hashes;
+    this.count = count;
+    this.blocks = blocks;
+  }
+
+  static BloomFilter fromSnapshot(Snapshot snapshot) {
+    return new BloomFilter(snapshot.hashes(), snapshot.count(), snapshot.blocks().unpack());
+  }
+
+  public static BloomFilter create(int expectedInsertions, double falsePositiveRate) {
+    double bits = -Math.max(expectedInsertions, 1) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    int blocks = (int) Math.max(1, Math.ceil(bits / BLOCK_BITS));
+    int hashes = (int) Math.max(1, Math.min(30, Math.round(bits / Math.max(expectedInsertions, 1) * Math.log(2))));
+    return new BloomFilter(hashes, 0, new long[blocks][]);
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public int sizeInBytes() {
+    int allocated = 0;
+    for (long[] block : blocks) {
+      if (block != null) {
+        allocated++;
+      }
+    }
+    return allocated * BLOCK_WORDS * Long.BYTES;
+  }
+
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    long[] block = blocks[blockIndex(hash)];
+    if (block == null) {
+      return false;
+    }
+    for (int i = 0; i < hashes; i++) {
+      int position = bitPosition(hash, i);
+      if ((block[position >>> 6] & (1L << position)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public BloomFilter add(String value) {
+    long hash = hash(value);
+    int index = blockIndex(hash);
+    long[] block = blocks[index] == null ? new long[BLOCK_WORDS] : blocks[index].clone();
+    for (int i = 0; i < hashes; i++) {
+      int position = bitPosition(hash, i);
+      block[position >>> 6] |= 1L << position;
+    }
+    long[][] updatedBlocks = blocks.clone();
+    updatedBlocks[index] = block;
+    return new BloomFilter(hashes, count + 1, updatedBlocks);
+  }
+
+  Snapshot toSnapshot() {
+    return new Snapshot(hashes, count, PackedLongs.pack(blocks));
+  }
+
+  private int blockIndex(long hash) {
+    return (int) Long.remainderUnsigned(hash, blocks.length);
+  }
+
+  private static int bitPosition(long hash, int i) {
+    return (int) mix(hash + (i + 1) * 0x9e3779b97f4a7c15L) & (BLOCK_BITS - 1);
+  }
+
+  // FNV-1a over the chars followed by a 64 bit finalizer, deterministic so that replaying events rebuilds the same bits
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  /**
+   * Compact form of the filter in a {@link ShowSnapshot}, the blocks are packed.
+   */
+  public record Snapshot(int hashes, int count, PackedLongs blocks) {
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof BloomFilter other)) return false;
+    return hashes == other.hashes && count == other.count && Arrays.deepEquals(blocks, other.blocks);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * hashes + count) + Arrays.deepHashCode(blocks);
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilter(count=" + count + ", hashes=" + hashes + ", blocks=" + blocks.length + ")";
+  }
+}
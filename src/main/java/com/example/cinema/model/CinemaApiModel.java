@@ -11,25 +11,47 @@ public interface CinemaApiModel {
       record CreateShow(String title, int maxSeats) implements ShowCommand {
       }
 
+      record CreateShowWithLayout(String title, VenueLayout layout) implements ShowCommand {
+      }
+
       record ReserveSeat(String walletId, String reservationId, int seatNumber) implements ShowCommand {
       }
 
+      record ReserveSeats(String walletId, String reservationId, List<Integer> seatNumbers) implements ShowCommand {
+      }
+
+      record ReserveBestAvailableSeats(String walletId, String reservationId, int seatCount) implements ShowCommand {
+      }
+
       record ConfirmReservationPayment(String reservationId) implements ShowCommand {
       }
 
       record CancelSeatReservation(String reservationId) implements ShowCommand {
       }
+
+      record UpdateSectionAvailability(String sectionShowId, int availableSeats) implements ShowCommand {
+      }
     }
 
     enum ShowCommandError {
       SHOW_ALREADY_EXISTS,
       SHOW_NOT_FOUND,
       TOO_MANY_SEATS,
+      INVALID_VENUE_LAYOUT,
       SEAT_NOT_FOUND,
       SEAT_NOT_AVAILABLE,
+      INVALID_SEAT_SELECTION,
+      NO_ADJACENT_SEATS_AVAILABLE,
       RESERVATION_NOT_FOUND,
+      RESERVATION_CANCELLED,
       DUPLICATED_COMMAND,
-      CANCELLING_CONFIRMED_RESERVATION
+      POSSIBLY_DUPLICATED_RESERVATION,
+      CANCELLING_CONFIRMED_RESERVATION,
+      AVAILABILITY_ALREADY_PUBLISHED,
+      RESERVATION_EXPIRY_NOT_SCHEDULED,
+      INVALID_SHOW_ID,
+      SHOW_IS_SHARDED,
+      SECTION_NOT_FOUND
     }
 
     @JsonTypeInfo(use = JsonTypeInfo.Id.NAME)
@@ -55,14 +77,100 @@ public interface CinemaApiModel {
     record ShowResponse(String id, String title, List<Show.Seat> seats) {
 
       public static ShowResponse from(Show show) {
-        return new ShowResponse(show.id(), show.title(), show.seats().values().asJava());
+        return new ShowResponse(show.id(), show.title(), show.seats().toList());
+      }
+    }
+
+    record AvailableSeatsResponse(String id, int availableSeats, List<SeatMap.SeatRange> ranges) {
+
+      public static AvailableSeatsResponse from(Show show) {
+        return new AvailableSeatsResponse(show.id(), show.availableSeats(), show.seats().availableRanges());
+      }
+    }
+
+    record ShowSectionsResponse(String id, int availableSeats, List<ShowSection> sections) {
+
+      public static ShowSectionsResponse from(Show show) {
+        List<ShowSection> sections = show.sectionAvailableSeats()
+          .map(section -> new ShowSection(section._1(), section._2()))
+          .toJavaList();
+        return new ShowSectionsResponse(show.id(), show.availableSeats(), sections);
+      }
+    }
+
+    record ShowSection(String sectionShowId, int availableSeats) {
+    }
+
+    record DeduplicationStats(int recentReservationIds, int filteredReservationIds, int filterSizeInBytes) {
+
+      public static DeduplicationStats from(Show show) {
+        ReservationDeduplication deduplication = show.finishedReservations();
+        return new DeduplicationStats(deduplication.recentCount(), deduplication.filteredCount(), deduplication.filterSizeInBytes());
       }
     }
 
-    record ShowsByAvailableSeatsViewRecord(String showId, String title, int availableSeats){
+    /**
+     * @param availableSeatsBucket power of two bucket of {@code availableSeats}, see {@link #bucketOf(int)}
+     */
+    record ShowsByAvailableSeatsViewRecord(String showId, String title, int availableSeats, int availableSeatsBucket){
+
+        public static ShowsByAvailableSeatsViewRecord of(String showId, String title, int availableSeats){
+            return new ShowsByAvailableSeatsViewRecord(showId, title, availableSeats, bucketOf(availableSeats));
+        }
+
         public ShowsByAvailableSeatsViewRecord updateAvailableSeats(int availableSeats){
-            return new ShowsByAvailableSeatsViewRecord(showId(),title(),availableSeats);
+            return of(showId(),title(),availableSeats);
+        }
+
+        /**
+         * Bucket {@code b} holds counts from {@code 2^(b-1)} to {@code 2^b - 1}, 0 seats is bucket 0. Every show in a
+         * higher bucket than the requested seat count has enough seats, so a query narrows to an index range on the
+         * bucket and checks the exact count in the lowest bucket only. The bucket, and its index entry, changes only
+         * when the count crosses a power of two.
+         */
+        public static int bucketOf(int availableSeats){
+            return 32 - Integer.numberOfLeadingZeros(Math.max(availableSeats, 0));
         }
     }
     record ShowsByAvailableSeatsRecordList(List<ShowsByAvailableSeatsViewRecord> list){}
+
+    /**
+     * @param minBucket {@code bucketOf(requestedSeatCount)}, a larger value silently drops matching shows, so the query is
+     *                  built with {@link #of(int, String, String, int)} and the view only accepts calls from this service
+     * @param pageToken empty for the first page, {@link ShowsByAvailableSeatsPage#nextPageToken()} for the next ones
+     * @param title     exact title, only used by the title filtered query
+     */
+    record ShowsByAvailableSeatsQuery(int requestedSeatCount, int minBucket, String title, String pageToken, int pageSize){
+
+        public static final int DEFAULT_PAGE_SIZE = 50;
+        public static final int MAX_PAGE_SIZE = 500;
+
+        public static ShowsByAvailableSeatsQuery of(int requestedSeatCount, String title, String pageToken, int pageSize){
+            return new ShowsByAvailableSeatsQuery(requestedSeatCount,
+                ShowsByAvailableSeatsViewRecord.bucketOf(requestedSeatCount),
+                title,
+                pageToken == null ? "" : pageToken,
+                pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE));
+        }
+    }
+    /**
+     * Latest seat status delta of a show. Streamed to watching clients, a gap in {@code sequence} means updates were
+     * missed and the client should fetch the full show again.
+     */
+    record ShowSeatChange(String showId, long sequence, List<Integer> seatNumbers, Show.SeatStatus status, int availableSeats){
+
+        public static ShowSeatChange initial(String showId, int availableSeats){
+            return new ShowSeatChange(showId, 0, List.of(), Show.SeatStatus.AVAILABLE, availableSeats);
+        }
+
+        public ShowSeatChange next(List<Integer> seatNumbers, Show.SeatStatus status, int availableSeats){
+            return new ShowSeatChange(showId, sequence + 1, seatNumbers, status, availableSeats);
+        }
+
+        public ShowSeatChange next(List<Integer> seatNumbers, Show.SeatStatus status){
+            return next(seatNumbers, status, availableSeats);
+        }
+    }
+
+    record ShowsByAvailableSeatsPage(List<ShowsByAvailableSeatsViewRecord> list, String nextPageToken, boolean hasMore){}
 }
@@ -0,0 +1,103 @@
+package com.example.cinema.model;
+
+/**
+ * Immutable max segment tree over the rows of a {@link SeatMap}, holding the length of the longest run of free
+ * seats in every row. Updating a row copies only the nodes on its path, finding the first row that fits a block of
+ * seats walks a single path, both in O(log rows).
+ */
+final class FreeRunIndex {
+
+  private static final FreeRunIndex EMPTY = new FreeRunIndex(0, null);
+
+  private final int rows;
+  private final Node root;
+
+  private FreeRunIndex(int rows, Node root) {
+    this.rows = rows;
+    this.root = root;
+  }
+
+  static FreeRunIndex of(int[] longestFreeRuns) {
+    if (longestFreeRuns.length == 0) {
+      return EMPTY;
+    } else {
+      return new FreeRunIndex(longestFreeRuns.length, build(longestFreeRuns, 0, longestFreeRuns.length));
+    }
+  }
+
+  int longestFreeRun(int row) {
+    Node node = root;
+    int from = 0;
+    int to = rows;
+    while (node.left != null) {
+      int middle = (from + to) >>> 1;
+      if (row < middle) {
+        node = node.left;
+        to = middle;
+      } else {
+        node = node.right;
+        from = middle;
+      }
+    }
+    return node.longestFreeRun;
+  }
+
+  FreeRunIndex update(int row, int longestFreeRun) {
+    if (longestFreeRun(row) == longestFreeRun) {
+      return this;
+    } else {
+      return new FreeRunIndex(rows, update(root, 0, rows, row, longestFreeRun));
+    }
+  }
+
+  /**
+   * @return the first row with at least {@code seats} consecutive free seats, -1 if there is none
+   */
+  int firstRowFitting(int seats) {
+    if (root == null || root.longestFreeRun < seats) {
+      return -1;
+    }
+    Node node = root;
+    int from = 0;
+    int to = rows;
+    while (node.left != null) {
+      int middle = (from + to) >>> 1;
+      if (node.left.longestFreeRun >= seats) {
+        node = node.left;
+        to = middle;
+      } else {
+        node = node.right;
+        from = middle;
+      }
+    }
+    return from;
+  }
+
+  private static Node build(int[] longestFreeRuns, int from, int to) {
+    if (to - from == 1) {
+      return new Node(longestFreeRuns[from], null, null);
+    } else {
+      int middle = (from + to) >>> 1;
+      return Node.of(build(longestFreeRuns, from, middle), build(longestFreeRuns, middle, to));
+    }
+  }
+
+  private static Node update(Node node, int from, int to, int row, int longestFreeRun) {
+    if (to - from == 1) {
+      return new Node(longestFreeRun, null, null);
+    }
+    int middle = (from + to) >>> 1;
+    if (row < middle) {
+      return Node.of(update(node.left, from, middle, row, longestFreeRun), node.right);
+    } else {
+      return Node.of(node.left, update(node.right, middle, to, row, longestFreeRun));
+    }
+  }
+
+  private record Node(int longestFreeRun, Node left, Node right) {
+
+    static Node of(Node left, Node right) {
+      return new Node(Math.max(left.longestFreeRun, right.longestFreeRun), left, right);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.cinema.model;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.LinkedHashSet;
+
+/**
+ * Remembers finished reservation ids with bounded state. The most recent ids are kept verbatim, older ones are
+ * pushed into a bloom filter. Filters are rotated in generations: once the current one holds
+ * {@link Settings#filteredReservations()} ids it becomes the previous one and the ids of the generation before are
+ * forgotten. Duplicate detection is exact within the recent window, probabilistic (no false negatives) within the
+ * two filter generations, and absent beyond that. Whether a finished reservation was cancelled rather than paid is
+ * known only while it is recent.
+ */
+public record ReservationDeduplication(Settings settings, LinkedHashSet<String> recent, HashSet<String> recentCancelled,
+                                       BloomFilter current, BloomFilter previous) {
+
+  public static ReservationDeduplication empty(Settings settings) {
+    return new ReservationDeduplication(settings, LinkedHashSet.empty(), HashSet.empty(), settings.emptyFilter(), settings.emptyFilter());
+  }
+
+  public boolean contains(String reservationId) {
+    return containsRecent(reservationId) || mightContainFiltered(reservationId);
+  }
+
+  public boolean containsRecent(String reservationId) {
+    return recent.contains(reservationId);
+  }
+
+  /**
+   * @return true if the reservation id was pushed into one of the filters, or for a false positive of the filters
+   */
+  public boolean mightContainFiltered(String reservationId) {
+    return current.mightContain(reservationId) || previous.mightContain(reservationId);
+  }
+
+  /**
+   * @return true if the reservation id is recent and was cancelled, false if it was paid or is not recent
+   */
+  public boolean containsRecentCancelled(String reservationId) {
+    return recentCancelled.contains(reservationId);
+  }
+
+  public ReservationDeduplication add(String reservationId) {
+    return add(reservationId, recentCancelled);
+  }
+
+  public ReservationDeduplication addCancelled(String reservationId) {
+    return add(reservationId, recentCancelled.add(reservationId));
+  }
+
+  private ReservationDeduplication add(String reservationId, HashSet<String> updatedCancelled) {
+    LinkedHashSet<String> updatedRecent = recent.add(reservationId);
+    if (updatedRecent.size() <= settings.recentReservations()) {
+      return new ReservationDeduplication(settings, updatedRecent, updatedCancelled, current, previous);
+    } else {
+      String oldest = updatedRecent.head();
+      BloomFilter updatedCurrent = current.add(oldest);
+      if (updatedCurrent.count() >= settings.filteredReservations()) {
+        return new ReservationDeduplication(settings, updatedRecent.tail(), updatedCancelled.remove(oldest), settings.emptyFilter(), updatedCurrent);
+      } else {
+        return new ReservationDeduplication(settings, updatedRecent.tail(), updatedCancelled.remove(oldest), updatedCurrent, previous);
+      }
+    }
+  }
+
+  public int recentCount() {
+    return recent.size();
+  }
+
+  public int filteredCount() {
+    return current.count() + previous.count();
+  }
+
+  public int filterSizeInBytes() {
+    return current.sizeInBytes() + previous.sizeInBytes();
+  }
+
+  /**
+   * @param recentReservations    number of reservation ids kept verbatim
+   * @param filteredReservations  number of reservation ids per bloom filter generation
+   * @param falsePositiveRate     target false positive rate of a full filter generation
+   */
+  public record Settings(int recentReservations, int filteredReservations, double falsePositiveRate) {
+
+    public static final Settings DEFAULT = new Settings(1_000, 10_000, 0.000_001);
+
+    BloomFilter emptyFilter() {
+      return BloomFilter.create(filteredReservations, falsePositiveRate);
+    }
+  }
+}
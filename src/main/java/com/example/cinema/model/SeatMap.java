@@ -0,0 +1,471 @@
+package com.example.cinema.model;
+
+import com.example.common.PackedLongs;
+import com.example.common.Money;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.cinema.model.Show.SeatStatus.AVAILABLE;
+import static com.example.cinema.model.Show.SeatStatus.PAID;
+import static com.example.cinema.model.Show.SeatStatus.RESERVED;
+
+/**
+ * Dense seat storage indexed by seat number.
+ * <p>
+ * Seat status is kept in two bit planes (reserved, paid; neither bit set means available) split into fixed size
+ * chunks, so changing a seat copies only the chunk it lives in. Prices are not stored per seat: seats point to a
+ * small shared table of price tiers through runs of consecutive seat numbers.
+ * <p>
+ * Seats are grouped in rows of consecutive seat numbers. The longest run of free seats of every row is indexed, so a
+ * block of adjacent free seats is found without scanning the whole show.
+ */
+public final class SeatMap {
+
+  private static final int CHUNK_SHIFT = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  private final int size;
+  private final long[][] reserved;
+  private final long[][] paid;
+  private final Money[] priceTiers;
+  private final int[] tierRunStarts;
+  private final int[] tierRunTiers;
+  private final int[] rowStarts;
+  private final FreeRunIndex freeRuns;
+
+  private SeatMap(int size, long[][] reserved, long[][] paid, Money[] priceTiers, int[] tierRunStarts, int[] tierRunTiers,
+                  int[] rowStarts) {
+    this.size = size;
+    this.reserved = reserved;
+    this.paid = paid;
+    this.priceTiers = priceTiers;
+    this.tierRunStarts = tierRunStarts;
+    this.tierRunTiers = tierRunTiers;
+    this.rowStarts = rowStarts;
+    int[] longestFreeRuns = new int[rowStarts.length];
+    for (int row = 0; row < rowStarts.length; row++) {
+      longestFreeRuns[row] = longestFreeRun(row);
+    }
+    this.freeRuns = FreeRunIndex.of(longestFreeRuns);
+  }
+
+  private SeatMap(int size, long[][] reserved, long[][] paid, Money[] priceTiers, int[] tierRunStarts, int[] tierRunTiers,
+                  int[] rowStarts, FreeRunIndex freeRuns) {
+    this.size = size;
+    this.reserved = reserved;
+    this.paid = paid;
+    this.priceTiers = priceTiers;
+    this.tierRunStarts = tierRunStarts;
+    this.tierRunTiers = tierRunTiers;
+    this.rowStarts = rowStarts;
+    this.freeRuns = freeRuns;
+  }
+
+  static SeatMap fromSnapshot(Snapshot snapshot) {
+    return new SeatMap(snapshot.size(), snapshot.reserved().unpack(), snapshot.paid().unpack(),
+      snapshot.priceTiers(), snapshot.tierRunStarts(), snapshot.tierRunTiers(), snapshot.rowStarts());
+  }
+
+  public static SeatMap empty() {
+    return new SeatMap(0, new long[0][], new long[0][], new Money[0], new int[0], new int[0], new int[0]);
+  }
+
+  /**
+   * Seats are not expanded: all of them start available and price tiers are derived from the sections.
+   */
+  public static SeatMap of(VenueLayout layout) {
+    int size = layout.seatCount();
+    int[] runStarts = new int[layout.sections().size()];
+    int[] runTiers = new int[layout.sections().size()];
+    int rows = 0;
+    for (VenueLayout.Section section : layout.sections()) {
+      rows += section.rows();
+    }
+    int[] rowStarts = new int[rows];
+    int runs = 0;
+    int row = 0;
+    int sectionStart = 0;
+    for (VenueLayout.Section section : layout.sections()) {
+      if (runs == 0 || runTiers[runs - 1] != section.priceTier()) {
+        runStarts[runs] = sectionStart;
+        runTiers[runs] = section.priceTier();
+        runs++;
+      }
+      for (int sectionRow = 0; sectionRow < section.rows(); sectionRow++) {
+        rowStarts[row++] = sectionStart + sectionRow * section.seatsPerRow();
+      }
+      sectionStart += section.seatCount();
+    }
+    return new SeatMap(size, emptyPlane(size), emptyPlane(size), layout.priceTiers().toArray(new Money[0]),
+      Arrays.copyOf(runStarts, runs), Arrays.copyOf(runTiers, runs), rowStarts);
+  }
+
+  /**
+   * @param seats seats numbered from 0 to seats.size() - 1, in any order, all in a single row
+   */
+  public static SeatMap of(List<Show.Seat> seats) {
+    return of(seats, seats.isEmpty() ? new int[0] : new int[]{0});
+  }
+
+  private static SeatMap of(List<Show.Seat> seats, int[] rowStarts) {
+    int size = seats.size();
+    Money[] seatPrices = new Money[size];
+    long[][] reserved = emptyPlane(size);
+    long[][] paid = emptyPlane(size);
+    for (Show.Seat seat : seats) {
+      int number = seat.number();
+      if (number < 0 || number >= size || seatPrices[number] != null) {
+        throw new IllegalArgumentException("Seat numbers must be unique and in range [0, %s), got %s".formatted(size, number));
+      }
+      seatPrices[number] = seat.price();
+      if (seat.status() == RESERVED) {
+        setBit(reserved, number);
+      } else if (seat.status() == PAID) {
+        setBit(paid, number);
+      }
+    }
+
+    List<Money> tiers = new ArrayList<>();
+    int[] runStarts = new int[size];
+    int[] runTiers = new int[size];
+    int runs = 0;
+    for (int number = 0; number < size; number++) {
+      int tier = tierOf(tiers, seatPrices[number]);
+      if (runs == 0 || runTiers[runs - 1] != tier) {
+        runStarts[runs] = number;
+        runTiers[runs] = tier;
+        runs++;
+      }
+    }
+    return new SeatMap(size, reserved, paid, tiers.toArray(new Money[0]),
+      Arrays.copyOf(runStarts, runs), Arrays.copyOf(runTiers, runs), rowStarts);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(int seatNumber) {
+    return seatNumber >= 0 && seatNumber < size;
+  }
+
+  public Option<Show.Seat> get(int seatNumber) {
+    if (contains(seatNumber)) {
+      return Option.some(new Show.Seat(seatNumber, status(seatNumber), price(seatNumber)));
+    } else {
+      return Option.none();
+    }
+  }
+
+  public Show.SeatStatus status(int seatNumber) {
+    if (isSet(reserved, seatNumber)) {
+      return RESERVED;
+    } else if (isSet(paid, seatNumber)) {
+      return PAID;
+    } else {
+      return AVAILABLE;
+    }
+  }
+
+  public boolean isAvailable(int seatNumber) {
+    return !isSet(reserved, seatNumber) && !isSet(paid, seatNumber);
+  }
+
+  public Money price(int seatNumber) {
+    int run = Arrays.binarySearch(tierRunStarts, seatNumber);
+    return priceTiers[tierRunTiers[run >= 0 ? run : -run - 2]];
+  }
+
+  public SeatMap reserve(int seatNumber) {
+    return withStatus(seatNumber, RESERVED);
+  }
+
+  public SeatMap pay(int seatNumber) {
+    return withStatus(seatNumber, PAID);
+  }
+
+  public SeatMap release(int seatNumber) {
+    return withStatus(seatNumber, AVAILABLE);
+  }
+
+  public SeatMap withStatus(int seatNumber, Show.SeatStatus status) {
+    long[][] updatedReserved = withBit(reserved, seatNumber, status == RESERVED);
+    long[][] updatedPaid = withBit(paid, seatNumber, status == PAID);
+    if (updatedReserved == reserved && updatedPaid == paid) {
+      return this;
+    } else if (isAvailable(seatNumber) == (status == AVAILABLE)) {
+      return new SeatMap(size, updatedReserved, updatedPaid, priceTiers, tierRunStarts, tierRunTiers, rowStarts, freeRuns);
+    } else {
+      SeatMap updated = new SeatMap(size, updatedReserved, updatedPaid, priceTiers, tierRunStarts, tierRunTiers, rowStarts, null);
+      int row = rowOf(seatNumber);
+      int longestFreeRun = freeRuns.longestFreeRun(row);
+      // only the run around the seat changes, the whole row is scanned only when that run was the longest one
+      SeatMap freeAround = status == AVAILABLE ? updated : this;
+      int runStart = freeAround.previousTaken(seatNumber, rowStarts[row]) + 1;
+      int runEnd = freeAround.nextTaken(seatNumber, rowEnd(row));
+      if (status == AVAILABLE) {
+        longestFreeRun = Math.max(longestFreeRun, runEnd - runStart);
+      } else if (runEnd - runStart >= longestFreeRun) {
+        longestFreeRun = updated.longestFreeRun(row);
+      }
+      FreeRunIndex updatedFreeRuns = freeRuns.update(row, longestFreeRun);
+      return new SeatMap(size, updatedReserved, updatedPaid, priceTiers, tierRunStarts, tierRunTiers, rowStarts, updatedFreeRuns);
+    }
+  }
+
+  /**
+   * Best block of {@code count} adjacent free seats: rows are ranked in seat number order (sections and rows as
+   * listed in the venue layout), within the first row that fits the block the one closest to the middle of the row
+   * is picked.
+   *
+   * @return seat numbers of the block, none if no row has enough adjacent free seats
+   */
+  public Option<List<Integer>> findAdjacentAvailable(int count) {
+    if (count <= 0) {
+      return Option.none();
+    }
+    int row = freeRuns.firstRowFitting(count);
+    if (row < 0) {
+      return Option.none();
+    }
+    int rowStart = rowStarts[row];
+    int rowEnd = rowEnd(row);
+    double rowMiddle = (rowStart + rowEnd) / 2.0;
+    int bestStart = -1;
+    double bestDistance = Double.MAX_VALUE;
+    for (int runStart = nextFree(rowStart, rowEnd); runStart < rowEnd; ) {
+      int runEnd = nextTaken(runStart, rowEnd);
+      if (runEnd - runStart >= count) {
+        int blockStart = (int) Math.round(Math.min(Math.max(rowMiddle - count / 2.0, runStart), runEnd - count));
+        double distance = Math.abs(blockStart + count / 2.0 - rowMiddle);
+        if (distance < bestDistance) {
+          bestStart = blockStart;
+          bestDistance = distance;
+        }
+      }
+      runStart = nextFree(runEnd, rowEnd);
+    }
+    List<Integer> block = new ArrayList<>(count);
+    for (int seatNumber = bestStart; seatNumber < bestStart + count; seatNumber++) {
+      block.add(seatNumber);
+    }
+    return Option.some(block);
+  }
+
+  /**
+   * Free seats as ranges of consecutive seat numbers, read word by word from the status bit planes, so the cost
+   * depends on the number of ranges rather than on the number of seats.
+   */
+  public List<SeatRange> availableRanges() {
+    List<SeatRange> ranges = new ArrayList<>();
+    for (int first = nextFree(0, size); first < size; ) {
+      int end = nextTaken(first, size);
+      ranges.add(new SeatRange(first, end - 1));
+      first = nextFree(end, size);
+    }
+    return ranges;
+  }
+
+  /**
+   * Replaces status and price of an existing seat. Price changes rebuild the tier runs, so this is meant for setting
+   * up a show, not for the event handling path.
+   */
+  public SeatMap withSeat(Show.Seat seat) {
+    if (!contains(seat.number())) {
+      throw new IllegalArgumentException("Seat not found %s".formatted(seat.number()));
+    }
+    if (price(seat.number()).equals(seat.price())) {
+      return withStatus(seat.number(), seat.status());
+    } else {
+      List<Show.Seat> seats = new ArrayList<>(toList());
+      seats.set(seat.number(), seat);
+      return of(seats, rowStarts);
+    }
+  }
+
+  public int availableCount() {
+    int taken = 0;
+    for (int chunk = 0; chunk < reserved.length; chunk++) {
+      for (int word = 0; word < reserved[chunk].length; word++) {
+        taken += Long.bitCount(reserved[chunk][word] | paid[chunk][word]);
+      }
+    }
+    return size - taken;
+  }
+
+  public List<Show.Seat> toList() {
+    List<Show.Seat> seats = new ArrayList<>(size);
+    int run = 0;
+    for (int number = 0; number < size; number++) {
+      if (run + 1 < tierRunStarts.length && tierRunStarts[run + 1] == number) {
+        run++;
+      }
+      seats.add(new Show.Seat(number, status(number), priceTiers[tierRunTiers[run]]));
+    }
+    return seats;
+  }
+
+  private static int tierOf(List<Money> tiers, Money price) {
+    for (int tier = 0; tier < tiers.size(); tier++) {
+      if (tiers.get(tier).equals(price)) {
+        return tier;
+      }
+    }
+    tiers.add(price);
+    return tiers.size() - 1;
+  }
+
+  private int rowOf(int seatNumber) {
+    int row = Arrays.binarySearch(rowStarts, seatNumber);
+    return row >= 0 ? row : -row - 2;
+  }
+
+  private int rowEnd(int row) {
+    return row + 1 < rowStarts.length ? rowStarts[row + 1] : size;
+  }
+
+  private int longestFreeRun(int row) {
+    int rowEnd = rowEnd(row);
+    int longest = 0;
+    for (int runStart = nextFree(rowStarts[row], rowEnd); runStart < rowEnd; ) {
+      int runEnd = nextTaken(runStart, rowEnd);
+      longest = Math.max(longest, runEnd - runStart);
+      runStart = nextFree(runEnd, rowEnd);
+    }
+    return longest;
+  }
+
+  /**
+   * @return first free seat in [from, to), to if there is none
+   */
+  private int nextFree(int from, int to) {
+    return nextMatching(from, to, true);
+  }
+
+  /**
+   * @return first reserved or paid seat in [from, to), to if there is none
+   */
+  private int nextTaken(int from, int to) {
+    return nextMatching(from, to, false);
+  }
+
+  /**
+   * @return last reserved or paid seat in [from, before), from - 1 if there is none
+   */
+  private int previousTaken(int before, int from) {
+    if (before <= from) {
+      return from - 1;
+    }
+    int last = before - 1;
+    int seatNumber = last & ~63;
+    long word = takenWord(seatNumber, false) & (-1L >>> (63 - (last & 63)));
+    while (word == 0) {
+      seatNumber -= 64;
+      if (seatNumber + 63 < from) {
+        return from - 1;
+      }
+      word = takenWord(seatNumber, false);
+    }
+    return Math.max(from - 1, seatNumber + 63 - Long.numberOfLeadingZeros(word));
+  }
+
+  private int nextMatching(int from, int to, boolean free) {
+    if (from >= to) {
+      return to;
+    }
+    int seatNumber = from & ~63;
+    long word = takenWord(seatNumber, free) & (-1L << from);
+    while (word == 0) {
+      seatNumber += 64;
+      if (seatNumber >= to) {
+        return to;
+      }
+      word = takenWord(seatNumber, free);
+    }
+    return Math.min(to, seatNumber + Long.numberOfTrailingZeros(word));
+  }
+
+  private long takenWord(int seatNumber, boolean inverted) {
+    int chunk = seatNumber >>> CHUNK_SHIFT;
+    int word = (seatNumber & (CHUNK_SIZE - 1)) >>> 6;
+    long taken = reserved[chunk][word] | paid[chunk][word];
+    return inverted ? ~taken : taken;
+  }
+
+  private static long[][] emptyPlane(int size) {
+    int chunks = (size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+    long[][] plane = new long[chunks][];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      int seatsInChunk = Math.min(CHUNK_SIZE, size - (chunk << CHUNK_SHIFT));
+      plane[chunk] = new long[(seatsInChunk + 63) >>> 6];
+    }
+    return plane;
+  }
+
+  private static boolean isSet(long[][] plane, int seatNumber) {
+    return (plane[seatNumber >>> CHUNK_SHIFT][(seatNumber & (CHUNK_SIZE - 1)) >>> 6] & (1L << seatNumber)) != 0;
+  }
+
+  private static void setBit(long[][] plane, int seatNumber) {
+    plane[seatNumber >>> CHUNK_SHIFT][(seatNumber & (CHUNK_SIZE - 1)) >>> 6] |= 1L << seatNumber;
+  }
+
+  private static long[][] withBit(long[][] plane, int seatNumber, boolean value) {
+    int chunk = seatNumber >>> CHUNK_SHIFT;
+    int word = (seatNumber & (CHUNK_SIZE - 1)) >>> 6;
+    long current = plane[chunk][word];
+    long updated = value ? current | (1L << seatNumber) : current & ~(1L << seatNumber);
+    if (updated == current) {
+      return plane;
+    }
+    long[][] copy = plane.clone();
+    copy[chunk] = plane[chunk].clone();
+    copy[chunk][word] = updated;
+    return copy;
+  }
+
+  Snapshot toSnapshot() {
+    return new Snapshot(size, PackedLongs.pack(reserved), PackedLongs.pack(paid), priceTiers, tierRunStarts,
+      tierRunTiers, rowStarts);
+  }
+
+  /**
+   * Compact form of the seat map in a {@link ShowSnapshot}, bit plane chunks are packed.
+   */
+  public record Snapshot(int size, PackedLongs reserved, PackedLongs paid, Money[] priceTiers, int[] tierRunStarts,
+                         int[] tierRunTiers, int[] rowStarts) {
+  }
+
+  /**
+   * @param first first seat number of the range
+   * @param last  last seat number of the range, inclusive
+   */
+  public record SeatRange(int first, int last) {
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof SeatMap other)) return false;
+    return size == other.size
+      && Arrays.deepEquals(reserved, other.reserved)
+      && Arrays.deepEquals(paid, other.paid)
+      && Arrays.equals(priceTiers, other.priceTiers)
+      && Arrays.equals(tierRunStarts, other.tierRunStarts)
+      && Arrays.equals(tierRunTiers, other.tierRunTiers)
+      && Arrays.equals(rowStarts, other.rowStarts);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * size + Arrays.deepHashCode(reserved)) + Arrays.deepHashCode(paid);
+  }
+
+  @Override
+  public String toString() {
+    return "SeatMap(size=" + size + ", available=" + availableCount() + ")";
+  }
+}
@@ -0,0 +1,74 @@
+package com.example.cinema.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact JSON form of the seat numbers of a group reservation event: runs of consecutive seat numbers are written
+ * as ranges, e.g. {@code [2, 3, 4, 5, 9]} as {@code "2-5,9"}. The order of the seat numbers is kept.
+ */
+public final class SeatNumbers {
+
+  private SeatNumbers() {
+  }
+
+  public static String encode(List<Integer> seatNumbers) {
+    StringBuilder encoded = new StringBuilder();
+    int index = 0;
+    while (index < seatNumbers.size()) {
+      int first = seatNumbers.get(index);
+      int last = first;
+      while (index + 1 < seatNumbers.size() && seatNumbers.get(index + 1) == last + 1) {
+        last = seatNumbers.get(++index);
+      }
+      if (!encoded.isEmpty()) {
+        encoded.append(',');
+      }
+      encoded.append(first);
+      if (last != first) {
+        encoded.append('-').append(last);
+      }
+      index++;
+    }
+    return encoded.toString();
+  }
+
+  public static List<Integer> decode(String encoded) {
+    List<Integer> seatNumbers = new ArrayList<>();
+    if (!encoded.isEmpty()) {
+      for (String range : encoded.split(",")) {
+        int separator = range.indexOf('-');
+        int first = Integer.parseInt(separator < 0 ? range : range.substring(0, separator));
+        int last = separator < 0 ? first : Integer.parseInt(range.substring(separator + 1));
+        for (int seatNumber = first; seatNumber <= last; seatNumber++) {
+          seatNumbers.add(seatNumber);
+        }
+      }
+    }
+    return List.copyOf(seatNumbers);
+  }
+
+  public static class Serializer extends JsonSerializer<List<Integer>> {
+
+    @Override
+    public void serialize(List<Integer> seatNumbers, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      generator.writeString(encode(seatNumbers));
+    }
+  }
+
+  public static class Deserializer extends JsonDeserializer<List<Integer>> {
+
+    @Override
+    public List<Integer> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      return decode(parser.getValueAsString());
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.example.cinema.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import kalix.javasdk.JsonMigration;
+
+/**
+ * Version 0 of {@link Show.SeatReservation} reserved a single {@code seatNumber}. Version 1 holds the list of
+ * {@code seatNumbers} reserved together. Version 2 records {@code parallelReserveAndCharge}, earlier workflows started
+ * in sequential mode.
+ */
+public class SeatReservationMigration extends JsonMigration {
+
+  @Override
+  public int currentVersion() {
+    return 2;
+  }
+
+  @Override
+  public JsonNode transform(int fromVersion, JsonNode json) {
+    if (fromVersion < 1) {
+      ObjectNode seatReservation = (ObjectNode) json;
+      JsonNode seatNumber = seatReservation.remove("seatNumber");
+      seatReservation.putArray("seatNumbers").add(seatNumber.asInt());
+    }
+    if (fromVersion < 2) {
+      ((ObjectNode) json).put("parallelReserveAndCharge", false);
+    }
+    return json;
+  }
+}
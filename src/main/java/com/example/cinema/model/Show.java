@@ -1,14 +1,20 @@
 package com.example.cinema.model;
 
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import io.vavr.Tuple2;
+import com.fasterxml.jackson.annotation.JsonValue;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.LinkedHashMap;
 import io.vavr.collection.Map;
+import io.vavr.collection.Set;
 import io.vavr.control.Either;
 import io.vavr.control.Option;
+import kalix.javasdk.annotations.Migration;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -17,31 +23,70 @@ import static com.example.cinema.model.Show.SeatStatus.AVAILABLE;
 import static io.vavr.control.Either.left;
 import static io.vavr.control.Either.right;
 
-public record Show(String id, String title, Map<Integer, Seat> seats,
-                   Map<String, Integer> pendingReservations,
-                   Map<String, FinishedReservation> finishedReservations, int availableSeats) {
+/**
+ * @param availabilityFlushPending available seats changed since they were last published to the coalesced availability
+ *                                 projection, see {@link #availabilityFlushFor(ShowEvent)}
+ * @param reservationExpiry        pending reservations cancelled by the next expiry sweep, see
+ *                                 {@link #reservationExpiryFor(ShowEvent)}
+ * @param sectionAvailableSeats    available seats of every section show of a sharded show, {@code availableSeats} is
+ *                                 their sum, empty for a show that holds its seats itself, see {@link ShowSections}
+ */
+@Migration(ShowSnapshotMigration.class)
+public record Show(String id, String title, SeatMap seats,
+                   Map<String, List<Integer>> pendingReservations,
+                   ReservationDeduplication finishedReservations, int availableSeats,
+                   boolean availabilityFlushPending, ReservationExpiry reservationExpiry,
+                   Map<String, Integer> sectionAvailableSeats) {
 
     public static Show create(ShowEvent.ShowCreated showCreated) {
+        return create(showCreated, ReservationDeduplication.Settings.DEFAULT);
+    }
+
+    public static Show create(ShowEvent.ShowCreated showCreated, ReservationDeduplication.Settings deduplicationSettings) {
         InitialShow initialShow = showCreated.initialShow();
-        List<Tuple2<Integer, Seat>> seats = initialShow.seats().stream().map(seat -> new Tuple2<>(seat.number(), seat)).toList();
-        return new Show(initialShow.id(), initialShow.title(), HashMap.ofEntries(seats), HashMap.empty(), HashMap.empty(), initialShow.seats().size());
+        SeatMap seats = SeatMap.of(initialShow.layout());
+        return new Show(initialShow.id(), initialShow.title(), seats, HashMap.empty(), ReservationDeduplication.empty(deduplicationSettings), seats.size(),
+                false, ReservationExpiry.NONE, LinkedHashMap.empty());
+    }
+
+    /**
+     * Snapshots are written in the compact {@link ShowSnapshot} form.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    static Show fromSnapshot(ShowSnapshot snapshot) {
+        return snapshot.toShow();
+    }
+
+    @JsonValue
+    public ShowSnapshot toSnapshot() {
+        return ShowSnapshot.of(this);
     }
 
     public Either<CinemaApiModel.ShowCommandError, ShowEvent> process(CinemaApiModel.ShowCommand command) {
         return switch (command) {
             case CinemaApiModel.ShowCommand.CreateShow ignored -> left(SHOW_ALREADY_EXISTS);
+            case CinemaApiModel.ShowCommand.CreateShowWithLayout ignored -> left(SHOW_ALREADY_EXISTS);
             case CinemaApiModel.ShowCommand.ReserveSeat reserveSeat -> handleReservation(reserveSeat);
+            case CinemaApiModel.ShowCommand.ReserveSeats reserveSeats -> handleReservation(reserveSeats);
+            case CinemaApiModel.ShowCommand.ReserveBestAvailableSeats reserveBestAvailableSeats ->
+                    handleReservation(reserveBestAvailableSeats);
             case CinemaApiModel.ShowCommand.ConfirmReservationPayment confirmReservationPayment ->
                     handleConfirmation(confirmReservationPayment);
             case CinemaApiModel.ShowCommand.CancelSeatReservation cancelSeatReservation ->
                     handleCancellation(cancelSeatReservation);
+            case CinemaApiModel.ShowCommand.UpdateSectionAvailability updateSectionAvailability ->
+                    handleSectionAvailability(updateSectionAvailability);
         };
     }
 
     public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleReservation(CinemaApiModel.ShowCommand.ReserveSeat reserveSeat) {
         int seatNumber = reserveSeat.seatNumber();
-        if (isDuplicate(reserveSeat.reservationId())) {
+        if (isSharded()) {
+            return left(SHOW_IS_SHARDED);
+        } else if (isDuplicate(reserveSeat.reservationId())) {
             return left(DUPLICATED_COMMAND);
+        } else if (mightBeDuplicate(reserveSeat.reservationId())) {
+            return left(POSSIBLY_DUPLICATED_RESERVATION);
         } else {
             return seats.get(seatNumber).<Either<CinemaApiModel.ShowCommandError, ShowEvent>>map(seat -> {
                 if (seat.isAvailable()) {
@@ -53,31 +98,210 @@ public record Show(String id, String title, Map<Integer, Seat> seats,
         }
     }
 
+    /**
+     * All or nothing: either every requested seat is reserved or none is. A single seat is reserved the same way as
+     * with {@link CinemaApiModel.ShowCommand.ReserveSeat}.
+     */
+    public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleReservation(CinemaApiModel.ShowCommand.ReserveSeats reserveSeats) {
+        List<Integer> seatNumbers = reserveSeats.seatNumbers();
+        if (isSharded()) {
+            return left(SHOW_IS_SHARDED);
+        } else if (isDuplicate(reserveSeats.reservationId())) {
+            return left(DUPLICATED_COMMAND);
+        } else if (mightBeDuplicate(reserveSeats.reservationId())) {
+            return left(POSSIBLY_DUPLICATED_RESERVATION);
+        } else if (seatNumbers == null || seatNumbers.isEmpty() || seatNumbers.stream().distinct().count() != seatNumbers.size()) {
+            return left(INVALID_SEAT_SELECTION);
+        } else if (seatNumbers.size() == 1) {
+            return handleReservation(new CinemaApiModel.ShowCommand.ReserveSeat(reserveSeats.walletId(), reserveSeats.reservationId(), seatNumbers.get(0)));
+        } else {
+            for (int seatNumber : seatNumbers) {
+                if (!seats.contains(seatNumber)) {
+                    return left(SEAT_NOT_FOUND);
+                } else if (!seats.isAvailable(seatNumber)) {
+                    return left(SEAT_NOT_AVAILABLE);
+                }
+            }
+            //all price tiers of a show share one currency, see VenueLayout#isValid
+            Money price = seats.price(seatNumbers.get(0));
+            for (int seatNumber : seatNumbers.subList(1, seatNumbers.size())) {
+                price = price.plus(seats.price(seatNumber));
+            }
+            return right(new ShowEvent.SeatsReserved(id, reserveSeats.walletId(), reserveSeats.reservationId(), List.copyOf(seatNumbers), price,
+                    availableSeats() - seatNumbers.size()));
+        }
+    }
+
+    /**
+     * Picks the block of adjacent available seats with {@link SeatMap#findAdjacentAvailable(int)} and reserves it
+     * like {@link CinemaApiModel.ShowCommand.ReserveSeats}.
+     */
+    public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleReservation(CinemaApiModel.ShowCommand.ReserveBestAvailableSeats reserveBestAvailableSeats) {
+        if (isSharded()) {
+            return left(SHOW_IS_SHARDED);
+        } else if (isDuplicate(reserveBestAvailableSeats.reservationId())) {
+            return left(DUPLICATED_COMMAND);
+        } else if (mightBeDuplicate(reserveBestAvailableSeats.reservationId())) {
+            return left(POSSIBLY_DUPLICATED_RESERVATION);
+        } else if (reserveBestAvailableSeats.seatCount() <= 0) {
+            return left(INVALID_SEAT_SELECTION);
+        } else {
+            return seats.findAdjacentAvailable(reserveBestAvailableSeats.seatCount())
+                    .<Either<CinemaApiModel.ShowCommandError, ShowEvent>>map(seatNumbers -> handleReservation(
+                            new CinemaApiModel.ShowCommand.ReserveSeats(reserveBestAvailableSeats.walletId(), reserveBestAvailableSeats.reservationId(), seatNumbers)))
+                    .getOrElse(left(NO_ADJACENT_SEATS_AVAILABLE));
+        }
+    }
+
     public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleCancellation(CinemaApiModel.ShowCommand.CancelSeatReservation cancelSeatReservation) {
         String reservationId = cancelSeatReservation.reservationId();
         return pendingReservations.get(reservationId).fold(
                 () ->left(RESERVATION_NOT_FOUND),
                 /*matching reservation*/
-                seatNumber -> seats.get(seatNumber).<Either<CinemaApiModel.ShowCommandError, ShowEvent>>map(seat ->
-                        right(new ShowEvent.SeatReservationCancelled(id, reservationId, seatNumber, availableSeats()+1))
-                ).getOrElse(left(SEAT_NOT_FOUND))
+                seatNumbers -> {
+                    if (!seatNumbers.stream().allMatch(seats::contains)) {
+                        return left(SEAT_NOT_FOUND);
+                    } else if (seatNumbers.size() == 1) {
+                        return right(new ShowEvent.SeatReservationCancelled(id, reservationId, seatNumbers.get(0), availableSeats()+1));
+                    } else {
+                        return right(new ShowEvent.SeatsReservationCancelled(id, reservationId, seatNumbers, availableSeats() + seatNumbers.size()));
+                    }
+                }
         );
     }
 
+    /**
+     * A confirmation retried after the payment was applied is a {@link CinemaApiModel.ShowCommandError#DUPLICATED_COMMAND},
+     * a confirmation of a cancelled or expired reservation is {@link CinemaApiModel.ShowCommandError#RESERVATION_CANCELLED}.
+     * Both are told apart only while the reservation is recent, older ones are not found.
+     */
     public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleConfirmation(CinemaApiModel.ShowCommand.ConfirmReservationPayment confirmReservationPayment) {
         String reservationId = confirmReservationPayment.reservationId();
         return pendingReservations.get(reservationId).fold(
-                () -> left(RESERVATION_NOT_FOUND),
-                seatNumber ->
-                        seats.get(seatNumber).<Either<CinemaApiModel.ShowCommandError, ShowEvent>>map(seat ->
-                                right(new ShowEvent.SeatReservationPaid(id, reservationId, seatNumber))
-                        ).getOrElse(left(SEAT_NOT_FOUND)));
+                () -> left(finishedReservationError(reservationId)),
+                seatNumbers -> {
+                    if (!seatNumbers.stream().allMatch(seats::contains)) {
+                        return left(SEAT_NOT_FOUND);
+                    } else if (seatNumbers.size() == 1) {
+                        return right(new ShowEvent.SeatReservationPaid(id, reservationId, seatNumbers.get(0)));
+                    } else {
+                        return right(new ShowEvent.SeatsReservationPaid(id, reservationId, seatNumbers));
+                    }
+                });
     }
 
 
+    /**
+     * With the coalesced availability projection the first event changing available seats after a publish schedules a
+     * flush, later changes ride along with it.
+     */
+    public Option<ShowEvent> availabilityFlushFor(ShowEvent event) {
+        boolean changesAvailableSeats = event instanceof ShowEvent.SeatReserved
+                || event instanceof ShowEvent.SeatsReserved
+                || event instanceof ShowEvent.SeatReservationCancelled
+                || event instanceof ShowEvent.SeatsReservationCancelled
+                || event instanceof ShowEvent.SectionAvailabilityUpdated;
+        if (changesAvailableSeats && !availabilityFlushPending) {
+            return Option.some(new ShowEvent.AvailabilityFlushScheduled(id));
+        } else {
+            return Option.none();
+        }
+    }
+
+    public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleAvailabilityFlush() {
+        if (availabilityFlushPending) {
+            return right(new ShowEvent.AvailabilityPublished(id, availableSeats));
+        } else {
+            return left(AVAILABILITY_ALREADY_PUBLISHED);
+        }
+    }
+
+    /**
+     * The first reservation while no expiry sweep is scheduled schedules one. Reservations are cancelled by the sweep
+     * after the one that follows them, so all reservations made within a window expire together, after one to two
+     * windows.
+     */
+    public Option<ShowEvent> reservationExpiryFor(ShowEvent event) {
+        boolean reserves = event instanceof ShowEvent.SeatReserved || event instanceof ShowEvent.SeatsReserved;
+        if (reserves && !reservationExpiry.scheduled()) {
+            return Option.some(new ShowEvent.ReservationExpiryScheduled(id, reservationExpiry.sweep() + 1));
+        } else {
+            return Option.none();
+        }
+    }
+
+    /**
+     * Cancels the reservations still pending since the previous sweep, then schedules the next sweep for the remaining
+     * ones, if any. A sweep other than the scheduled one, e.g. a repeated timer call of a sweep that already ran, is
+     * rejected.
+     */
+    public Either<CinemaApiModel.ShowCommandError, List<ShowEvent>> handleReservationExpiry(long sweep) {
+        if (!reservationExpiry.scheduled() || reservationExpiry.sweep() != sweep) {
+            return left(RESERVATION_EXPIRY_NOT_SCHEDULED);
+        }
+        List<ShowEvent> events = new ArrayList<>();
+        Show show = this;
+        for (String reservationId : reservationExpiry.expiring()) {
+            Either<CinemaApiModel.ShowCommandError, ShowEvent> cancellation =
+                    show.handleCancellation(new CinemaApiModel.ShowCommand.CancelSeatReservation(reservationId));
+            if (cancellation.isRight()) {
+                events.add(cancellation.get());
+                show = show.apply(cancellation.get());
+            }
+        }
+        if (show.pendingReservations().isEmpty()) {
+            events.add(new ShowEvent.ReservationExpiryCompleted(id));
+        } else {
+            events.add(new ShowEvent.ReservationExpiryScheduled(id, sweep + 1));
+        }
+        return right(List.copyOf(events));
+    }
+
+    /**
+     * Section shows report their available seats in order, so the latest report of a section replaces the previous
+     * one.
+     */
+    public Either<CinemaApiModel.ShowCommandError, ShowEvent> handleSectionAvailability(CinemaApiModel.ShowCommand.UpdateSectionAvailability updateSectionAvailability) {
+        String sectionShowId = updateSectionAvailability.sectionShowId();
+        int reportedSeats = updateSectionAvailability.availableSeats();
+        return sectionAvailableSeats.get(sectionShowId).fold(
+                () -> left(SECTION_NOT_FOUND),
+                reported -> {
+                    if (reported == reportedSeats) {
+                        return left(DUPLICATED_COMMAND);
+                    } else {
+                        return right(new ShowEvent.SectionAvailabilityUpdated(id, sectionShowId, reportedSeats,
+                                availableSeats - reported + reportedSeats));
+                    }
+                }
+        );
+    }
+
+    public boolean isSharded() {
+        return !sectionAvailableSeats.isEmpty();
+    }
+
     private boolean isDuplicate(String reservationId) {
         return pendingReservations.containsKey(reservationId) ||
-                finishedReservations.get(reservationId).isDefined();
+                finishedReservations.containsRecent(reservationId);
+    }
+
+    private CinemaApiModel.ShowCommandError finishedReservationError(String reservationId) {
+        if (finishedReservations.containsRecentCancelled(reservationId)) {
+            return RESERVATION_CANCELLED;
+        } else if (finishedReservations.containsRecent(reservationId)) {
+            return DUPLICATED_COMMAND;
+        } else {
+            return RESERVATION_NOT_FOUND;
+        }
+    }
+
+    /**
+     * A match of the bloom filters only is not answered as a duplicate: for a new reservation id it is a false
+     * positive, and the caller must not be told that the seats are reserved.
+     */
+    private boolean mightBeDuplicate(String reservationId) {
+        return finishedReservations.mightContainFiltered(reservationId);
     }
 
     public Show apply(ShowEvent event) {
@@ -89,39 +313,109 @@ public record Show(String id, String title, Map<Integer, Seat> seats,
                     applyReservationPaid(seatReservationPaid);
             case ShowEvent.SeatReservationCancelled seatReservationCancelled ->
                     applyReservationCancelled(seatReservationCancelled);
+            case ShowEvent.SeatsReserved seatsReserved -> applyReserved(seatsReserved);
+            case ShowEvent.SeatsReservationPaid seatsReservationPaid ->
+                    applyReservationPaid(seatsReservationPaid);
+            case ShowEvent.SeatsReservationCancelled seatsReservationCancelled ->
+                    applyReservationCancelled(seatsReservationCancelled);
+            case ShowEvent.AvailabilityFlushScheduled ignored -> withAvailabilityFlushPending(true);
+            case ShowEvent.AvailabilityPublished ignored -> withAvailabilityFlushPending(false);
+            case ShowEvent.ReservationExpiryScheduled reservationExpiryScheduled ->
+                    withReservationExpiry(ReservationExpiry.scheduled(pendingReservations.keySet(), reservationExpiryScheduled.sweep()));
+            case ShowEvent.ReservationExpiryCompleted ignored -> withReservationExpiry(reservationExpiry.completed());
+            case ShowEvent.ShowSharded showSharded -> applySharded(showSharded);
+            case ShowEvent.SectionAvailabilityUpdated sectionAvailabilityUpdated ->
+                    applySectionAvailabilityUpdated(sectionAvailabilityUpdated);
 //            case ShowEvent.CancelledReservationConfirmed __ -> this;
         };
     }
 
     public Show applyReserved(ShowEvent.SeatReserved seatReserved) {
-        Seat seat = getSeatOrThrow(seatReserved.seatNumber());
-        return new Show(id, title, seats.put(seat.number(), seat.reserved()),
-                pendingReservations.put(seatReserved.reservationId(), seatReserved.seatNumber()),
-                finishedReservations,seatReserved.availableSeatsCount());
+        int seatNumber = checkSeatExists(seatReserved.seatNumber());
+        return new Show(id, title, seats.reserve(seatNumber),
+                pendingReservations.put(seatReserved.reservationId(), List.of(seatNumber)),
+                finishedReservations,seatReserved.availableSeatsCount(), availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
     }
 
     public Show applyReservationPaid(ShowEvent.SeatReservationPaid seatReservationPaid) {
-        Seat seat = getSeatOrThrow(seatReservationPaid.seatNumber());
+        int seatNumber = checkSeatExists(seatReservationPaid.seatNumber());
         String reservationId = seatReservationPaid.reservationId();
-        FinishedReservation finishedReservation = new FinishedReservation(reservationId, seat.number()/*, CONFIRMED*/);
-        return new Show(id, title, seats.put(seat.number(), seat.paid()),
+        return new Show(id, title, seats.pay(seatNumber),
                 pendingReservations.remove(reservationId),
-                finishedReservations.put(reservationId, finishedReservation),availableSeats());
+                finishedReservations.add(reservationId),availableSeats(), availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
 
     }
 
     public Show applyReservationCancelled(ShowEvent.SeatReservationCancelled seatReservationCancelled) {
-        Seat seat = getSeatOrThrow(seatReservationCancelled.seatNumber());
+        int seatNumber = checkSeatExists(seatReservationCancelled.seatNumber());
         String reservationId = seatReservationCancelled.reservationId();
-        FinishedReservation finishedReservation = new FinishedReservation(reservationId, seat.number()/*, CANCELLED*/);
-        return new Show(id, title, seats.put(seat.number(), seat.available()),
+        return new Show(id, title, seats.release(seatNumber),
                 pendingReservations.remove(reservationId),
-                finishedReservations.put(reservationId, finishedReservation),seatReservationCancelled.availableSeatsCount());
+                finishedReservations.addCancelled(reservationId),seatReservationCancelled.availableSeatsCount(), availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
+    }
+
+    public Show applyReserved(ShowEvent.SeatsReserved seatsReserved) {
+        SeatMap updatedSeats = seats;
+        for (int seatNumber : seatsReserved.seatNumbers()) {
+            updatedSeats = updatedSeats.reserve(checkSeatExists(seatNumber));
+        }
+        return new Show(id, title, updatedSeats,
+                pendingReservations.put(seatsReserved.reservationId(), seatsReserved.seatNumbers()),
+                finishedReservations, seatsReserved.availableSeatsCount(), availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
     }
 
+    public Show applyReservationPaid(ShowEvent.SeatsReservationPaid seatsReservationPaid) {
+        SeatMap updatedSeats = seats;
+        for (int seatNumber : seatsReservationPaid.seatNumbers()) {
+            updatedSeats = updatedSeats.pay(checkSeatExists(seatNumber));
+        }
+        String reservationId = seatsReservationPaid.reservationId();
+        return new Show(id, title, updatedSeats,
+                pendingReservations.remove(reservationId),
+                finishedReservations.add(reservationId), availableSeats(), availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
+    }
 
-    private Seat getSeatOrThrow(int seatNumber) {
-        return seats.get(seatNumber).getOrElseThrow(() -> new IllegalStateException("Seat not found %s".formatted(seatNumber)));
+    public Show applyReservationCancelled(ShowEvent.SeatsReservationCancelled seatsReservationCancelled) {
+        SeatMap updatedSeats = seats;
+        for (int seatNumber : seatsReservationCancelled.seatNumbers()) {
+            updatedSeats = updatedSeats.release(checkSeatExists(seatNumber));
+        }
+        String reservationId = seatsReservationCancelled.reservationId();
+        return new Show(id, title, updatedSeats,
+                pendingReservations.remove(reservationId),
+                finishedReservations.addCancelled(reservationId), seatsReservationCancelled.availableSeatsCount(), availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
+    }
+
+
+    public Show applySharded(ShowEvent.ShowSharded showSharded) {
+        Map<String, Integer> sections = LinkedHashMap.empty();
+        List<String> sectionShowIds = ShowSections.sectionShowIds(id, showSharded.layout());
+        for (int section = 0; section < sectionShowIds.size(); section++) {
+            sections = sections.put(sectionShowIds.get(section), showSharded.layout().sections().get(section).seatCount());
+        }
+        //seats are held by the section shows
+        return new Show(id, title, SeatMap.empty(), pendingReservations, finishedReservations, availableSeats, availabilityFlushPending, reservationExpiry, sections);
+    }
+
+    public Show applySectionAvailabilityUpdated(ShowEvent.SectionAvailabilityUpdated sectionAvailabilityUpdated) {
+        return new Show(id, title, seats, pendingReservations, finishedReservations, sectionAvailabilityUpdated.availableSeatsCount(),
+                availabilityFlushPending, reservationExpiry,
+                sectionAvailableSeats.put(sectionAvailabilityUpdated.sectionShowId(), sectionAvailabilityUpdated.sectionAvailableSeats()));
+    }
+
+    public Show withAvailabilityFlushPending(boolean availabilityFlushPending) {
+        return new Show(id, title, seats, pendingReservations, finishedReservations, availableSeats, availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
+    }
+
+    public Show withReservationExpiry(ReservationExpiry reservationExpiry) {
+        return new Show(id, title, seats, pendingReservations, finishedReservations, availableSeats, availabilityFlushPending, reservationExpiry, sectionAvailableSeats);
+    }
+
+    private int checkSeatExists(int seatNumber) {
+        if (!seats.contains(seatNumber)) {
+            throw new IllegalStateException("Seat not found %s".formatted(seatNumber));
+        }
+        return seatNumber;
     }
 
     public Option<Seat> getSeat(int seatNumber) {
@@ -136,15 +430,32 @@ public record Show(String id, String title, Map<Integer, Seat> seats,
       AVAILABLE, RESERVED, PAID
     }
 
-    public static final record FinishedReservation(String reservationId, int seatNumber) { }
+    public static final record InitialShow(String id, String title, VenueLayout layout) implements Serializable {
+    }
 
-    public static final record InitialShow(String id, String title, List<Seat> seats) implements Serializable {
+    public static final record Reservation(String reservationId, String showId, String walletId, Money price) {
     }
 
-    public static final record Reservation(String reservationId, String showId, String walletId, BigDecimal price) {
+    /**
+     * @param scheduled an expiry sweep is scheduled
+     * @param expiring  reservations pending when the sweep was scheduled, the ones still pending are cancelled by it
+     * @param sweep     number of the scheduled sweep, or of the last one when none is scheduled, kept so that a late
+     *                  call of an earlier sweep is told apart from the scheduled one
+     */
+    public static final record ReservationExpiry(boolean scheduled, Set<String> expiring, long sweep) {
+
+      public static final ReservationExpiry NONE = new ReservationExpiry(false, HashSet.empty(), 0);
+
+      public static ReservationExpiry scheduled(Set<String> expiring, long sweep) {
+        return new ReservationExpiry(true, expiring, sweep);
+      }
+
+      public ReservationExpiry completed() {
+        return new ReservationExpiry(false, HashSet.empty(), sweep);
+      }
     }
 
-    public static final record Seat(int number, SeatStatus status, BigDecimal price) {
+    public static final record Seat(int number, SeatStatus status, Money price) {
       @JsonIgnore
       public boolean isAvailable() {
         return status == AVAILABLE;
@@ -163,35 +474,41 @@ public record Show(String id, String title, Map<Integer, Seat> seats,
       }
     }
 
-    public static final record SeatReservation(String reservationId, String showId, int seatNumber, String walletId, BigDecimal price,
-                                               SeatReservationStatus status) {
+    /**
+     * State of a reservation workflow, {@code price} is the price of all seats together.
+     *
+     * @param parallelReserveAndCharge mode chosen when the workflow started, kept for the whole workflow
+     */
+    @Migration(SeatReservationMigration.class)
+    public static final record SeatReservation(String reservationId, String showId, List<Integer> seatNumbers, String walletId, Money price,
+                                               SeatReservationStatus status, boolean parallelReserveAndCharge) {
 
       public SeatReservation asSeatReservationFailed() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.SEAT_RESERVATION_FAILED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.SEAT_RESERVATION_FAILED, parallelReserveAndCharge);
       }
 
       public SeatReservation asSeatReserved() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.SEAT_RESERVED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.SEAT_RESERVED, parallelReserveAndCharge);
       }
 
       public SeatReservation asWalletChargeRejected() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.WALLET_CHARGE_REJECTED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.WALLET_CHARGE_REJECTED, parallelReserveAndCharge);
       }
 
       public SeatReservation asWalletCharged() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.WALLET_CHARGED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.WALLET_CHARGED, parallelReserveAndCharge);
       }
 
       public SeatReservation asCompleted() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.COMPLETED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.COMPLETED, parallelReserveAndCharge);
       }
 
       public SeatReservation asSeatReservationRefunded() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.SEAT_RESERVATION_REFUNDED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.SEAT_RESERVATION_REFUNDED, parallelReserveAndCharge);
       }
 
       public SeatReservation asWalletRefunded() {
-        return new SeatReservation(reservationId, showId, seatNumber, walletId, price, SeatReservationStatus.WALLET_REFUNDED);
+        return new SeatReservation(reservationId, showId, seatNumbers, walletId, price, SeatReservationStatus.WALLET_REFUNDED, parallelReserveAndCharge);
       }
 
       public SeatReservation asFailed() {
@@ -207,20 +524,59 @@ public record Show(String id, String title, Map<Integer, Seat> seats,
 
     public static class ShowCreator {
 
-        public static final BigDecimal INITIAL_PRICE = new BigDecimal("100");
+        public static final Money INITIAL_PRICE = Money.of(100);
+        public static final int MAX_SEATS = 100_000;
 
         public static Either<CinemaApiModel.ShowCommandError, ShowEvent.ShowCreated> create(String showId, CinemaApiModel.ShowCommand.CreateShow createShow) {
+          return createShow(showId, createShow.title(), VenueLayout.singleSection(INITIAL_PRICE, createShow.maxSeats()));
+        }
+
+        public static Either<CinemaApiModel.ShowCommandError, ShowEvent.ShowCreated> create(String showId, CinemaApiModel.ShowCommand.CreateShowWithLayout createShow) {
+          return createShow(showId, createShow.title(), createShow.layout());
+        }
+
+        /**
+         * Section show ids are reserved for the sections of sharded shows, no other show may be created under them.
+         */
+        public static Either<CinemaApiModel.ShowCommandError, ShowEvent.ShowCreated> createSection(String sectionShowId, CinemaApiModel.ShowCommand.CreateShowWithLayout createShow) {
+          if (!ShowSections.isSection(sectionShowId)) {
+            return left(INVALID_SHOW_ID);
+          } else {
+            return create(sectionShowId, createShow.title(), createShow.layout());
+          }
+        }
+
+        /**
+         * The sharded show is created like any other, followed by {@link ShowEvent.ShowSharded} that hands its seats
+         * over to one section show per section of the layout.
+         */
+        public static Either<CinemaApiModel.ShowCommandError, List<ShowEvent>> createSharded(String showId, CinemaApiModel.ShowCommand.CreateShowWithLayout createShow) {
+          return createShow(showId, createShow.title(), createShow.layout())
+                  .map(showCreated -> List.of(showCreated, new ShowEvent.ShowSharded(showId, createShow.title(), createShow.layout())));
+        }
+
+        private static Either<CinemaApiModel.ShowCommandError, ShowEvent.ShowCreated> createShow(String showId, String title, VenueLayout layout) {
+          if (ShowSections.isSection(showId)) {
+            return left(INVALID_SHOW_ID);
+          } else {
+            return create(showId, title, layout);
+          }
+        }
+
+        private static Either<CinemaApiModel.ShowCommandError, ShowEvent.ShowCreated> create(String showId, String title, VenueLayout layout) {
           //more domain validation here
-          if (createShow.maxSeats() > 100) {
+          if (!layout.isValid()) {
+            return left(INVALID_VENUE_LAYOUT);
+          } else if (layout.seatCount() > MAX_SEATS) {
             return left(TOO_MANY_SEATS);
           } else {
-            var initialShow = new InitialShow(showId, createShow.title(), createSeats(INITIAL_PRICE, createShow.maxSeats()));
+            var initialShow = new InitialShow(showId, title, layout);
             var showCreated = new ShowEvent.ShowCreated(showId, initialShow);
             return right(showCreated);
           }
         }
 
-        public static List<Seat> createSeats(BigDecimal seatPrice, int maxSeats) {
+        public static List<Seat> createSeats(Money seatPrice, int maxSeats) {
           return IntStream.range(0, maxSeats).mapToObj(seatNum -> new Seat(seatNum, AVAILABLE, seatPrice)).toList();
         }
       }
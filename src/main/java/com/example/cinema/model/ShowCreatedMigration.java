@@ -0,0 +1,71 @@
+package com.example.cinema.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import kalix.javasdk.JsonMigration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Version 0 of {@link ShowEvent.ShowCreated} embedded every seat in {@code initialShow.seats}. Version 1 replaces
+ * the list with a {@link VenueLayout}, one single row section per run of equally priced seats.
+ */
+public class ShowCreatedMigration extends JsonMigration {
+
+  @Override
+  public int currentVersion() {
+    return 1;
+  }
+
+  @Override
+  public JsonNode transform(int fromVersion, JsonNode json) {
+    if (fromVersion < 1) {
+      ObjectNode initialShow = (ObjectNode) json.get("initialShow");
+      JsonNode seats = initialShow.remove("seats");
+      initialShow.set("layout", layoutOf(seats));
+    }
+    return json;
+  }
+
+  private static ObjectNode layoutOf(JsonNode seats) {
+    List<JsonNode> sortedSeats = new ArrayList<>();
+    seats.forEach(sortedSeats::add);
+    sortedSeats.sort(Comparator.comparingInt(seat -> seat.get("number").asInt()));
+
+    List<BigDecimal> tiers = new ArrayList<>();
+    ArrayNode sections = JsonNodeFactory.instance.arrayNode();
+    ObjectNode currentSection = null;
+    for (JsonNode seat : sortedSeats) {
+      int tier = tierOf(tiers, seat.get("price").decimalValue());
+      if (currentSection == null || currentSection.get("priceTier").asInt() != tier) {
+        currentSection = sections.addObject()
+          .put("name", sections.size() == 1 ? VenueLayout.MAIN_SECTION : VenueLayout.MAIN_SECTION + "-" + sections.size())
+          .put("rows", 1)
+          .put("seatsPerRow", 0)
+          .put("priceTier", tier);
+      }
+      currentSection.put("seatsPerRow", currentSection.get("seatsPerRow").asInt() + 1);
+    }
+
+    ObjectNode layout = JsonNodeFactory.instance.objectNode();
+    ArrayNode priceTiers = layout.putArray("priceTiers");
+    tiers.forEach(priceTiers::add);
+    layout.set("sections", sections);
+    return layout;
+  }
+
+  private static int tierOf(List<BigDecimal> tiers, BigDecimal price) {
+    for (int tier = 0; tier < tiers.size(); tier++) {
+      if (tiers.get(tier).compareTo(price) == 0) {
+        return tier;
+      }
+    }
+    tiers.add(price);
+    return tiers.size() - 1;
+  }
+}
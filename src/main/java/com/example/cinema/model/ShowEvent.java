@@ -1,18 +1,24 @@
 package com.example.cinema.model;
 
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import kalix.javasdk.annotations.Migration;
 import kalix.javasdk.annotations.TypeName;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 sealed public interface ShowEvent {
     String showId();
 
     @TypeName("show-created")
+    @Migration(ShowCreatedMigration.class)
     record ShowCreated(String showId, Show.InitialShow initialShow) implements ShowEvent {
     }
 
     @TypeName("seat-reserved")
-    record SeatReserved(String showId, String walletId, String reservationId, int seatNumber, BigDecimal price,
+    record SeatReserved(String showId, String walletId, String reservationId, int seatNumber,
+                        @JsonSerialize(using = Money.CompactSerializer.class) Money price,
                         int availableSeatsCount) implements ShowEvent {
     }
 
@@ -24,4 +30,73 @@ sealed public interface ShowEvent {
     record SeatReservationCancelled(String showId, String reservationId, int seatNumber,
                                     int availableSeatsCount) implements ShowEvent {
     }
+
+    /**
+     * Several seats reserved at once under one reservation, {@code price} is the price of all of them.
+     */
+    @TypeName("seats-reserved")
+    record SeatsReserved(String showId, String walletId, String reservationId,
+                         @JsonSerialize(using = SeatNumbers.Serializer.class)
+                         @JsonDeserialize(using = SeatNumbers.Deserializer.class) List<Integer> seatNumbers,
+                         @JsonSerialize(using = Money.CompactSerializer.class) Money price,
+                         int availableSeatsCount) implements ShowEvent {
+    }
+
+    @TypeName("seats-reservation-paid")
+    record SeatsReservationPaid(String showId, String reservationId,
+                                @JsonSerialize(using = SeatNumbers.Serializer.class)
+                                @JsonDeserialize(using = SeatNumbers.Deserializer.class) List<Integer> seatNumbers) implements ShowEvent {
+    }
+
+    @TypeName("seats-reservation-cancelled")
+    record SeatsReservationCancelled(String showId, String reservationId,
+                                     @JsonSerialize(using = SeatNumbers.Serializer.class)
+                                     @JsonDeserialize(using = SeatNumbers.Deserializer.class) List<Integer> seatNumbers,
+                                     int availableSeatsCount) implements ShowEvent {
+    }
+
+    /**
+     * Available seats changed and the coalesced availability projection is behind, a flush is scheduled.
+     */
+    @TypeName("availability-flush-scheduled")
+    record AvailabilityFlushScheduled(String showId) implements ShowEvent {
+    }
+
+    /**
+     * Available seats published to the coalesced availability projection.
+     */
+    @TypeName("availability-published")
+    record AvailabilityPublished(String showId, int availableSeatsCount) implements ShowEvent {
+    }
+
+    /**
+     * Reservations pending now are cancelled by the next expiry sweep, unless paid or cancelled before.
+     *
+     * @param sweep number of the sweep, increasing for every sweep of the show
+     */
+    @TypeName("reservation-expiry-scheduled")
+    record ReservationExpiryScheduled(String showId, long sweep) implements ShowEvent {
+    }
+
+    /**
+     * No pending reservations left to expire, the next reservation schedules a sweep again.
+     */
+    @TypeName("reservation-expiry-completed")
+    record ReservationExpiryCompleted(String showId) implements ShowEvent {
+    }
+
+    /**
+     * Seats of the show are held by one section show per section of {@code layout}, see {@link ShowSections}.
+     */
+    @TypeName("show-sharded")
+    record ShowSharded(String showId, String title, VenueLayout layout) implements ShowEvent {
+    }
+
+    /**
+     * Available seats reported by a section show of a sharded show, {@code availableSeatsCount} of all sections.
+     */
+    @TypeName("section-availability-updated")
+    record SectionAvailabilityUpdated(String showId, String sectionShowId, int sectionAvailableSeats,
+                                      int availableSeatsCount) implements ShowEvent {
+    }
 }
@@ -0,0 +1,51 @@
+package com.example.cinema.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Naming of the section shows of a sharded show. Every section of the venue layout is an ordinary show of its own,
+ * with the id of the sharded show and the index of the section, and seats numbered from 0 within the section. The
+ * sharded show itself only coordinates: it keeps the show level data and the available seats of all sections.
+ */
+public final class ShowSections {
+
+  static final String SECTION_SEPARATOR = "~section-";
+
+  private ShowSections() {
+  }
+
+  public static String sectionShowId(String showId, int section) {
+    return showId + SECTION_SEPARATOR + section;
+  }
+
+  public static boolean isSection(String showId) {
+    return showId.contains(SECTION_SEPARATOR);
+  }
+
+  /**
+   * @return id of the sharded show the section show belongs to
+   */
+  public static String shardedShowId(String sectionShowId) {
+    int separator = sectionShowId.lastIndexOf(SECTION_SEPARATOR);
+    if (separator < 0) {
+      throw new IllegalArgumentException("Not a section show id: " + sectionShowId);
+    }
+    return sectionShowId.substring(0, separator);
+  }
+
+  public static List<String> sectionShowIds(String showId, VenueLayout layout) {
+    List<String> sectionShowIds = new ArrayList<>(layout.sections().size());
+    for (int section = 0; section < layout.sections().size(); section++) {
+      sectionShowIds.add(sectionShowId(showId, section));
+    }
+    return sectionShowIds;
+  }
+
+  /**
+   * @return layout of a single section, sharing the price tiers of the whole venue
+   */
+  public static VenueLayout sectionLayout(VenueLayout layout, int section) {
+    return new VenueLayout(layout.priceTiers(), List.of(layout.sections().get(section)));
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.cinema.model;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.Map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, versioned form of {@link Show} written to entity snapshots. Seat status bit planes and bloom filter bits
+ * are stored as {@link com.example.common.PackedLongs}, pending reservations as columns (ids, seat counts, flattened
+ * seat numbers) instead of an object per reservation. Snapshots written before reservation expiry have no sweep
+ * scheduled, snapshots written before section sharding have no sections, snapshots written before cancellations were
+ * told apart from payments have no recently cancelled reservations. Reflectively written snapshots of the
+ * previous state are converted by {@link ShowSnapshotMigration}.
+ */
+public record ShowSnapshot(int version, String id, String title, int availableSeats, SeatMap.Snapshot seats,
+                           String[] pendingReservationIds, int[] pendingSeatCounts, int[] pendingSeatNumbers,
+                           Deduplication finishedReservations, boolean availabilityFlushPending,
+                           boolean reservationExpiryScheduled,
+                           @JsonSetter(nulls = Nulls.AS_EMPTY) String[] expiringReservationIds,
+                           long reservationExpirySweep,
+                           @JsonSetter(nulls = Nulls.AS_EMPTY) String[] sectionShowIds,
+                           @JsonSetter(nulls = Nulls.AS_EMPTY) int[] sectionAvailableSeats) {
+
+  public static final int VERSION = 1;
+
+  public static ShowSnapshot of(Show show) {
+    int pending = show.pendingReservations().size();
+    String[] reservationIds = new String[pending];
+    int[] seatCounts = new int[pending];
+    List<Integer> seatNumbers = new ArrayList<>(pending);
+    int reservation = 0;
+    for (var pendingReservation : show.pendingReservations()) {
+      reservationIds[reservation] = pendingReservation._1();
+      seatCounts[reservation] = pendingReservation._2().size();
+      seatNumbers.addAll(pendingReservation._2());
+      reservation++;
+    }
+    String[] sectionShowIds = show.sectionAvailableSeats().keySet().toJavaList().toArray(new String[0]);
+    int[] sectionAvailableSeats = show.sectionAvailableSeats().values().toJavaList().stream().mapToInt(Integer::intValue).toArray();
+    return new ShowSnapshot(VERSION, show.id(), show.title(), show.availableSeats(), show.seats().toSnapshot(),
+      reservationIds, seatCounts, seatNumbers.stream().mapToInt(Integer::intValue).toArray(),
+      Deduplication.of(show.finishedReservations()), show.availabilityFlushPending(),
+      show.reservationExpiry().scheduled(), show.reservationExpiry().expiring().toJavaList().toArray(new String[0]),
+      show.reservationExpiry().sweep(), sectionShowIds, sectionAvailableSeats);
+  }
+
+  public Show toShow() {
+    if (version != VERSION) {
+      throw new IllegalStateException("Unsupported show snapshot version %s, expected %s".formatted(version, VERSION));
+    }
+    Map<String, List<Integer>> pendingReservations = HashMap.empty();
+    int seat = 0;
+    for (int reservation = 0; reservation < pendingReservationIds.length; reservation++) {
+      List<Integer> seatNumbers = new ArrayList<>(pendingSeatCounts[reservation]);
+      for (int i = 0; i < pendingSeatCounts[reservation]; i++) {
+        seatNumbers.add(pendingSeatNumbers[seat++]);
+      }
+      pendingReservations = pendingReservations.put(pendingReservationIds[reservation], List.copyOf(seatNumbers));
+    }
+    Map<String, Integer> sections = LinkedHashMap.empty();
+    for (int section = 0; section < sectionShowIds.length; section++) {
+      sections = sections.put(sectionShowIds[section], sectionAvailableSeats[section]);
+    }
+    return new Show(id, title, SeatMap.fromSnapshot(seats), pendingReservations, finishedReservations.toDeduplication(),
+      availableSeats, availabilityFlushPending,
+      new Show.ReservationExpiry(reservationExpiryScheduled, HashSet.of(expiringReservationIds), reservationExpirySweep),
+      sections);
+  }
+
+  public record Deduplication(ReservationDeduplication.Settings settings, String[] recent,
+                              @JsonSetter(nulls = Nulls.AS_EMPTY) String[] recentCancelled,
+                              BloomFilter.Snapshot current, BloomFilter.Snapshot previous) {
+
+    static Deduplication of(ReservationDeduplication deduplication) {
+      return new Deduplication(deduplication.settings(), deduplication.recent().toJavaList().toArray(new String[0]),
+        deduplication.recentCancelled().toJavaList().toArray(new String[0]),
+        deduplication.current().toSnapshot(), deduplication.previous().toSnapshot());
+    }
+
+    ReservationDeduplication toDeduplication() {
+      return new ReservationDeduplication(settings, LinkedHashSet.of(recent), HashSet.of(recentCancelled),
+        BloomFilter.fromSnapshot(current), BloomFilter.fromSnapshot(previous));
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.example.cinema.model;
+
+import com.example.common.LegacyJson;
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import kalix.javasdk.JsonMigration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Version 0 of {@link Show} was written reflectively: a map of seat objects, pending reservation ids to seat numbers
+ * and every finished reservation. Version 1 is the {@link ShowSnapshot}. Snapshots written in the compact form before
+ * the version was tagged carry their own {@code version} field and are left as they are.
+ */
+public class ShowSnapshotMigration extends JsonMigration {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Override
+  public int currentVersion() {
+    return 1;
+  }
+
+  @Override
+  public JsonNode transform(int fromVersion, JsonNode json) {
+    if (fromVersion < 1 && !json.has("version")) {
+      return OBJECT_MAPPER.valueToTree(fromBaseline(json));
+    }
+    return json;
+  }
+
+  static Show fromBaseline(JsonNode json) {
+    List<Show.Seat> seats = new ArrayList<>();
+    for (var seat : LegacyJson.entries(json.get("seats"))) {
+      JsonNode value = seat.getValue();
+      seats.add(new Show.Seat(value.get("number").asInt(), Show.SeatStatus.valueOf(value.get("status").asText()),
+        OBJECT_MAPPER.convertValue(value.get("price"), Money.class)));
+    }
+    Map<String, List<Integer>> pendingReservations = HashMap.empty();
+    for (var pending : LegacyJson.entries(json.get("pendingReservations"))) {
+      pendingReservations = pendingReservations.put(pending.getKey(), List.of(pending.getValue().asInt()));
+    }
+    ReservationDeduplication finishedReservations = ReservationDeduplication.empty(ReservationDeduplication.Settings.DEFAULT);
+    for (var finished : LegacyJson.entries(json.get("finishedReservations"))) {
+      finishedReservations = finishedReservations.add(finished.getKey());
+    }
+    return new Show(json.get("id").asText(), json.get("title").asText(), SeatMap.of(seats), pendingReservations,
+      finishedReservations, json.get("availableSeats").asInt(), false, Show.ReservationExpiry.NONE, LinkedHashMap.empty());
+  }
+}
@@ -0,0 +1,58 @@
+package com.example.cinema.model;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Compact description of the seats of a show: sections of equally sized rows, each section priced by one of the
+ * shared price tiers. Seats are numbered consecutively, section by section and row by row, starting from 0.
+ */
+public record VenueLayout(List<Money> priceTiers, List<Section> sections) {
+
+  public static final String MAIN_SECTION = "main";
+
+  public static VenueLayout singleSection(Money price, int seats) {
+    return new VenueLayout(List.of(price), List.of(new Section(MAIN_SECTION, 1, seats, 0)));
+  }
+
+  @JsonIgnore
+  public int seatCount() {
+    int seatCount = 0;
+    for (Section section : sections) {
+      seatCount += section.seatCount();
+    }
+    return seatCount;
+  }
+
+  /**
+   * A valid layout has at least one section, every section priced by an existing tier, and all tiers in one currency,
+   * so that the seats of any reservation can be summed up.
+   */
+  @JsonIgnore
+  public boolean isValid() {
+    if (priceTiers == null || sections == null || priceTiers.isEmpty() || sections.isEmpty()) {
+      return false;
+    }
+    long seatCount = 0;
+    for (Section section : sections) {
+      if (section == null || section.rows() <= 0 || section.seatsPerRow() <= 0
+        || section.priceTier() < 0 || section.priceTier() >= priceTiers.size()) {
+        return false;
+      }
+      seatCount += (long) section.rows() * section.seatsPerRow();
+    }
+    Money firstTier = priceTiers.get(0);
+    return seatCount <= Integer.MAX_VALUE && priceTiers.stream().allMatch(price -> price != null && price.minorUnits() >= 0
+      && firstTier != null && price.currency().equals(firstTier.currency()));
+  }
+
+  public record Section(String name, int rows, int seatsPerRow, int priceTier) {
+
+    @JsonIgnore
+    public int seatCount() {
+      return rows * seatsPerRow;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.example.cinema.reservation;
 
 import com.example.cinema.ShowEntity;
+import com.example.common.Money;
 import com.google.protobuf.any.Any;
 import kalix.javasdk.DeferredCall;
 import kalix.javasdk.action.Action;
@@ -16,6 +17,12 @@ import static com.example.cinema.model.ShowEvent.*;
 @Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
 public class FoldShowEventsToReservationAction extends Action {
 
+  /**
+   * Folds reservations into {@link ReservationEntity} only when it is the configured {@link ReservationLookup} read
+   * model.
+   */
+  private static final boolean RESERVATION_LOOKUP = ReservationLookup.SHARED.readModel() == ReservationLookup.ReadModel.ENTITY;
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   private final ComponentClient componentClient;
@@ -25,17 +32,31 @@ public class FoldShowEventsToReservationAction extends Action {
   }
 
   public Effect<String> onEvent(SeatReserved reserved) {
-    return effects().forward(createReservation(reserved));
+    return RESERVATION_LOOKUP ? effects().forward(createReservation(reserved)) : effects().ignore();
   }
 
   public Effect<String> onEvent(SeatReservationPaid paid) {
-    return effects().forward(deleteReservation(paid.reservationId()));
+    return RESERVATION_LOOKUP ? effects().forward(deleteReservation(paid.reservationId())) : effects().ignore();
+  }
+
+  public Effect<String> onEvent(SeatsReserved reserved) {
+    return RESERVATION_LOOKUP
+      ? effects().forward(createReservation(reserved.reservationId(), reserved.showId(), reserved.walletId(), reserved.price()))
+      : effects().ignore();
+  }
+
+  public Effect<String> onEvent(SeatsReservationPaid paid) {
+    return RESERVATION_LOOKUP ? effects().forward(deleteReservation(paid.reservationId())) : effects().ignore();
   }
 
   private DeferredCall<Any, String> createReservation(SeatReserved reserved) {
-    return componentClient.forValueEntity(reserved.reservationId())
+    return createReservation(reserved.reservationId(), reserved.showId(), reserved.walletId(), reserved.price());
+  }
+
+  private DeferredCall<Any, String> createReservation(String reservationId, String showId, String walletId, Money price) {
+    return componentClient.forValueEntity(reservationId)
       .call(ReservationEntity::create)
-      .params(new ReservationEntity.CreateReservation(reserved.showId(), reserved.walletId(), reserved.price()));
+      .params(new ReservationEntity.CreateReservation(showId, walletId, price));
   }
 
   private DeferredCall<Any, String> deleteReservation(String reservationId) {
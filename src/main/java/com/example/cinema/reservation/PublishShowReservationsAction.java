@@ -0,0 +1,82 @@
+package com.example.cinema.reservation;
+
+import com.example.cinema.ShowEntity;
+import kalix.javasdk.Metadata;
+import kalix.javasdk.action.Action;
+import kalix.javasdk.annotations.Publish;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.annotations.TypeName;
+import org.springframework.context.annotation.Profile;
+
+import static com.example.cinema.model.ShowEvent.*;
+
+/**
+ * Re-keys the reservation events of {@link ShowEntity} by reservation id for {@link ShowByReservationView}: a view
+ * subscribed to the show journal gets one row per show, a view subscribed to this topic one row per reservation,
+ * taken from the {@code ce-subject} of each message.
+ */
+@Profile("choreography")
+@Subscribe.EventSourcedEntity(value = ShowEntity.class, ignoreUnknown = true)
+public class PublishShowReservationsAction extends Action {
+
+  public static final String TOPIC = "show-reservations";
+
+  /**
+   * Publishes only when the view is the configured {@link ReservationLookup} read model.
+   */
+  private static final boolean RESERVATION_LOOKUP = ReservationLookup.SHARED.readModel() == ReservationLookup.ReadModel.VIEW;
+
+  @TypeName("show-reservation-opened")
+  public record ReservationOpened(String reservationId, String showId) {
+  }
+
+  @TypeName("show-reservation-closed")
+  public record ReservationClosed(String reservationId) {
+  }
+
+  @Publish.Topic(TOPIC)
+  public Effect<ReservationOpened> onEvent(SeatReserved reserved) {
+    return opened(reserved.reservationId(), reserved.showId());
+  }
+
+  @Publish.Topic(TOPIC)
+  public Effect<ReservationOpened> onEvent(SeatsReserved reserved) {
+    return opened(reserved.reservationId(), reserved.showId());
+  }
+
+  @Publish.Topic(TOPIC)
+  public Effect<ReservationClosed> onEvent(SeatReservationPaid paid) {
+    return closed(paid.reservationId());
+  }
+
+  @Publish.Topic(TOPIC)
+  public Effect<ReservationClosed> onEvent(SeatsReservationPaid paid) {
+    return closed(paid.reservationId());
+  }
+
+  @Publish.Topic(TOPIC)
+  public Effect<ReservationClosed> onEvent(SeatReservationCancelled cancelled) {
+    return closed(cancelled.reservationId());
+  }
+
+  @Publish.Topic(TOPIC)
+  public Effect<ReservationClosed> onEvent(SeatsReservationCancelled cancelled) {
+    return closed(cancelled.reservationId());
+  }
+
+  private Effect<ReservationOpened> opened(String reservationId, String showId) {
+    return RESERVATION_LOOKUP
+      ? effects().reply(new ReservationOpened(reservationId, showId), subject(reservationId))
+      : effects().ignore();
+  }
+
+  private Effect<ReservationClosed> closed(String reservationId) {
+    return RESERVATION_LOOKUP
+      ? effects().reply(new ReservationClosed(reservationId), subject(reservationId))
+      : effects().ignore();
+  }
+
+  private static Metadata subject(String reservationId) {
+    return Metadata.EMPTY.add("ce-subject", reservationId);
+  }
+}
@@ -1,6 +1,7 @@
 package com.example.cinema.reservation;
 
 import com.example.cinema.model.Show;
+import com.example.common.Money;
 import io.grpc.Status;
 import kalix.javasdk.annotations.Id;
 import kalix.javasdk.annotations.TypeId;
@@ -12,17 +13,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import java.math.BigDecimal;
-import java.util.HashSet;
-import java.util.Set;
-
 @Profile("choreography")
 @Id("id")
 @TypeId("reservation")
 @RequestMapping("/reservation/{id}")
 public class ReservationEntity extends ValueEntity<Show.Reservation> {
 
-  public record CreateReservation(String showId, String walletId, BigDecimal price) {
+  public record CreateReservation(String showId, String walletId, Money price) {
   }
 
   @GetMapping
@@ -45,23 +42,4 @@ public class ReservationEntity extends ValueEntity<Show.Reservation> {
   public Effect<String> delete() {
     return effects().deleteEntity().thenReply("reservation deleted");
   }
-
-  public static final record ShowByReservation(String showId, Set<String> reservationIds) {
-
-      public ShowByReservation(String showId) {
-        this(showId, new HashSet<>());
-      }
-
-      public ShowByReservation add(String reservationId) {
-        if (!reservationIds.contains(reservationId)) {
-          reservationIds.add(reservationId);
-        }
-        return this;
-      }
-
-      public ShowByReservation remove(String reservationId) {
-        reservationIds.remove(reservationId);
-        return this;
-      }
-    }
 }
@@ -0,0 +1,76 @@
+package com.example.cinema.reservation;
+
+import com.example.cinema.model.Show;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import kalix.javasdk.client.ComponentClient;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Resolves the show of a reservation for wallet events that do not carry it, from the configured read model with a
+ * small LRU cache in front. A reservation never moves to another show, so cached entries are never stale.
+ */
+public class ReservationLookup {
+
+  public enum ReadModel {
+    ENTITY, VIEW
+  }
+
+  public static final ReservationLookup SHARED = of(ConfigFactory.load().getConfig("cinema.choreography"));
+
+  private final ReadModel readModel;
+  private final LinkedHashMap<String, String> showIds;
+
+  ReservationLookup(ReadModel readModel, int cacheSize) {
+    this.readModel = readModel;
+    this.showIds = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  static ReservationLookup of(Config config) {
+    return new ReservationLookup(
+      ReadModel.valueOf(config.getString("reservation-lookup").toUpperCase(Locale.ROOT)),
+      config.getInt("reservation-lookup-cache-size"));
+  }
+
+  public ReadModel readModel() {
+    return readModel;
+  }
+
+  public CompletionStage<String> getShowId(String reservationId, ComponentClient componentClient) {
+    String cached;
+    synchronized (showIds) {
+      cached = showIds.get(reservationId);
+    }
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    } else {
+      return readShowId(reservationId, componentClient).thenApply(showId -> cache(reservationId, showId));
+    }
+  }
+
+  String cache(String reservationId, String showId) {
+    synchronized (showIds) {
+      showIds.put(reservationId, showId);
+    }
+    return showId;
+  }
+
+  private CompletionStage<String> readShowId(String reservationId, ComponentClient componentClient) {
+    return switch (readModel) {
+      case ENTITY -> componentClient.forValueEntity(reservationId).call(ReservationEntity::get).execute()
+        .thenApply(Show.Reservation::showId);
+      case VIEW -> componentClient.forView().call(ShowByReservationView::getShow).params(reservationId).execute()
+        .thenApply(ShowByReservationView.ShowByReservation::showId);
+    };
+  }
+}
@@ -0,0 +1,42 @@
+package com.example.cinema.reservation;
+
+import kalix.javasdk.annotations.Query;
+import kalix.javasdk.annotations.Subscribe;
+import kalix.javasdk.annotations.Table;
+import kalix.javasdk.annotations.ViewId;
+import kalix.javasdk.view.View;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import static com.example.cinema.reservation.PublishShowReservationsAction.ReservationClosed;
+import static com.example.cinema.reservation.PublishShowReservationsAction.ReservationOpened;
+
+/**
+ * Show of each pending reservation, read model alternative to {@link ReservationEntity}: a row per reservation, keyed
+ * by reservation id through {@link PublishShowReservationsAction}, written when the reservation is made and deleted
+ * when it is paid or cancelled.
+ */
+@Profile("choreography")
+@ViewId("show_by_reservation_view_v2")
+@Table("show_by_reservation")
+@Subscribe.Topic(value = PublishShowReservationsAction.TOPIC, ignoreUnknown = true)
+public class ShowByReservationView extends View<ShowByReservationView.ShowByReservation> {
+
+  public record ShowByReservation(String reservationId, String showId) {
+  }
+
+  @GetMapping("/cinema-shows/by-reservation/{reservationId}")
+  @Query("SELECT * FROM show_by_reservation WHERE reservationId = :reservationId")
+  public ShowByReservation getShow(@PathVariable String reservationId) {
+    return null;
+  }
+
+  public UpdateEffect<ShowByReservation> onEvent(ReservationOpened opened) {
+    return effects().updateState(new ShowByReservation(opened.reservationId(), opened.showId()));
+  }
+
+  public UpdateEffect<ShowByReservation> onEvent(ReservationClosed closed) {
+    return effects().deleteState();
+  }
+}
@@ -0,0 +1,138 @@
+package com.example.common;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to a dependency. After {@code maxFailures} consecutive failures or timeouts the breaker opens and calls
+ * fail fast with {@link OpenException} without reaching the dependency. After {@code resetTimeout} a single trial call
+ * is let through (half-open): success closes the breaker, failure opens it again. Client errors, see
+ * {@link RetryPolicy}, do not count as failures.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  public record Settings(int maxFailures, Duration callTimeout, Duration resetTimeout) {
+
+    public static Settings of(Config config) {
+      return new Settings(config.getInt("max-failures"), config.getDuration("call-timeout"), config.getDuration("reset-timeout"));
+    }
+  }
+
+  /**
+   * @param opened     transitions to {@link State#OPEN}, including failed trial calls
+   * @param halfOpened transitions to {@link State#HALF_OPEN}
+   * @param closed     transitions from {@link State#HALF_OPEN} back to {@link State#CLOSED}
+   * @param rejected   calls failed fast without reaching the dependency
+   */
+  public record Stats(String name, State state, long opened, long halfOpened, long closed, long rejected) {
+  }
+
+  public static class OpenException extends RuntimeException {
+
+    public OpenException(String name) {
+      super("circuit breaker " + name + " is open");
+    }
+  }
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final String name;
+  private final Settings settings;
+  private final Clock clock;
+  private State state = State.CLOSED;
+  private int failures;
+  private Instant openedAt = Instant.MIN;
+  private long opened;
+  private long halfOpened;
+  private long closed;
+  private long rejected;
+
+  CircuitBreaker(String name, Settings settings, Clock clock) {
+    this.name = name;
+    this.settings = settings;
+    this.clock = clock;
+  }
+
+  public static CircuitBreaker of(String name, Config config) {
+    return new CircuitBreaker(name, Settings.of(config), Clock.systemUTC());
+  }
+
+  public <T> CompletionStage<T> call(Supplier<CompletionStage<T>> call) {
+    if (!tryAcquire()) {
+      return CompletableFuture.failedFuture(new OpenException(name));
+    }
+    CompletionStage<T> result;
+    try {
+      result = call.get().toCompletableFuture().copy()
+        .orTimeout(settings.callTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      result = CompletableFuture.failedFuture(e);
+    }
+    return result.whenComplete((value, throwable) -> {
+      //client errors are answers of a healthy dependency
+      if (throwable == null || !RetryPolicy.isRetryable(throwable)) {
+        onSuccess();
+      } else {
+        onFailure();
+      }
+    });
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(name, state, opened, halfOpened, closed, rejected);
+  }
+
+  private synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (!clock.instant().isBefore(openedAt.plus(settings.resetTimeout()))) {
+          transitionTo(State.HALF_OPEN);
+          halfOpened++;
+          return true;
+        }
+        break;
+      case HALF_OPEN:
+        //a trial call is already in flight
+        break;
+    }
+    rejected++;
+    return false;
+  }
+
+  private synchronized void onSuccess() {
+    failures = 0;
+    if (state == State.HALF_OPEN) {
+      transitionTo(State.CLOSED);
+      closed++;
+    }
+  }
+
+  private synchronized void onFailure() {
+    failures++;
+    if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= settings.maxFailures())) {
+      transitionTo(State.OPEN);
+      openedAt = clock.instant();
+      opened++;
+    }
+  }
+
+  private void transitionTo(State newState) {
+    logger.warn("circuit breaker {} {} -> {}", name, state, newState);
+    state = newState;
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.common;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Latencies of named calls over a sliding window of the last {@code windowSize} calls, failed ones included.
+ */
+public class LatencyTracker {
+
+  public record Percentiles(long calls, Duration p50, Duration p90, Duration p99) {
+  }
+
+  private final int windowSize;
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  public LatencyTracker(int windowSize) {
+    this.windowSize = windowSize;
+  }
+
+  public <T> CompletionStage<T> time(String name, Supplier<CompletionStage<T>> call) {
+    long start = System.nanoTime();
+    return call.get().whenComplete((value, throwable) -> record(name, Duration.ofNanos(System.nanoTime() - start)));
+  }
+
+  public void record(String name, Duration latency) {
+    windows.computeIfAbsent(name, __ -> new Window(windowSize)).add(latency.toNanos());
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return empty until {@code minSamples} calls are recorded
+   */
+  public Optional<Duration> percentile(String name, double percentile, int minSamples) {
+    Window window = windows.get(name);
+    if (window == null) {
+      return Optional.empty();
+    }
+    long[] samples = window.sortedSamples();
+    if (samples.length == 0 || samples.length < minSamples) {
+      return Optional.empty();
+    } else {
+      return Optional.of(percentile(samples, percentile));
+    }
+  }
+
+  public Map<String, Percentiles> percentiles() {
+    Map<String, Percentiles> percentiles = new TreeMap<>();
+    windows.forEach((name, window) -> {
+      long[] samples = window.sortedSamples();
+      if (samples.length > 0) {
+        percentiles.put(name, new Percentiles(window.calls(),
+          percentile(samples, 50), percentile(samples, 90), percentile(samples, 99)));
+      }
+    });
+    return percentiles;
+  }
+
+  private static Duration percentile(long[] sortedSamples, double percentile) {
+    int index = (int) Math.ceil(percentile / 100 * sortedSamples.length) - 1;
+    return Duration.ofNanos(sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))]);
+  }
+
+  private static class Window {
+
+    private final long[] samples;
+    private long calls;
+
+    Window(int size) {
+      this.samples = new long[size];
+    }
+
+    synchronized void add(long nanos) {
+      samples[(int) (calls % samples.length)] = nanos;
+      calls++;
+    }
+
+    synchronized long calls() {
+      return calls;
+    }
+
+    synchronized long[] sortedSamples() {
+      long[] copy = Arrays.copyOf(samples, (int) Math.min(calls, samples.length));
+      Arrays.sort(copy);
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.example.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reading of state written reflectively, before the compact snapshot forms. Vavr maps were written either as JSON
+ * objects or as arrays of {@code {"_1": key, "_2": value}} tuples.
+ */
+public final class LegacyJson {
+
+  private LegacyJson() {
+  }
+
+  public static List<Map.Entry<String, JsonNode>> entries(JsonNode map) {
+    List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+    if (map == null || map.isNull()) {
+      return entries;
+    } else if (map.isObject()) {
+      map.fields().forEachRemaining(entries::add);
+    } else if (map.isArray()) {
+      map.forEach(tuple -> entries.add(new AbstractMap.SimpleImmutableEntry<>(tuple.get("_1").asText(), tuple.get("_2"))));
+    } else {
+      throw new IllegalArgumentException("Expected a map, got " + map.getNodeType());
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money held as a primitive count of minor units (cents) of a currency. Arithmetic does not go through
+ * {@link BigDecimal}.
+ * <p>
+ * Serialised as {@code {"minorUnits": 10000, "currency": "USD"}}. Event fields use the compact {@link #toString()}
+ * form instead, {@code "100.00 USD"}, see {@link CompactSerializer}, which is read back without going through
+ * {@link BigDecimal}. Plain JSON numbers (and numeric strings), the format used when amounts were {@link BigDecimal}s,
+ * are accepted as well and read as major units of the default currency. Those could carry more decimals than minor units allow, they are rounded half even so that
+ * old events always replay.
+ */
+public record Money(@JsonProperty("minorUnits") long minorUnits, @JsonProperty("currency") String currency) implements Comparable<Money> {
+
+  public static final String DEFAULT_CURRENCY = "USD";
+  public static final int SCALE = 2;
+  public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+  private static final long MINOR_UNITS_PER_MAJOR = 100;
+
+  public static Money of(long majorUnits) {
+    return new Money(Math.multiplyExact(majorUnits, MINOR_UNITS_PER_MAJOR), DEFAULT_CURRENCY);
+  }
+
+  public static Money of(BigDecimal majorUnits) {
+    return new Money(majorUnits.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), DEFAULT_CURRENCY);
+  }
+
+  private static Money ofLegacy(BigDecimal majorUnits) {
+    return new Money(majorUnits.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact(), DEFAULT_CURRENCY);
+  }
+
+  public static Money ofMinor(long minorUnits) {
+    return new Money(minorUnits, DEFAULT_CURRENCY);
+  }
+
+  /**
+   * Reads the {@link #toString()} form, e.g. {@code "120.00 USD"}.
+   */
+  public static Money parse(String text) {
+    int separator = text.indexOf(' ');
+    int point = separator < 0 ? -1 : text.lastIndexOf('.', separator);
+    if (point < 0 || separator - point - 1 != SCALE) {
+      throw new IllegalArgumentException("Expected amount with %s decimals and currency, got '%s'".formatted(SCALE, text));
+    }
+    long minorUnits = Long.parseLong(text.substring(0, point) + text.substring(point + 1, separator));
+    return new Money(minorUnits, text.substring(separator + 1));
+  }
+
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  static Money fromJson(JsonNode json) {
+    if (json.isTextual() && json.asText().indexOf(' ') >= 0) {
+      return parse(json.asText());
+    } else if (json.isNumber() || json.isTextual()) {
+      return ofLegacy(new BigDecimal(json.asText()));
+    } else {
+      return new Money(json.get("minorUnits").asLong(), json.has("currency") ? json.get("currency").asText() : DEFAULT_CURRENCY);
+    }
+  }
+
+  public Money plus(Money other) {
+    checkCurrency(other);
+    return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+  }
+
+  public Money minus(Money other) {
+    checkCurrency(other);
+    return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+  }
+
+  public Money times(int multiplier) {
+    return new Money(Math.multiplyExact(minorUnits, multiplier), currency);
+  }
+
+  public boolean isLessThan(Money other) {
+    checkCurrency(other);
+    return minorUnits < other.minorUnits;
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(minorUnits, SCALE);
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    checkCurrency(other);
+    return Long.compare(minorUnits, other.minorUnits);
+  }
+
+  private void checkCurrency(Money other) {
+    if (!currency.equals(other.currency)) {
+      throw new IllegalArgumentException("Currency mismatch %s and %s".formatted(currency, other.currency));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString() + " " + currency;
+  }
+
+  /**
+   * Writes the compact {@link #toString()} form, for amounts in event payloads.
+   */
+  public static final class CompactSerializer extends StdSerializer<Money> {
+
+    public CompactSerializer() {
+      super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      generator.writeString(money.toString());
+    }
+  }
+}
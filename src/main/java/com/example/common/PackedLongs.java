@@ -0,0 +1,69 @@
+package com.example.common;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Packed form of chunked long arrays for the compact state snapshots. The words of all chunks are written into a
+ * single base64 string: a presence bit per word followed by the non-zero words only, so sparse bitmaps shrink to a bit
+ * per word and random bits take about 11 characters per long instead of up to 20 decimal digits.
+ *
+ * @param chunkSizes number of longs in every chunk, -1 for chunks that were never allocated
+ * @param words      base64 encoded presence bits and big-endian non-zero words of all allocated chunks
+ */
+public record PackedLongs(int[] chunkSizes, String words) {
+
+  public static PackedLongs pack(long[][] chunks) {
+    int[] chunkSizes = new int[chunks.length];
+    int words = 0;
+    int nonZeroWords = 0;
+    for (int chunk = 0; chunk < chunks.length; chunk++) {
+      chunkSizes[chunk] = chunks[chunk] == null ? -1 : chunks[chunk].length;
+      if (chunks[chunk] != null) {
+        words += chunks[chunk].length;
+        for (long word : chunks[chunk]) {
+          if (word != 0) {
+            nonZeroWords++;
+          }
+        }
+      }
+    }
+    int presenceBytes = (words + 7) >>> 3;
+    ByteBuffer bytes = ByteBuffer.allocate(presenceBytes + nonZeroWords * Long.BYTES).position(presenceBytes);
+    int index = 0;
+    for (long[] chunk : chunks) {
+      if (chunk != null) {
+        for (long word : chunk) {
+          if (word != 0) {
+            bytes.put(index >>> 3, (byte) (bytes.get(index >>> 3) | (1 << (index & 7))));
+            bytes.putLong(word);
+          }
+          index++;
+        }
+      }
+    }
+    return new PackedLongs(chunkSizes, Base64.getEncoder().encodeToString(bytes.array()));
+  }
+
+  public long[][] unpack() {
+    ByteBuffer bytes = ByteBuffer.wrap(Base64.getDecoder().decode(words));
+    int words = 0;
+    for (int chunkSize : chunkSizes) {
+      words += Math.max(chunkSize, 0);
+    }
+    bytes.position((words + 7) >>> 3);
+    long[][] chunks = new long[chunkSizes.length][];
+    int index = 0;
+    for (int chunk = 0; chunk < chunkSizes.length; chunk++) {
+      if (chunkSizes[chunk] >= 0) {
+        chunks[chunk] = new long[chunkSizes[chunk]];
+        for (int word = 0; word < chunkSizes[chunk]; word++, index++) {
+          if ((bytes.get(index >>> 3) & (1 << (index & 7))) != 0) {
+            chunks[chunk][word] = bytes.getLong();
+          }
+        }
+      }
+    }
+    return chunks;
+  }
+}
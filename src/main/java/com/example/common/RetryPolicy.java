@@ -0,0 +1,110 @@
+package com.example.common;
+
+import com.typesafe.config.Config;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Retries failed calls with exponential backoff and full jitter: attempt {@code n} waits a random time between zero
+ * and {@code min(maxBackoff, initialBackoff * 2^(n-1))}, so callers failing together do not retry in lockstep.
+ * <p>
+ * Retries are limited by a budget shared by all calls of the policy: every call deposits {@code budgetRatio} of a
+ * retry, every retry withdraws one, with at most {@code budgetReserve} retries saved up. A struggling dependency gets at
+ * most that share of extra load instead of every call multiplied by {@code maxAttempts}. Client errors other than
+ * timeouts and throttling are not retried at all, neither are calls rejected by an open {@link CircuitBreaker}.
+ */
+public class RetryPolicy {
+
+  public record Settings(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budgetRatio,
+                         int budgetReserve) {
+
+    public static Settings of(Config config) {
+      return new Settings(
+        config.getInt("max-attempts"),
+        config.getDuration("initial-backoff"),
+        config.getDuration("max-backoff"),
+        config.getDouble("budget-ratio"),
+        config.getInt("budget-reserve"));
+    }
+  }
+
+  private final Settings settings;
+  private final DoubleSupplier random;
+  private double budget;
+
+  RetryPolicy(Settings settings, DoubleSupplier random) {
+    this.settings = settings;
+    this.random = random;
+    this.budget = settings.budgetReserve();
+  }
+
+  public static RetryPolicy of(Config config) {
+    return new RetryPolicy(Settings.of(config), () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  public <T> CompletionStage<T> retry(Supplier<CompletionStage<T>> call) {
+    deposit();
+    return attempt(call, 1);
+  }
+
+  private <T> CompletionStage<T> attempt(Supplier<CompletionStage<T>> call, int attempt) {
+    return call.get()
+      .thenApply(CompletableFuture::completedFuture)
+      .exceptionally(throwable -> {
+        if (attempt < settings.maxAttempts() && isRetryable(throwable) && withdraw()) {
+          var delay = backoff(attempt);
+          var delayed = CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS);
+          return CompletableFuture.supplyAsync(() -> attempt(call, attempt + 1), delayed)
+            .thenCompose(next -> next);
+        } else {
+          return CompletableFuture.failedFuture(throwable);
+        }
+      })
+      .thenCompose(result -> result);
+  }
+
+  /**
+   * @param attempt number of the failed attempt, starting with 1
+   */
+  Duration backoff(int attempt) {
+    long initial = settings.initialBackoff().toMillis();
+    long cap = settings.maxBackoff().toMillis();
+    long exponential = attempt > 62 ? cap : Math.min(cap, initial << Math.min(attempt - 1, 30));
+    return Duration.ofMillis((long) (random.getAsDouble() * exponential));
+  }
+
+  static boolean isRetryable(Throwable throwable) {
+    Throwable cause = throwable;
+    while (cause != null) {
+      if (cause instanceof CircuitBreaker.OpenException) {
+        return false;
+      } else if (cause instanceof WebClientResponseException responseException) {
+        HttpStatusCode status = responseException.getStatusCode();
+        return status.is5xxServerError() || status.value() == 408 || status.value() == 429;
+      }
+      cause = cause.getCause();
+    }
+    return true;
+  }
+
+  private synchronized void deposit() {
+    budget = Math.min(settings.budgetReserve(), budget + settings.budgetRatio());
+  }
+
+  private synchronized boolean withdraw() {
+    if (budget >= 1) {
+      budget -= 1;
+      return true;
+    } else {
+      return false;
+    }
+  }
+}
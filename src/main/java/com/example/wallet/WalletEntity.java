@@ -1,9 +1,12 @@
 package com.example.wallet;
 
 import com.example.cinema.model.CinemaApiModel;
+import com.example.common.Money;
 import com.example.wallet.model.Wallet;
 import com.example.wallet.model.WalletApiModel;
 import com.example.wallet.model.WalletEvent;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
 import kalix.javasdk.annotations.EventHandler;
 import kalix.javasdk.annotations.ForwardHeaders;
 import kalix.javasdk.annotations.Id;
@@ -18,10 +21,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import java.math.BigDecimal;
 import java.util.function.Function;
 
 import static com.example.wallet.model.WalletApiModel.WalletCommandError.EXPENSE_NOT_FOUND;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.HOLD_NOT_FOUND;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.HOLD_ALREADY_CAPTURED;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.HOLD_ALREADY_RELEASED;
 import static io.grpc.Status.Code.INVALID_ARGUMENT;
 import static kalix.javasdk.StatusCode.ErrorCode.NOT_FOUND;
 
@@ -36,16 +41,25 @@ import static com.example.cinema.model.CinemaApiModel.Response.*;
 @ForwardHeaders("skip-failure-simulation")
 public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
 
+  private static final Wallet.Retention RETENTION = retention(ConfigFactory.load().getConfig("wallet.retention"));
+
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   @Override
   public Wallet emptyState() {
-    return Wallet.EMPTY_WALLET;
+    return Wallet.empty(RETENTION);
+  }
+
+  private static Wallet.Retention retention(Config config) {
+    return new Wallet.Retention(
+      config.getInt("recent-command-ids"),
+      config.getInt("digested-command-ids"),
+      config.getInt("open-expenses"));
   }
 
   @PostMapping("/create/{initialBalance}")
   public Effect<CinemaApiModel.Response> create(@PathVariable String id, @PathVariable int initialBalance) {
-    CreateWallet createWallet = new CreateWallet(id, BigDecimal.valueOf(initialBalance));
+    CreateWallet createWallet = new CreateWallet(id, Money.of(initialBalance));
     return currentState().handleCreate(createWallet).fold(
       error -> errorEffect(error, createWallet),
       event -> persistEffect(event, "wallet created", createWallet)
@@ -85,6 +99,59 @@ public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
     );
   }
 
+  @PatchMapping("/hold/{holdId}")
+  public Effect<CinemaApiModel.Response> hold(@PathVariable String holdId, @RequestBody HoldFunds holdFunds) {
+    if (holdId.equals("42") && commandContext().metadata().get("skip-failure-simulation").isEmpty()) {
+      logger.info("holding funds failed");
+      return effects().error("Unexpected error for holdId=42", INVALID_ARGUMENT);
+    } else {
+      return currentState().handleHold(holdId, holdFunds).fold(
+        error -> errorEffect(error, holdFunds),
+        event -> persistEffect(event, e -> {
+          if (e instanceof FundsHoldRejected) {
+            return Failure.of("funds hold rejected");
+          } else {
+            return Success.of("funds held");
+          }
+        }, holdFunds)
+      );
+    }
+  }
+
+  @PatchMapping("/capture/{holdId}")
+  public Effect<CinemaApiModel.Response> capture(@PathVariable String holdId) {
+    CaptureFunds captureFunds = new CaptureFunds(holdId);
+    return currentState().handleCapture(captureFunds).fold(
+      error -> {
+        //a released or unknown hold must not be reported as captured
+        if (error == HOLD_ALREADY_CAPTURED) {
+          return effects().reply(Success.of("already captured"));
+        } else {
+          return errorEffect(error, captureFunds);
+        }
+      },
+      event -> persistEffect(event, "funds captured", captureFunds)
+    );
+  }
+
+  @PatchMapping("/release/{holdId}")
+  public Effect<CinemaApiModel.Response> release(@PathVariable String holdId) {
+    ReleaseFunds releaseFunds = new ReleaseFunds(holdId);
+    return currentState().handleRelease(releaseFunds).fold(
+      error -> {
+        //a hold that was never made has nothing to release, a captured one must not be reported as released
+        if (error == HOLD_ALREADY_RELEASED) {
+          return effects().reply(Success.of("already released"));
+        } else if (error == HOLD_NOT_FOUND) {
+          return effects().reply(Success.of("ignoring"));
+        } else {
+          return errorEffect(error, releaseFunds);
+        }
+      },
+      event -> persistEffect(event, "funds released", releaseFunds)
+    );
+  }
+
   @GetMapping
   public Effect<WalletApiModel.WalletResponse> get() {
     if (currentState().isEmpty()) {
@@ -141,4 +208,24 @@ public class WalletEntity extends EventSourcedEntity<Wallet, WalletEvent> {
   public Wallet onEvent(WalletChargeRejected walletCharged) {
     return currentState().apply(walletCharged);
   }
+
+  @EventHandler
+  public Wallet onEvent(FundsHeld fundsHeld) {
+    return currentState().apply(fundsHeld);
+  }
+
+  @EventHandler
+  public Wallet onEvent(FundsHoldRejected fundsHoldRejected) {
+    return currentState().apply(fundsHoldRejected);
+  }
+
+  @EventHandler
+  public Wallet onEvent(FundsCaptured fundsCaptured) {
+    return currentState().apply(fundsCaptured);
+  }
+
+  @EventHandler
+  public Wallet onEvent(FundsReleased fundsReleased) {
+    return currentState().apply(fundsReleased);
+  }
 }
@@ -0,0 +1,137 @@
+package com.example.wallet.model;
+
+import com.example.common.PackedLongs;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.Map;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Sliding window of processed command ids. The newest ids, in the order their events were applied, are kept
+ * verbatim. Ids falling out of that window are kept as 64 bit digests in a fixed size ring buffer, overwriting the
+ * oldest digest once the ring is full. The ring is chunked so that recording a digest copies a single chunk. Lookups
+ * go through a persistent hash index of the digests in the ring, which is not stored but rebuilt from the ring.
+ */
+public final class CommandDeduplication {
+
+  private static final int CHUNK_SHIFT = 9;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  public static final CommandDeduplication EMPTY = new CommandDeduplication(LinkedHashSet.empty(), new long[0][], 0);
+
+  private final LinkedHashSet<String> recent;
+  private final long[][] digests;
+  // digests written to the ring, folded back into [capacity, 2 * capacity) once the ring is full so it never overflows
+  private final int digestCount;
+  // digest -> number of ring slots holding it
+  private final Map<Long, Integer> digestIndex;
+
+  private CommandDeduplication(LinkedHashSet<String> recent, long[][] digests, int digestCount) {
+    this(recent, digests, digestCount, indexOf(digests, digestCount));
+  }
+
+  private CommandDeduplication(LinkedHashSet<String> recent, long[][] digests, int digestCount, Map<Long, Integer> digestIndex) {
+    this.recent = recent;
+    this.digests = digests;
+    this.digestCount = digestCount;
+    this.digestIndex = digestIndex;
+  }
+
+  static CommandDeduplication fromSnapshot(Snapshot snapshot) {
+    return new CommandDeduplication(LinkedHashSet.of(snapshot.recent()), snapshot.digests().unpack(), snapshot.digestCount());
+  }
+
+  public boolean contains(String commandId) {
+    return recent.contains(commandId) || digestIndex.containsKey(digest(commandId));
+  }
+
+  public CommandDeduplication add(String commandId, Wallet.Retention retention) {
+    LinkedHashSet<String> updatedRecent = recent.add(commandId);
+    if (updatedRecent.size() <= retention.recentCommandIds()) {
+      return new CommandDeduplication(updatedRecent, digests, digestCount, digestIndex);
+    } else if (retention.digestedCommandIds() <= 0) {
+      return new CommandDeduplication(updatedRecent.tail(), digests, digestCount, digestIndex);
+    } else {
+      long[][] ring = digests.length == 0 ? new long[(retention.digestedCommandIds() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT][] : digests.clone();
+      int capacity = ring.length << CHUNK_SHIFT;
+      int slot = digestCount % capacity;
+      int chunk = slot >>> CHUNK_SHIFT;
+      Map<Long, Integer> updatedIndex = digestIndex;
+      if (digestCount >= capacity) {
+        updatedIndex = unindex(updatedIndex, ring[chunk][slot & (CHUNK_SIZE - 1)]);
+      }
+      long digest = digest(updatedRecent.head());
+      ring[chunk] = ring[chunk] == null ? new long[CHUNK_SIZE] : ring[chunk].clone();
+      ring[chunk][slot & (CHUNK_SIZE - 1)] = digest;
+      int updatedCount = digestCount + 1 < 2 * capacity ? digestCount + 1 : digestCount + 1 - capacity;
+      return new CommandDeduplication(updatedRecent.tail(), ring, updatedCount, index(updatedIndex, digest));
+    }
+  }
+
+  public int recentCount() {
+    return recent.size();
+  }
+
+  public int digestedCount() {
+    return Math.min(digestCount, digests.length << CHUNK_SHIFT);
+  }
+
+  Snapshot toSnapshot() {
+    return new Snapshot(recent.toJavaList().toArray(new String[0]), PackedLongs.pack(digests), digestCount);
+  }
+
+  private static Map<Long, Integer> indexOf(long[][] digests, int digestCount) {
+    Map<Long, Integer> digestIndex = HashMap.empty();
+    int filled = Math.min(digestCount, digests.length << CHUNK_SHIFT);
+    for (int slot = 0; slot < filled; slot++) {
+      digestIndex = index(digestIndex, digests[slot >>> CHUNK_SHIFT][slot & (CHUNK_SIZE - 1)]);
+    }
+    return digestIndex;
+  }
+
+  private static Map<Long, Integer> index(Map<Long, Integer> digestIndex, long digest) {
+    return digestIndex.put(digest, digestIndex.getOrElse(digest, 0) + 1);
+  }
+
+  private static Map<Long, Integer> unindex(Map<Long, Integer> digestIndex, long digest) {
+    int slots = digestIndex.getOrElse(digest, 0);
+    return slots <= 1 ? digestIndex.remove(digest) : digestIndex.put(digest, slots - 1);
+  }
+
+  // FNV-1a over the chars followed by a 64 bit finalizer, deterministic so that replaying events rebuilds the same ring
+  private static long digest(String commandId) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < commandId.length(); i++) {
+      hash ^= commandId.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  /**
+   * Compact form of the command ids in a {@link WalletSnapshot}, ring chunks are packed.
+   */
+  public record Snapshot(String[] recent, PackedLongs digests, int digestCount) {
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof CommandDeduplication other)) return false;
+    return digestCount == other.digestCount && recent.equals(other.recent) && Arrays.deepEquals(digests, other.digests);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(recent, digestCount);
+  }
+
+  @Override
+  public String toString() {
+    return "CommandDeduplication(recent=" + recentCount() + ", digested=" + digestedCount() + ")";
+  }
+}
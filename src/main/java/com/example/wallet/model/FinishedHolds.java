@@ -0,0 +1,26 @@
+package com.example.wallet.model;
+
+/**
+ * Ids of captured and released holds, each in a bounded {@link CommandDeduplication} window, so a repeated capture or
+ * release of a finished hold gets the outcome of the first one instead of looking like an unknown hold.
+ */
+public record FinishedHolds(CommandDeduplication captured, CommandDeduplication released) {
+
+  public static final FinishedHolds EMPTY = new FinishedHolds(CommandDeduplication.EMPTY, CommandDeduplication.EMPTY);
+
+  public boolean isCaptured(String holdId) {
+    return captured.contains(holdId);
+  }
+
+  public boolean isReleased(String holdId) {
+    return released.contains(holdId);
+  }
+
+  public FinishedHolds addCaptured(String holdId, Wallet.Retention retention) {
+    return new FinishedHolds(captured.add(holdId, retention), released);
+  }
+
+  public FinishedHolds addReleased(String holdId, Wallet.Retention retention) {
+    return new FinishedHolds(captured, released.add(holdId, retention));
+  }
+}
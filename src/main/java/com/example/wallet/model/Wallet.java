@@ -1,27 +1,50 @@
 package com.example.wallet.model;
 
-import io.vavr.collection.HashMap;
-import io.vavr.collection.HashSet;
-import io.vavr.collection.Map;
-import io.vavr.collection.Set;
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.vavr.collection.LinkedHashMap;
 import io.vavr.control.Either;
+import kalix.javasdk.annotations.Migration;
 
-import java.math.BigDecimal;
 import java.util.function.Supplier;
 
 import static com.example.wallet.model.WalletApiModel.WalletCommandError.*;
 import static io.vavr.control.Either.left;
 import static io.vavr.control.Either.right;
 
-public record Wallet(String id, BigDecimal balance, Map<String, Expense> expenses,
-                     Set<String> commandIds) {
+/**
+ * @param balance       funds of the wallet, including the ones on hold
+ * @param holds         funds authorized but not captured yet, they can't be charged or held again until released
+ * @param finishedHolds recently captured or released holds, kept with the same retention as command ids
+ */
+@Migration(WalletSnapshotMigration.class)
+public record Wallet(String id, Money balance, LinkedHashMap<String, Expense> expenses, LinkedHashMap<String, Hold> holds,
+                     FinishedHolds finishedHolds, CommandDeduplication commandIds, Retention retention) {
 
-    public Wallet(String id, BigDecimal balance) {
-        this(id, balance, HashMap.empty(), HashSet.empty());
+    public Wallet(String id, Money balance) {
+        this(id, balance, LinkedHashMap.empty(), LinkedHashMap.empty(), FinishedHolds.EMPTY, CommandDeduplication.EMPTY, Retention.DEFAULT);
+    }
+
+    /**
+     * Snapshots are written in the compact {@link WalletSnapshot} form.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    static Wallet fromSnapshot(WalletSnapshot snapshot) {
+        return snapshot.toWallet();
+    }
+
+    @JsonValue
+    public WalletSnapshot toSnapshot() {
+        return WalletSnapshot.of(this);
     }
 
     public static final String EMPTY_WALLET_ID = "";
-    public static Wallet EMPTY_WALLET = new Wallet(EMPTY_WALLET_ID, BigDecimal.ZERO, HashMap.empty(), HashSet.empty());
+    public static Wallet EMPTY_WALLET = empty(Retention.DEFAULT);
+
+    public static Wallet empty(Retention retention) {
+        return new Wallet(EMPTY_WALLET_ID, Money.ZERO, LinkedHashMap.empty(), LinkedHashMap.empty(), FinishedHolds.EMPTY, CommandDeduplication.EMPTY, retention);
+    }
 
 //    public Either<WalletApiModel.WalletCommandError, WalletEvent> process(String expenseId, WalletApiModel.WalletCommand command) {
 //        if (isDuplicate(command)) {
@@ -45,6 +68,13 @@ public record Wallet(String id, BigDecimal balance, Map<String, Expense> expense
         }
     }
 
+    /**
+     * Amounts in another currency are rejected before they are compared with the balance, which would fail.
+     */
+    private boolean isInWalletCurrency(Money amount) {
+        return amount.currency().equals(balance.currency());
+    }
+
     private Either<WalletApiModel.WalletCommandError, WalletEvent> ifExists(Supplier<Either<WalletApiModel.WalletCommandError, WalletEvent>> processingResultSupplier) {
         if (isEmpty()) {
             return left(WALLET_NOT_FOUND);
@@ -68,11 +98,13 @@ public record Wallet(String id, BigDecimal balance, Map<String, Expense> expense
     public Either<WalletApiModel.WalletCommandError, WalletEvent> handleCharge(String expenseId, WalletApiModel.WalletCommand.ChargeWallet charge) {
         if (isDuplicate(charge)) {
             return Either.left(DUPLICATED_COMMAND);
+        } else if (!isInWalletCurrency(charge.amount())) {
+            return left(CURRENCY_MISMATCH);
         } else {
-            if (balance.compareTo(charge.amount()) < 0) {
-                return right(new WalletEvent.WalletChargeRejected(id, expenseId, charge.commandId()));
+            if (available().isLessThan(charge.amount())) {
+                return right(new WalletEvent.WalletChargeRejected(id, expenseId, charge.commandId(), charge.metadata()));
             } else {
-                return right(new WalletEvent.WalletCharged(id, charge.amount(), expenseId, charge.commandId()));
+                return right(new WalletEvent.WalletCharged(id, charge.amount(), expenseId, charge.commandId(), charge.metadata()));
             }
         }
     }
@@ -84,26 +116,115 @@ public record Wallet(String id, BigDecimal balance, Map<String, Expense> expense
         );
     }
 
+    public Either<WalletApiModel.WalletCommandError, WalletEvent> handleHold(String holdId, WalletApiModel.WalletCommand.HoldFunds holdFunds) {
+        if (isDuplicate(holdFunds) || holds.containsKey(holdId)) {
+            return Either.left(DUPLICATED_COMMAND);
+        } else if (!isInWalletCurrency(holdFunds.amount())) {
+            return left(CURRENCY_MISMATCH);
+        } else {
+            if (available().isLessThan(holdFunds.amount())) {
+                return right(new WalletEvent.FundsHoldRejected(id, holdId, holdFunds.commandId(), holdFunds.metadata()));
+            } else {
+                return right(new WalletEvent.FundsHeld(id, holdFunds.amount(), holdId, holdFunds.commandId(), holdFunds.metadata()));
+            }
+        }
+    }
+
+    /**
+     * Capture and release are not deduplicated by command id, a hold is finished once it is captured or released.
+     * Repeating the same outcome on a finished hold is answered with HOLD_ALREADY_CAPTURED or HOLD_ALREADY_RELEASED
+     * respectively, the other outcome with the opposite error, so callers can tell a repeated call from a conflicting
+     * one.
+     */
+    public Either<WalletApiModel.WalletCommandError, WalletEvent> handleCapture(WalletApiModel.WalletCommand.CaptureFunds captureFunds) {
+        return holds.get(captureFunds.holdId()).fold(
+                () -> left(finishedHoldError(captureFunds.holdId())),
+                hold -> right(new WalletEvent.FundsCaptured(id, hold.amount(), hold.holdId()))
+        );
+    }
+
+    public Either<WalletApiModel.WalletCommandError, WalletEvent> handleRelease(WalletApiModel.WalletCommand.ReleaseFunds releaseFunds) {
+        return holds.get(releaseFunds.holdId()).fold(
+                () -> left(finishedHoldError(releaseFunds.holdId())),
+                hold -> right(new WalletEvent.FundsReleased(id, hold.amount(), hold.holdId()))
+        );
+    }
+
+    private WalletApiModel.WalletCommandError finishedHoldError(String holdId) {
+        if (finishedHolds.isCaptured(holdId)) {
+            return HOLD_ALREADY_CAPTURED;
+        } else if (finishedHolds.isReleased(holdId)) {
+            return HOLD_ALREADY_RELEASED;
+        } else {
+            return HOLD_NOT_FOUND;
+        }
+    }
+
     public Wallet apply(WalletEvent event) {
         return switch (event) {
             case WalletEvent.WalletCreated walletCreated ->
-                    new Wallet(walletCreated.walletId(), walletCreated.initialAmount(), expenses, commandIds);
+                    new Wallet(walletCreated.walletId(), walletCreated.initialAmount(), expenses, holds, finishedHolds, commandIds, retention);
             case WalletEvent.WalletCharged charged -> {
                 Expense expense = new Expense(charged.expenseId(), charged.amount());
-                yield new Wallet(id, balance.subtract(charged.amount()), expenses.put(expense.expenseId(), expense), commandIds.add(charged.commandId()));
+                yield new Wallet(id, balance.minus(charged.amount()), addExpense(expense), holds, finishedHolds, commandIds.add(charged.commandId(), retention), retention);
             }
             case WalletEvent.WalletRefunded refunded ->
-                    new Wallet(id, balance.add(refunded.amount()), expenses.remove(refunded.expenseId()), commandIds.add(refunded.commandId()));
+                    new Wallet(id, balance.plus(refunded.amount()), expenses.remove(refunded.expenseId()), holds, finishedHolds, commandIds.add(refunded.commandId(), retention), retention);
+            case WalletEvent.FundsHeld held -> {
+                Hold hold = new Hold(held.holdId(), held.amount());
+                yield new Wallet(id, balance, expenses, holds.put(hold.holdId(), hold), finishedHolds, commandIds.add(held.commandId(), retention), retention);
+            }
+            case WalletEvent.FundsCaptured captured -> {
+                Expense expense = new Expense(captured.holdId(), captured.amount());
+                yield new Wallet(id, balance.minus(captured.amount()), addExpense(expense), holds.remove(captured.holdId()),
+                        finishedHolds.addCaptured(captured.holdId(), retention), commandIds, retention);
+            }
+            case WalletEvent.FundsReleased released ->
+                    new Wallet(id, balance, expenses, holds.remove(released.holdId()), finishedHolds.addReleased(released.holdId(), retention),
+                            commandIds, retention);
+            case WalletEvent.FundsHoldRejected __ -> this;
 //            case WalletEvent.FundsDeposited deposited ->
-//                    new Wallet(id, balance.add(deposited.amount()), expenses, commandIds.add(deposited.commandId()));
+//                    new Wallet(id, balance.plus(deposited.amount()), expenses, commandIds.add(deposited.commandId()));
             case WalletEvent.WalletChargeRejected __ -> this;
         };
     }
 
+    /**
+     * Expenses beyond the retention limit are settled: they are dropped in the order they were charged and can no
+     * longer be refunded.
+     */
+    private LinkedHashMap<String, Expense> addExpense(Expense expense) {
+        LinkedHashMap<String, Expense> updatedExpenses = expenses.put(expense.expenseId(), expense);
+        return updatedExpenses.size() > retention.openExpenses() ? updatedExpenses.tail() : updatedExpenses;
+    }
+
+    public Money held() {
+        return holds.values().foldLeft(new Money(0, balance.currency()), (held, hold) -> held.plus(hold.amount()));
+    }
+
+    /**
+     * @return funds that can be charged or held
+     */
+    public Money available() {
+        return balance.minus(held());
+    }
+
     public boolean isEmpty() {
         return id.equals(EMPTY_WALLET_ID);
     }
 
-    public static final record Expense(String expenseId, BigDecimal amount) {
+    public static final record Expense(String expenseId, Money amount) {
       }
+
+    public static final record Hold(String holdId, Money amount) {
+    }
+
+    /**
+     * @param recentCommandIds   command ids kept verbatim for deduplication
+     * @param digestedCommandIds older command ids kept as 64 bit digests, beyond that ids are forgotten
+     * @param openExpenses       expenses that can still be refunded, older ones are settled
+     */
+    public static final record Retention(int recentCommandIds, int digestedCommandIds, int openExpenses) {
+        public static final Retention DEFAULT = new Retention(1_000, 10_000, 1_000);
+    }
 }
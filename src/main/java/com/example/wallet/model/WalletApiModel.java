@@ -1,8 +1,11 @@
 package com.example.wallet.model;
 
+import com.example.common.Money;
 import com.example.wallet.model.Wallet;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 
-import java.math.BigDecimal;
+import java.util.Map;
 
 public interface WalletApiModel {
     sealed interface WalletCommand {
@@ -11,26 +14,59 @@ public interface WalletApiModel {
             String commandId();
         }
 
-        record CreateWallet(String walletId, BigDecimal initialAmount) implements WalletCommand {
+        record CreateWallet(String walletId, Money initialAmount) implements WalletCommand {
         }
 
-        record ChargeWallet(BigDecimal amount/*, String expenseId*/, String commandId) implements RequiresDeduplicationCommand {
+        /**
+         * @param metadata opaque to the wallet, echoed in the resulting {@link WalletEvent.WalletCharged} or
+         *                 {@link WalletEvent.WalletChargeRejected} so that subscribers can route them without a lookup
+         */
+        record ChargeWallet(Money amount/*, String expenseId*/, String commandId,
+                            @JsonSetter(nulls = Nulls.AS_EMPTY) Map<String, String> metadata) implements RequiresDeduplicationCommand {
+
+            public ChargeWallet(Money amount, String commandId) {
+                this(amount, commandId, Map.of());
+            }
         }
 
         record Refund(/*String expenseId,*/ String commandId) implements RequiresDeduplicationCommand {
         }
 
-//        record DepositFunds(BigDecimal amount, String commandId) implements RequiresDeduplicationCommand {
+        /**
+         * Authorizes {@code amount} without charging it, the hold is later captured or released.
+         *
+         * @param metadata opaque to the wallet, echoed in the resulting {@link WalletEvent.FundsHeld} or
+         *                 {@link WalletEvent.FundsHoldRejected}
+         */
+        record HoldFunds(Money amount, String commandId,
+                         @JsonSetter(nulls = Nulls.AS_EMPTY) Map<String, String> metadata) implements RequiresDeduplicationCommand {
+
+            public HoldFunds(Money amount, String commandId) {
+                this(amount, commandId, Map.of());
+            }
+        }
+
+        record CaptureFunds(String holdId) implements WalletCommand {
+        }
+
+        record ReleaseFunds(String holdId) implements WalletCommand {
+        }
+
+//        record DepositFunds(Money amount, String commandId) implements RequiresDeduplicationCommand {
 //        }
     }
 
     enum WalletCommandError {
-        WALLET_ALREADY_EXISTS, WALLET_NOT_FOUND, NOT_SUFFICIENT_FUNDS, DEPOSIT_LE_ZERO, DUPLICATED_COMMAND, EXPENSE_NOT_FOUND
+        WALLET_ALREADY_EXISTS, WALLET_NOT_FOUND, NOT_SUFFICIENT_FUNDS, DEPOSIT_LE_ZERO, DUPLICATED_COMMAND, EXPENSE_NOT_FOUND, HOLD_NOT_FOUND,
+        HOLD_ALREADY_CAPTURED, HOLD_ALREADY_RELEASED, CURRENCY_MISMATCH
     }
 
-    record WalletResponse(String id, BigDecimal balance) {
+    /**
+     * @param held part of the balance on hold
+     */
+    record WalletResponse(String id, Money balance, Money held) {
       public static WalletResponse from(Wallet wallet) {
-        return new WalletResponse(wallet.id(), wallet.balance());
+        return new WalletResponse(wallet.id(), wallet.balance(), wallet.held());
       }
     }
 }
@@ -1,26 +1,68 @@
 package com.example.wallet.model;
 
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import kalix.javasdk.annotations.TypeName;
 
-import java.math.BigDecimal;
+import java.util.Map;
 
 sealed public interface WalletEvent {
 
     @TypeName("wallet-created")
-    record WalletCreated(String walletId, BigDecimal initialAmount) implements WalletEvent {
+    record WalletCreated(String walletId,
+                         @JsonSerialize(using = Money.CompactSerializer.class) Money initialAmount) implements WalletEvent {
     }
 
+    /**
+     * @param metadata echoed from {@link WalletApiModel.WalletCommand.ChargeWallet#metadata()}, empty in events
+     *                 written before it was introduced
+     */
     @TypeName("wallet-charged")
-    record WalletCharged(String walletId, BigDecimal amount, String expenseId,
-                         String commandId) implements WalletEvent {
+    record WalletCharged(String walletId, @JsonSerialize(using = Money.CompactSerializer.class) Money amount, String expenseId,
+                         String commandId, @JsonSetter(nulls = Nulls.AS_EMPTY) Map<String, String> metadata) implements WalletEvent {
+
+        public WalletCharged(String walletId, Money amount, String expenseId, String commandId) {
+            this(walletId, amount, expenseId, commandId, Map.of());
+        }
     }
 
     @TypeName("wallet-refunded")
-    record WalletRefunded(String walletId, BigDecimal amount, String expenseId,
+    record WalletRefunded(String walletId, @JsonSerialize(using = Money.CompactSerializer.class) Money amount, String expenseId,
                           String commandId) implements WalletEvent {
     }
 
     @TypeName("wallet-charge-rejected")
-    record WalletChargeRejected(String walletId, String expenseId, String commandId) implements WalletEvent {
+    record WalletChargeRejected(String walletId, String expenseId, String commandId,
+                                @JsonSetter(nulls = Nulls.AS_EMPTY) Map<String, String> metadata) implements WalletEvent {
+
+        public WalletChargeRejected(String walletId, String expenseId, String commandId) {
+            this(walletId, expenseId, commandId, Map.of());
+        }
+    }
+
+    /**
+     * @param metadata echoed from {@link WalletApiModel.WalletCommand.HoldFunds#metadata()}
+     */
+    @TypeName("funds-held")
+    record FundsHeld(String walletId, @JsonSerialize(using = Money.CompactSerializer.class) Money amount,
+                     String holdId, String commandId,
+                     @JsonSetter(nulls = Nulls.AS_EMPTY) Map<String, String> metadata) implements WalletEvent {
+    }
+
+    @TypeName("funds-hold-rejected")
+    record FundsHoldRejected(String walletId, String holdId, String commandId,
+                             @JsonSetter(nulls = Nulls.AS_EMPTY) Map<String, String> metadata) implements WalletEvent {
+    }
+
+    @TypeName("funds-captured")
+    record FundsCaptured(String walletId, @JsonSerialize(using = Money.CompactSerializer.class) Money amount,
+                         String holdId) implements WalletEvent {
+    }
+
+    @TypeName("funds-released")
+    record FundsReleased(String walletId, @JsonSerialize(using = Money.CompactSerializer.class) Money amount,
+                         String holdId) implements WalletEvent {
     }
 }
@@ -0,0 +1,66 @@
+package com.example.wallet.model;
+
+import com.example.common.Money;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import io.vavr.collection.LinkedHashMap;
+
+/**
+ * Compact, versioned form of {@link Wallet} written to entity snapshots. Open expenses are stored as columns of ids
+ * and amounts in minor units of the wallet currency, holds the same way, digests of processed command ids are
+ * stored as {@link com.example.common.PackedLongs}, finished hold ids the same way. Snapshots written before holds
+ * were introduced have none, snapshots written before finished holds were kept have no finished holds.
+ * Reflectively written snapshots of the previous state are converted by {@link WalletSnapshotMigration}.
+ */
+public record WalletSnapshot(int version, String id, Money balance, String[] expenseIds, long[] expenseAmounts,
+                             @JsonSetter(nulls = Nulls.AS_EMPTY) String[] holdIds,
+                             @JsonSetter(nulls = Nulls.AS_EMPTY) long[] holdAmounts,
+                             CommandDeduplication.Snapshot capturedHolds, CommandDeduplication.Snapshot releasedHolds,
+                             CommandDeduplication.Snapshot commandIds, Wallet.Retention retention) {
+
+  public static final int VERSION = 1;
+
+  public static WalletSnapshot of(Wallet wallet) {
+    String[] expenseIds = new String[wallet.expenses().size()];
+    long[] expenseAmounts = new long[expenseIds.length];
+    int expense = 0;
+    for (Wallet.Expense open : wallet.expenses().values()) {
+      expenseIds[expense] = open.expenseId();
+      expenseAmounts[expense] = open.amount().minorUnits();
+      expense++;
+    }
+    String[] holdIds = new String[wallet.holds().size()];
+    long[] holdAmounts = new long[holdIds.length];
+    int hold = 0;
+    for (Wallet.Hold open : wallet.holds().values()) {
+      holdIds[hold] = open.holdId();
+      holdAmounts[hold] = open.amount().minorUnits();
+      hold++;
+    }
+    return new WalletSnapshot(VERSION, wallet.id(), wallet.balance(), expenseIds, expenseAmounts, holdIds, holdAmounts,
+      wallet.finishedHolds().captured().toSnapshot(), wallet.finishedHolds().released().toSnapshot(),
+      wallet.commandIds().toSnapshot(), wallet.retention());
+  }
+
+  public Wallet toWallet() {
+    if (version != VERSION) {
+      throw new IllegalStateException("Unsupported wallet snapshot version %s, expected %s".formatted(version, VERSION));
+    }
+    LinkedHashMap<String, Wallet.Expense> expenses = LinkedHashMap.empty();
+    for (int expense = 0; expense < expenseIds.length; expense++) {
+      Money amount = new Money(expenseAmounts[expense], balance.currency());
+      expenses = expenses.put(expenseIds[expense], new Wallet.Expense(expenseIds[expense], amount));
+    }
+    LinkedHashMap<String, Wallet.Hold> holds = LinkedHashMap.empty();
+    for (int hold = 0; hold < holdIds.length; hold++) {
+      Money amount = new Money(holdAmounts[hold], balance.currency());
+      holds = holds.put(holdIds[hold], new Wallet.Hold(holdIds[hold], amount));
+    }
+    FinishedHolds finishedHolds = new FinishedHolds(finishedHoldsOf(capturedHolds), finishedHoldsOf(releasedHolds));
+    return new Wallet(id, balance, expenses, holds, finishedHolds, CommandDeduplication.fromSnapshot(commandIds), retention);
+  }
+
+  private static CommandDeduplication finishedHoldsOf(CommandDeduplication.Snapshot snapshot) {
+    return snapshot == null ? CommandDeduplication.EMPTY : CommandDeduplication.fromSnapshot(snapshot);
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.wallet.model;
+
+import com.example.common.LegacyJson;
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vavr.collection.LinkedHashMap;
+import kalix.javasdk.JsonMigration;
+
+/**
+ * Version 0 of {@link Wallet} was written reflectively: a decimal balance, a map of every expense and the set of all
+ * processed command ids. Version 1 is the {@link WalletSnapshot}. Snapshots written in the compact form before the
+ * version was tagged carry their own {@code version} field and are left as they are.
+ */
+public class WalletSnapshotMigration extends JsonMigration {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Override
+  public int currentVersion() {
+    return 1;
+  }
+
+  @Override
+  public JsonNode transform(int fromVersion, JsonNode json) {
+    if (fromVersion < 1 && !json.has("version")) {
+      return OBJECT_MAPPER.valueToTree(fromBaseline(json));
+    }
+    return json;
+  }
+
+  static Wallet fromBaseline(JsonNode json) {
+    LinkedHashMap<String, Wallet.Expense> expenses = LinkedHashMap.empty();
+    for (var expense : LegacyJson.entries(json.get("expenses"))) {
+      Money amount = OBJECT_MAPPER.convertValue(expense.getValue().get("amount"), Money.class);
+      expenses = expenses.put(expense.getKey(), new Wallet.Expense(expense.getKey(), amount));
+    }
+    CommandDeduplication commandIds = CommandDeduplication.EMPTY;
+    for (JsonNode commandId : json.get("commandIds")) {
+      commandIds = commandIds.add(commandId.asText(), Wallet.Retention.DEFAULT);
+    }
+    return new Wallet(json.get("id").asText(), OBJECT_MAPPER.convertValue(json.get("balance"), Money.class),
+      expenses, LinkedHashMap.empty(), FinishedHolds.EMPTY, commandIds, Wallet.Retention.DEFAULT);
+  }
+}
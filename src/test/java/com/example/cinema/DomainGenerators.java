@@ -1,8 +1,8 @@
 package com.example.cinema;
 
 import com.example.cinema.model.Show;
+import com.example.common.Money;
 
-import java.math.BigDecimal;
 import java.util.Random;
 import java.util.UUID;
 
@@ -25,8 +25,8 @@ public class DomainGenerators {
     return UUID.randomUUID().toString();
   }
 
-  public static BigDecimal randomPrice() {
-    return BigDecimal.valueOf(random.nextInt(200) + 50);
+  public static Money randomPrice() {
+    return Money.of(random.nextInt(200) + 50);
   }
 
   public static String randomTitle() {
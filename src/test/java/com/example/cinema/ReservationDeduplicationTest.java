@@ -0,0 +1,66 @@
+package com.example.cinema;
+
+import com.example.cinema.model.ReservationDeduplication;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static com.example.cinema.DomainGenerators.randomReservationId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationDeduplicationTest {
+
+  private final ReservationDeduplication.Settings settings = new ReservationDeduplication.Settings(10, 100, 0.000_001);
+
+  @Test
+  public void shouldDetectDuplicatesWithinRecentWindowAndFilters() {
+    //given
+    var deduplication = ReservationDeduplication.empty(settings);
+    var reservationIds = new ArrayList<String>();
+
+    //when
+    for (int i = 0; i < 150; i++) {
+      var reservationId = randomReservationId();
+      reservationIds.add(reservationId);
+      deduplication = deduplication.add(reservationId);
+    }
+
+    //then
+    for (String reservationId : reservationIds) {
+      assertThat(deduplication.contains(reservationId)).isTrue();
+    }
+    assertThat(deduplication.contains(randomReservationId())).isFalse();
+  }
+
+  @Test
+  public void shouldForgetCancellationOnceNotRecent() {
+    //given
+    var cancelledId = randomReservationId();
+    var deduplication = ReservationDeduplication.empty(settings).addCancelled(cancelledId);
+
+    //when
+    for (int i = 0; i < settings.recentReservations(); i++) {
+      deduplication = deduplication.add(randomReservationId());
+    }
+
+    //then
+    assertThat(deduplication.containsRecentCancelled(cancelledId)).isFalse();
+    assertThat(deduplication.recentCancelled().isEmpty()).isTrue();
+    assertThat(deduplication.contains(cancelledId)).isTrue();
+  }
+
+  @Test
+  public void shouldKeepStateBounded() {
+    //given
+    var deduplication = ReservationDeduplication.empty(settings);
+
+    //when
+    for (int i = 0; i < 10_000; i++) {
+      deduplication = deduplication.add(randomReservationId());
+    }
+
+    //then
+    assertThat(deduplication.recentCount()).isEqualTo(settings.recentReservations());
+    assertThat(deduplication.filteredCount()).isLessThanOrEqualTo(2 * settings.filteredReservations());
+  }
+}
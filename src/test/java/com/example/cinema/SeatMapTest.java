@@ -0,0 +1,113 @@
+package com.example.cinema;
+
+import com.example.cinema.model.SeatMap;
+import com.example.cinema.model.Show;
+import com.example.cinema.model.VenueLayout;
+import com.example.common.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.example.cinema.model.Show.SeatStatus.AVAILABLE;
+import static com.example.cinema.model.Show.SeatStatus.PAID;
+import static com.example.cinema.model.Show.SeatStatus.RESERVED;
+import static com.example.cinema.model.Show.ShowCreator.createSeats;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatMapTest {
+
+  @Test
+  public void shouldExposeSeatsCreatedFromList() {
+    //given
+    var seats = createSeats(Money.of(100), 10);
+
+    //when
+    var seatMap = SeatMap.of(seats);
+
+    //then
+    assertThat(seatMap.size()).isEqualTo(10);
+    assertThat(seatMap.availableCount()).isEqualTo(10);
+    assertThat(seatMap.toList()).isEqualTo(seats);
+    assertThat(seatMap.get(10).isEmpty()).isTrue();
+    assertThat(seatMap.get(-1).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldChangeSeatStatusWithoutModifyingOriginal() {
+    //given
+    var seatMap = SeatMap.of(createSeats(Money.of(100), 10_000));
+
+    //when
+    var reserved = seatMap.reserve(5000);
+    var paid = reserved.pay(5000);
+    var released = reserved.release(5000);
+
+    //then
+    assertThat(seatMap.status(5000)).isEqualTo(AVAILABLE);
+    assertThat(reserved.status(5000)).isEqualTo(RESERVED);
+    assertThat(paid.status(5000)).isEqualTo(PAID);
+    assertThat(released.status(5000)).isEqualTo(AVAILABLE);
+    assertThat(reserved.availableCount()).isEqualTo(9_999);
+    assertThat(released).isEqualTo(seatMap);
+  }
+
+  @Test
+  public void shouldShareSingleTierWhenOverridingSeatPrice() {
+    //given
+    var seatMap = SeatMap.of(createSeats(Money.of(100), 10));
+
+    //when
+    var updated = seatMap.withSeat(new Show.Seat(3, RESERVED, Money.of(123)));
+
+    //then
+    assertThat(updated.get(3).get()).isEqualTo(new Show.Seat(3, RESERVED, Money.of(123)));
+    assertThat(updated.price(2)).isEqualTo(Money.of(100));
+    assertThat(updated.price(4)).isEqualTo(Money.of(100));
+  }
+
+  @Test
+  public void shouldFindAdjacentSeatsClosestToRowMiddle() {
+    //given
+    var layout = new VenueLayout(List.of(Money.of(100)), List.of(new VenueLayout.Section("stalls", 2, 10, 0)));
+    var seatMap = SeatMap.of(layout).reserve(4).reserve(5);
+
+    //when
+    var firstRow = seatMap.findAdjacentAvailable(4);
+    var secondRow = seatMap.findAdjacentAvailable(6);
+    var tooMany = seatMap.findAdjacentAvailable(11);
+
+    //then
+    assertThat(firstRow.get()).isEqualTo(List.of(0, 1, 2, 3));
+    assertThat(secondRow.get()).isEqualTo(List.of(12, 13, 14, 15, 16, 17));
+    assertThat(tooMany.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldTrackFreeRunsWhenSeatsAreReservedAndReleased() {
+    //given
+    var layout = new VenueLayout(List.of(Money.of(100)), List.of(new VenueLayout.Section("stalls", 1, 10, 0)));
+    var seatMap = SeatMap.of(layout).reserve(3).reserve(7);
+
+    //when
+    var beforeRelease = seatMap.findAdjacentAvailable(4);
+    var afterRelease = seatMap.release(7).findAdjacentAvailable(4);
+    var afterPayment = seatMap.pay(3).findAdjacentAvailable(4);
+
+    //then
+    assertThat(beforeRelease.isEmpty()).isTrue();
+    assertThat(afterRelease.get()).isEqualTo(List.of(4, 5, 6, 7));
+    assertThat(afterPayment.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldListAvailableSeatsAsRanges() {
+    //given
+    var seatMap = SeatMap.of(createSeats(Money.of(100), 10_000)).reserve(0).reserve(70).pay(71).reserve(9_999);
+
+    //when
+    var ranges = seatMap.availableRanges();
+
+    //then
+    assertThat(ranges).containsExactly(new SeatMap.SeatRange(1, 69), new SeatMap.SeatRange(72, 9_998));
+  }
+}
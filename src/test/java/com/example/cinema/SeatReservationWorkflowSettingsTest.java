@@ -0,0 +1,48 @@
+package com.example.cinema;
+
+import com.example.common.LatencyTracker;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.example.cinema.SeatReservationWorkflow.CHARGE_WALLET_STEP;
+import static com.example.cinema.SeatReservationWorkflow.RESERVE_SEAT_STEP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatReservationWorkflowSettingsTest {
+
+  private final SeatReservationWorkflowSettings settings = SeatReservationWorkflowSettings.of(ConfigFactory.parseString("""
+    parallel-reserve-and-charge = off
+    steps {
+      default { timeout = 3s, max-retries = 3 }
+      charge-wallet { timeout = 2s }
+    }
+    adaptive-timeouts { enabled = on, percentile = 99, multiplier = 3.0, window = 100, min-samples = 10, min = 500ms, max = 10s }
+    """));
+
+  @Test
+  public void shouldFallBackToDefaultStepSettings() {
+    assertThat(settings.step(CHARGE_WALLET_STEP)).isEqualTo(new SeatReservationWorkflowSettings.StepSettings(Duration.ofSeconds(2), 3));
+    assertThat(settings.step(RESERVE_SEAT_STEP)).isEqualTo(new SeatReservationWorkflowSettings.StepSettings(Duration.ofSeconds(3), 3));
+  }
+
+  @Test
+  public void shouldDeriveTimeoutFromObservedLatencies() {
+    //given
+    var stepLatencies = new LatencyTracker(100);
+    for (int i = 0; i < 10; i++) {
+      stepLatencies.record(CHARGE_WALLET_STEP, Duration.ofMillis(400));
+      stepLatencies.record(RESERVE_SEAT_STEP, Duration.ofMillis(50));
+    }
+    stepLatencies.record("refund", Duration.ofSeconds(1));
+
+    //when
+    var chargeWalletTimeout = settings.timeout(CHARGE_WALLET_STEP, stepLatencies);
+
+    //then
+    assertThat(chargeWalletTimeout).isEqualTo(Duration.ofMillis(1200));
+    assertThat(settings.timeout(RESERVE_SEAT_STEP, stepLatencies)).isEqualTo(Duration.ofMillis(500));
+    assertThat(settings.timeout("refund", stepLatencies)).isEqualTo(Duration.ofSeconds(3));
+  }
+}
@@ -1,8 +1,10 @@
 package com.example.cinema;
 
+import com.example.cinema.model.ReservationDeduplication;
+import com.example.cinema.model.SeatMap;
 import com.example.cinema.model.Show;
-import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
 import io.vavr.collection.Map;
 
 import java.util.List;
@@ -16,8 +18,8 @@ public class ShowBuilder {
   final static int MAX_SEATS = 100;
   private String id = randomShowId();
   private String title = "Random title";
-  private Map<Integer, Show.Seat> seats = HashMap.empty();
-  private Map<String, Integer> pendingReservations = HashMap.empty();
+  private SeatMap seats = SeatMap.empty();
+  private Map<String, List<Integer>> pendingReservations = HashMap.empty();
 
   public static ShowBuilder
 
@@ -30,19 +32,21 @@ public class ShowBuilder {
   }
 
   public ShowBuilder withRandomSeats() {
-    List<Tuple2<Integer, Show.Seat>> seatTuples = createSeats(randomPrice(), MAX_SEATS)
-        .stream().map(seat -> new Tuple2<>(seat.number(), seat)).toList();
-    this.seats = HashMap.ofEntries(seatTuples);
+    return withRandomSeats(MAX_SEATS);
+  }
+
+  public ShowBuilder withRandomSeats(int maxSeats) {
+    this.seats = SeatMap.of(createSeats(randomPrice(), maxSeats));
     return this;
   }
 
   public ShowBuilder withSeatReservation(Show.Seat seat, String reservationId) {
-    seats = seats.put(seat.number(), seat);
-    pendingReservations = pendingReservations.put(reservationId, seat.number());
+    seats = seats.withSeat(seat);
+    pendingReservations = pendingReservations.put(reservationId, List.of(seat.number()));
     return this;
   }
 
   public Show build() {
-    return new Show(id, title, seats, pendingReservations, HashMap.empty(),seats.size());
+    return new Show(id, title, seats, pendingReservations, ReservationDeduplication.empty(ReservationDeduplication.Settings.DEFAULT),seats.size(), false, Show.ReservationExpiry.NONE, LinkedHashMap.empty());
   }
 }
@@ -1,12 +1,15 @@
 package com.example.cinema;
 
 import com.example.cinema.model.CinemaApiModel;
+import com.example.cinema.model.SeatMap;
 import com.example.cinema.model.Show;
 import com.example.cinema.model.ShowEvent;
 import kalix.javasdk.testkit.EventSourcedResult;
 import kalix.javasdk.testkit.EventSourcedTestKit;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static com.example.cinema.DomainGenerators.randomReservationId;
 import static com.example.cinema.DomainGenerators.randomShowId;
 import static com.example.cinema.DomainGenerators.randomWalletId;
@@ -40,4 +43,63 @@ class ShowEntityTest {
     var availableSeats = testKit.getState().availableSeats();
     assertThat(availableSeats).isEqualTo(maxSeats-1);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldReserveAndConfirmSeatsAtOnce() {
+    //given
+    var showId = randomShowId();
+    var reservationId = randomReservationId();
+    var maxSeats = 100;
+    EventSourcedTestKit<Show, ShowEvent, ShowEntity> testKit = EventSourcedTestKit.of(ShowEntity::new);
+    var createShow = new CinemaApiModel.ShowCommand.CreateShow("title", maxSeats);
+    var reserveSeats = new CinemaApiModel.ShowCommand.ReserveSeats(randomWalletId(), reservationId, List.of(1, 2, 3));
+
+    //when
+    testKit.call(s -> s.create(showId, createShow));
+    EventSourcedResult<CinemaApiModel.Response> reserved = testKit.call(s -> s.reserveSeats(reserveSeats));
+    EventSourcedResult<CinemaApiModel.Response> confirmed = testKit.call(s -> s.confirmPayment(reservationId));
+
+    //then
+    assertThat(reserved.getAllEvents()).hasSize(1);
+    assertThat(confirmed.getNextEventOfType(ShowEvent.SeatsReservationPaid.class).seatNumbers()).containsExactly(1, 2, 3);
+    assertThat(testKit.getState().seats().get(3).get().status()).isEqualTo(PAID);
+    assertThat(testKit.getState().availableSeats()).isEqualTo(maxSeats - 3);
+  }
+
+  @Test
+  public void shouldAnswerRetriedConfirmationAsSuccess() {
+    //given
+    var showId = randomShowId();
+    var reservationId = randomReservationId();
+    EventSourcedTestKit<Show, ShowEvent, ShowEntity> testKit = EventSourcedTestKit.of(ShowEntity::new);
+    testKit.call(s -> s.create(showId, new CinemaApiModel.ShowCommand.CreateShow("title", 100)));
+    testKit.call(s -> s.reserve(new CinemaApiModel.ShowCommand.ReserveSeat(randomWalletId(), reservationId, 1)));
+    testKit.call(s -> s.confirmPayment(reservationId));
+
+    //when
+    EventSourcedResult<CinemaApiModel.Response> retried = testKit.call(s -> s.confirmPayment(reservationId));
+
+    //then
+    assertThat(retried.getReply()).isInstanceOf(CinemaApiModel.Response.Success.class);
+    assertThat(retried.getAllEvents()).isEmpty();
+    assertThat(testKit.getState().seats().get(1).get().status()).isEqualTo(PAID);
+  }
+
+  @Test
+  public void shouldReturnAvailableSeatsAsRanges() {
+    //given
+    var showId = randomShowId();
+    EventSourcedTestKit<Show, ShowEvent, ShowEntity> testKit = EventSourcedTestKit.of(ShowEntity::new);
+    var createShow = new CinemaApiModel.ShowCommand.CreateShow("title", 100);
+    var reserveSeats = new CinemaApiModel.ShowCommand.ReserveSeats(randomWalletId(), randomReservationId(), List.of(10, 11, 12));
+
+    //when
+    testKit.call(s -> s.create(showId, createShow));
+    testKit.call(s -> s.reserveSeats(reserveSeats));
+    EventSourcedResult<CinemaApiModel.AvailableSeatsResponse> result = testKit.call(ShowEntity::getAvailableSeats);
+
+    //then
+    assertThat(result.getReply()).isEqualTo(new CinemaApiModel.AvailableSeatsResponse(showId, 97,
+      List.of(new SeatMap.SeatRange(0, 9), new SeatMap.SeatRange(13, 99))));
+  }
+}
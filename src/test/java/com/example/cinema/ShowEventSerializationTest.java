@@ -0,0 +1,28 @@
+package com.example.cinema;
+
+import com.example.cinema.model.ShowEvent.SeatsReserved;
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShowEventSerializationTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldWriteSeatNumbersAsRanges() throws Exception {
+    //given
+    var seatsReserved = new SeatsReserved("s1", "w1", "r1", List.of(2, 3, 4, 5, 9), Money.of(500), 95);
+
+    //when
+    var json = objectMapper.writeValueAsString(seatsReserved);
+
+    //then
+    assertThat(json).contains("\"seatNumbers\":\"2-5,9\"", "\"price\":\"500.00 USD\"");
+    assertThat(objectMapper.readValue(json, SeatsReserved.class)).isEqualTo(seatsReserved);
+  }
+}
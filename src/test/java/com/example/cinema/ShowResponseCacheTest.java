@@ -0,0 +1,87 @@
+package com.example.cinema;
+
+import com.example.cinema.model.CinemaApiModel.ShowResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.example.cinema.DomainGenerators.randomShowId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShowResponseCacheTest {
+
+  private final MutableClock clock = new MutableClock();
+
+  @Test
+  public void shouldEvictLeastRecentlyReadShow() {
+    //given
+    var cache = new ShowResponseCache(2, Duration.ofMinutes(1), clock);
+    var first = showResponse();
+    var second = showResponse();
+    var third = showResponse();
+    cache.put(first.id(), first);
+    cache.put(second.id(), second);
+    cache.get(first.id());
+
+    //when
+    cache.put(third.id(), third);
+
+    //then
+    assertThat(cache.get(first.id())).contains(first);
+    assertThat(cache.get(second.id())).isEmpty();
+    assertThat(cache.get(third.id())).contains(third);
+    assertThat(cache.stats()).isEqualTo(new ShowResponseCache.Stats(3, 1, 1, 2));
+  }
+
+  @Test
+  public void shouldDropInvalidatedAndStaleShows() {
+    //given
+    var cache = new ShowResponseCache(10, Duration.ofSeconds(1), clock);
+    var invalidated = showResponse();
+    var stale = showResponse();
+    cache.put(invalidated.id(), invalidated);
+    cache.put(stale.id(), stale);
+
+    //when
+    cache.invalidate(invalidated.id());
+    clock.advance(Duration.ofSeconds(2));
+
+    //then
+    assertThat(cache.get(invalidated.id())).isEmpty();
+    assertThat(cache.get(stale.id())).isEmpty();
+    assertThat(cache.stats().size()).isZero();
+  }
+
+  private static ShowResponse showResponse() {
+    return new ShowResponse(randomShowId(), "title", List.of());
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2023-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.cinema;
+
+import com.example.cinema.model.ReservationDeduplication;
+import com.example.cinema.model.Show;
+import com.example.cinema.model.ShowEvent;
+import com.example.cinema.model.ShowSections;
+import com.example.cinema.model.ShowSnapshot;
+import com.example.cinema.model.ShowSnapshotMigration;
+import com.example.cinema.model.VenueLayout;
+import com.example.common.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.example.cinema.DomainGenerators.randomShowId;
+import static com.example.cinema.DomainGenerators.randomWalletId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShowSnapshotTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldRestoreShowFromCompactSnapshot() throws Exception {
+    //given
+    var show = showWithReservations(10_000);
+
+    //when
+    var json = objectMapper.writeValueAsString(show);
+    var restored = objectMapper.readValue(json, Show.class);
+
+    //then
+    assertThat(restored).isEqualTo(show);
+    assertThat(restored.pendingReservations().get("pending-1").get()).containsExactly(2, 3);
+    assertThat(objectMapper.readTree(json).get("version").asInt()).isEqualTo(ShowSnapshot.VERSION);
+  }
+
+  @Test
+  public void shouldRejectUnknownSnapshotVersion() {
+    //given
+    var snapshot = showWithReservations(100).toSnapshot();
+
+    //when
+    var future = new ShowSnapshot(ShowSnapshot.VERSION + 1, snapshot.id(), snapshot.title(), snapshot.availableSeats(),
+      snapshot.seats(), snapshot.pendingReservationIds(), snapshot.pendingSeatCounts(), snapshot.pendingSeatNumbers(),
+      snapshot.finishedReservations(), snapshot.availabilityFlushPending(), snapshot.reservationExpiryScheduled(),
+      snapshot.expiringReservationIds(), snapshot.reservationExpirySweep(), snapshot.sectionShowIds(),
+      snapshot.sectionAvailableSeats());
+
+    //then
+    assertThatThrownBy(future::toShow).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldRestoreShardedShow() throws Exception {
+    //given
+    var showId = randomShowId();
+    var layout = new VenueLayout(List.of(Money.of(100)),
+      List.of(new VenueLayout.Section("stalls", 10, 20, 0), new VenueLayout.Section("balcony", 5, 10, 0)));
+    var show = Show.create(new ShowEvent.ShowCreated(showId, new Show.InitialShow(showId, "title", layout)))
+      .apply(new ShowEvent.ShowSharded(showId, "title", layout))
+      .apply(new ShowEvent.SectionAvailabilityUpdated(showId, ShowSections.sectionShowId(showId, 1), 42, 242));
+
+    //when
+    var restored = objectMapper.readValue(objectMapper.writeValueAsString(show), Show.class);
+
+    //then
+    assertThat(restored).isEqualTo(show);
+    assertThat(restored.sectionAvailableSeats().keySet().toJavaList())
+      .containsExactly(ShowSections.sectionShowId(showId, 0), ShowSections.sectionShowId(showId, 1));
+  }
+
+  @Test
+  public void shouldMigrateBaselineSnapshot() throws Exception {
+    //given
+    var baseline = """
+      {"id": "show-1", "title": "title",
+       "seats": {
+         "0": {"number": 0, "status": "PAID", "price": 100},
+         "1": {"number": 1, "status": "RESERVED", "price": 100},
+         "2": {"number": 2, "status": "AVAILABLE", "price": 120.5}},
+       "pendingReservations": {"reservation-1": 1},
+       "finishedReservations": {"reservation-0": {"reservationId": "reservation-0", "seatNumber": 0}},
+       "availableSeats": 1}""";
+
+    //when
+    var migrated = new ShowSnapshotMigration().transform(0, objectMapper.readTree(baseline));
+    var show = objectMapper.treeToValue(migrated, Show.class);
+
+    //then
+    assertThat(show.id()).isEqualTo("show-1");
+    assertThat(show.availableSeats()).isEqualTo(1);
+    assertThat(show.getSeat(0).get().status()).isEqualTo(Show.SeatStatus.PAID);
+    assertThat(show.getSeat(2).get().price()).isEqualTo(Money.ofMinor(12050));
+    assertThat(show.pendingReservations().get("reservation-1").get()).containsExactly(1);
+    assertThat(show.finishedReservations().contains("reservation-0")).isTrue();
+    assertThat(new ShowSnapshotMigration().transform(0, migrated)).isEqualTo(migrated);
+  }
+
+  private static Show showWithReservations(int seats) {
+    var showId = randomShowId();
+    var layout = VenueLayout.singleSection(Money.of(100), seats);
+    var deduplicationSettings = new ReservationDeduplication.Settings(10, 1_000, 0.01);
+    var show = Show.create(new ShowEvent.ShowCreated(showId, new Show.InitialShow(showId, "title", layout)), deduplicationSettings);
+    var available = seats;
+    for (int seatNumber = 10; seatNumber < seats; seatNumber += 3) {
+      var reservationId = "paid-" + seatNumber;
+      show = show.apply(new ShowEvent.SeatReserved(showId, randomWalletId(), reservationId, seatNumber, Money.of(100), --available))
+        .apply(new ShowEvent.SeatReservationPaid(showId, reservationId, seatNumber));
+    }
+    return show
+      .apply(new ShowEvent.SeatReserved(showId, randomWalletId(), "pending-0", 0, Money.of(100), --available))
+      .apply(new ShowEvent.SeatsReserved(showId, randomWalletId(), "pending-1", List.of(2, 3), Money.of(200), available - 2));
+  }
+}
@@ -1,28 +1,44 @@
 package com.example.cinema;
 
 import com.example.cinema.model.CinemaApiModel;
+import com.example.cinema.model.ReservationDeduplication;
 import com.example.cinema.model.Show;
 import com.example.cinema.model.ShowEvent;
+import com.example.cinema.model.ShowSections;
+import com.example.cinema.model.VenueLayout;
+import com.example.common.Money;
 import io.vavr.Tuple2;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.example.cinema.DomainGenerators.randomReservationId;
 import static com.example.cinema.DomainGenerators.randomShow;
 import static com.example.cinema.DomainGenerators.randomShowId;
+import static com.example.cinema.DomainGenerators.randomTitle;
 import static com.example.cinema.DomainGenerators.randomWalletId;
 import static com.example.cinema.model.Show.SeatStatus.AVAILABLE;
 import static com.example.cinema.model.Show.SeatStatus.PAID;
 import static com.example.cinema.model.Show.SeatStatus.RESERVED;
 import static com.example.cinema.ShowBuilder.showBuilder;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.AVAILABILITY_ALREADY_PUBLISHED;
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.CANCELLING_CONFIRMED_RESERVATION;
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.DUPLICATED_COMMAND;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.INVALID_SEAT_SELECTION;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.INVALID_SHOW_ID;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.INVALID_VENUE_LAYOUT;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.NO_ADJACENT_SEATS_AVAILABLE;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.POSSIBLY_DUPLICATED_RESERVATION;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.RESERVATION_CANCELLED;
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.RESERVATION_NOT_FOUND;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.RESERVATION_EXPIRY_NOT_SCHEDULED;
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.SEAT_NOT_AVAILABLE;
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.SEAT_NOT_FOUND;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.SECTION_NOT_FOUND;
 import static com.example.cinema.model.CinemaApiModel.ShowCommandError.SHOW_ALREADY_EXISTS;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.SHOW_IS_SHARDED;
+import static com.example.cinema.model.CinemaApiModel.ShowCommandError.TOO_MANY_SEATS;
 import static com.example.cinema.ShowCommandGenerators.randomCreateShow;
 import static com.example.cinema.ShowCommandGenerators.randomReserveSeat;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -44,7 +60,91 @@ class ShowTest {
     //then
     assertThat(show.id()).isEqualTo(showId);
     assertThat(show.title()).isEqualTo(createShow.title());
-    assertThat(show.seats()).hasSize(createShow.maxSeats());
+    assertThat(show.seats().size()).isEqualTo(createShow.maxSeats());
+  }
+
+  @Test
+  public void shouldCreateTheShowWithLayout() {
+    //given
+    String showId = randomShowId();
+    var layout = new VenueLayout(List.of(Money.of(50), Money.of(120)),
+      List.of(new VenueLayout.Section("stalls", 10, 20, 1), new VenueLayout.Section("balcony", 5, 10, 0)));
+    var createShow = new CreateShowWithLayout(randomTitle(), layout);
+
+    //when
+    var showCreated = Show.ShowCreator.create(showId, createShow).get();
+    var show = Show.create(showCreated);
+
+    //then
+    assertThat(show.seats().size()).isEqualTo(250);
+    assertThat(show.availableSeats()).isEqualTo(250);
+    assertThat(show.getSeat(199).get().price()).isEqualTo(Money.of(120));
+    assertThat(show.getSeat(200).get().price()).isEqualTo(Money.of(50));
+  }
+
+  @Test
+  public void shouldRejectInvalidLayout() {
+    //given
+    var layout = new VenueLayout(List.of(Money.of(50)), List.of(new VenueLayout.Section("stalls", 10, 20, 1)));
+
+    //when
+    var error = Show.ShowCreator.create(randomShowId(), new CreateShowWithLayout(randomTitle(), layout)).getLeft();
+
+    //then
+    assertThat(error).isEqualTo(INVALID_VENUE_LAYOUT);
+  }
+
+  @Test
+  public void shouldRejectLayoutWithoutSectionsOrWithMixedCurrencies() {
+    //given
+    var stalls = new VenueLayout.Section("stalls", 10, 20, 0);
+    var balcony = new VenueLayout.Section("balcony", 5, 10, 1);
+    var mixedCurrencies = new VenueLayout(List.of(Money.of(50), new Money(5000, "EUR")), List.of(stalls, balcony));
+    var noSections = new VenueLayout(List.of(Money.of(50)), null);
+
+    //when
+    var mixedCurrenciesError = Show.ShowCreator.create(randomShowId(), new CreateShowWithLayout(randomTitle(), mixedCurrencies)).getLeft();
+    var noSectionsError = Show.ShowCreator.create(randomShowId(), new CreateShowWithLayout(randomTitle(), noSections)).getLeft();
+
+    //then
+    assertThat(mixedCurrenciesError).isEqualTo(INVALID_VENUE_LAYOUT);
+    assertThat(noSectionsError).isEqualTo(INVALID_VENUE_LAYOUT);
+  }
+
+  @Test
+  public void shouldRejectTooManySeats() {
+    //given
+    var createShow = new CreateShow(randomTitle(), Show.ShowCreator.MAX_SEATS + 1);
+
+    //when
+    var error = Show.ShowCreator.create(randomShowId(), createShow).getLeft();
+
+    //then
+    assertThat(error).isEqualTo(TOO_MANY_SEATS);
+  }
+
+  @Test
+  public void shouldCreateReserveAndReplayShowWithLayout() {
+    //given
+    var layout = new VenueLayout(List.of(Money.of(50), Money.of(120)),
+      List.of(new VenueLayout.Section("stalls", 10, 20, 1), new VenueLayout.Section("balcony", 5, 10, 0)));
+    var seatCount = layout.seatCount();
+    var showCreated = Show.ShowCreator.create(randomShowId(), new CreateShowWithLayout(randomTitle(), layout)).get();
+
+    //when
+    var show = Show.create(showCreated);
+    var events = new ArrayList<ShowEvent>(seatCount);
+    for (int seatNumber = 0; seatNumber < seatCount; seatNumber++) {
+      var event = show.process(new ReserveSeat(randomWalletId(), randomReservationId(), seatNumber)).get();
+      show = show.apply(event);
+      events.add(event);
+    }
+    var replayedShow = apply(Show.create(showCreated), events);
+
+    //then
+    assertThat(show.availableSeats()).isZero();
+    assertThat(replayedShow.seats()).isEqualTo(show.seats());
+    assertThat(replayedShow.pendingReservations().size()).isEqualTo(seatCount);
   }
 
   @Test
@@ -88,7 +188,7 @@ class ShowTest {
     var reservedSeat = updatedShow.seats().get(reserveSeat.seatNumber()).get();
     assertThat(event).isInstanceOf(SeatReserved.class);
     assertThat(reservedSeat.status()).isEqualTo(RESERVED);
-    assertThat(updatedShow.pendingReservations()).contains(new Tuple2<>(reserveSeat.reservationId(), reserveSeat.seatNumber()));
+    assertThat(updatedShow.pendingReservations()).contains(new Tuple2<>(reserveSeat.reservationId(), List.of(reserveSeat.seatNumber())));
   }
 
   @Test
@@ -132,6 +232,28 @@ class ShowTest {
     assertThat(result).isEqualTo(DUPLICATED_COMMAND);
   }
 
+  @Test
+  public void shouldNotReportFilteredReservationIdAsDuplicate() {
+    //given
+    var showId = randomShowId();
+    var showCreated = new ShowCreated(showId, new Show.InitialShow(showId, randomTitle(), VenueLayout.singleSection(Money.of(100), 10)));
+    var show = Show.create(showCreated, new ReservationDeduplication.Settings(1, 100, 0.01));
+    var filtered = new ReserveSeat(randomWalletId(), randomReservationId(), 1);
+    var recent = new ReserveSeat(randomWalletId(), randomReservationId(), 2);
+    for (var reserveSeat : List.of(filtered, recent)) {
+      show = show.apply(show.process(reserveSeat).get());
+      show = show.apply(show.process(new CancelSeatReservation(reserveSeat.reservationId())).get());
+    }
+
+    //when
+    var filteredResult = show.process(filtered).getLeft();
+    var recentResult = show.process(recent).getLeft();
+
+    //then
+    assertThat(filteredResult).isEqualTo(POSSIBLY_DUPLICATED_RESERVATION);
+    assertThat(recentResult).isEqualTo(DUPLICATED_COMMAND);
+  }
+
   @Test
   public void shouldNotReserveNotExistingSeat() {
     //given
@@ -145,10 +267,103 @@ class ShowTest {
     assertThat(result).isEqualTo(SEAT_NOT_FOUND);
   }
 
+  @Test
+  public void shouldReserveSeatsAtOnce() {
+    //given
+    var show = randomShow();
+    var reserveSeats = new ReserveSeats(randomWalletId(), randomReservationId(), List.of(3, 4, 5));
+    var price = show.getSeat(3).get().price();
+
+    //when
+    var event = show.process(reserveSeats).get();
+    var updatedShow = show.apply(event);
+
+    //then
+    assertThat(event).isEqualTo(new SeatsReserved(show.id(), reserveSeats.walletId(), reserveSeats.reservationId(), List.of(3, 4, 5), price.times(3), show.seats().size() - 3));
+    assertThat(updatedShow.getSeat(4).get().status()).isEqualTo(RESERVED);
+    assertThat(updatedShow.availableSeats()).isEqualTo(show.seats().size() - 3);
+    assertThat(updatedShow.pendingReservations()).contains(new Tuple2<>(reserveSeats.reservationId(), List.of(3, 4, 5)));
+  }
+
+  @Test
+  public void shouldNotReserveAnySeatWhenOneIsNotAvailable() {
+    //given
+    var reservedSeat = new Show.Seat(5, Show.SeatStatus.RESERVED, Money.of(123));
+    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, randomReservationId()).build();
+
+    //when
+    var notAvailable = show.process(new ReserveSeats(randomWalletId(), randomReservationId(), List.of(3, 4, 5))).getLeft();
+    var notFound = show.process(new ReserveSeats(randomWalletId(), randomReservationId(), List.of(3, ShowBuilder.MAX_SEATS))).getLeft();
+    var duplicatedSeat = show.process(new ReserveSeats(randomWalletId(), randomReservationId(), List.of(3, 3))).getLeft();
+    var noSeats = show.process(new ReserveSeats(randomWalletId(), randomReservationId(), List.of())).getLeft();
+
+    //then
+    assertThat(notAvailable).isEqualTo(SEAT_NOT_AVAILABLE);
+    assertThat(notFound).isEqualTo(SEAT_NOT_FOUND);
+    assertThat(duplicatedSeat).isEqualTo(INVALID_SEAT_SELECTION);
+    assertThat(noSeats).isEqualTo(INVALID_SEAT_SELECTION);
+  }
+
+  @Test
+  public void shouldReserveBestAvailableSeats() {
+    //given
+    var layout = new VenueLayout(List.of(Money.of(50), Money.of(120)),
+      List.of(new VenueLayout.Section("stalls", 2, 10, 1), new VenueLayout.Section("balcony", 1, 10, 0)));
+    var show = Show.create(Show.ShowCreator.create(randomShowId(), new CreateShowWithLayout(randomTitle(), layout)).get());
+    var reserveBestAvailableSeats = new ReserveBestAvailableSeats(randomWalletId(), randomReservationId(), 3);
+
+    //when
+    var event = show.process(reserveBestAvailableSeats).get();
+    var updatedShow = show.apply(event);
+
+    //then
+    assertThat(event).isEqualTo(new SeatsReserved(show.id(), reserveBestAvailableSeats.walletId(), reserveBestAvailableSeats.reservationId(),
+      List.of(4, 5, 6), Money.of(120).times(3), show.seats().size() - 3));
+    assertThat(updatedShow.getSeat(5).get().status()).isEqualTo(RESERVED);
+  }
+
+  @Test
+  public void shouldRejectBestAvailableSeatsWhenNoRowFits() {
+    //given
+    var layout = new VenueLayout(List.of(Money.of(50)), List.of(new VenueLayout.Section("stalls", 2, 10, 0)));
+    var show = Show.create(Show.ShowCreator.create(randomShowId(), new CreateShowWithLayout(randomTitle(), layout)).get());
+
+    //when
+    var noRowFits = show.process(new ReserveBestAvailableSeats(randomWalletId(), randomReservationId(), 11)).getLeft();
+    var noSeats = show.process(new ReserveBestAvailableSeats(randomWalletId(), randomReservationId(), 0)).getLeft();
+
+    //then
+    assertThat(noRowFits).isEqualTo(NO_ADJACENT_SEATS_AVAILABLE);
+    assertThat(noSeats).isEqualTo(INVALID_SEAT_SELECTION);
+  }
+
+  @Test
+  public void shouldConfirmOrCancelAllSeatsOfReservation() {
+    //given
+    var show = randomShow();
+    var reservationId = randomReservationId();
+    var reservedShow = show.apply(show.process(new ReserveSeats(randomWalletId(), reservationId, List.of(7, 8))).get());
+
+    //when
+    var paid = reservedShow.process(new ConfirmReservationPayment(reservationId)).get();
+    var cancelled = reservedShow.process(new CancelSeatReservation(reservationId)).get();
+    var paidShow = reservedShow.apply(paid);
+    var cancelledShow = reservedShow.apply(cancelled);
+
+    //then
+    assertThat(paid).isEqualTo(new SeatsReservationPaid(show.id(), reservationId, List.of(7, 8)));
+    assertThat(paidShow.getSeat(8).get().status()).isEqualTo(PAID);
+    assertThat(paidShow.availableSeats()).isEqualTo(show.seats().size() - 2);
+    assertThat(cancelled).isEqualTo(new SeatsReservationCancelled(show.id(), reservationId, List.of(7, 8), show.seats().size()));
+    assertThat(cancelledShow.getSeat(8).get().status()).isEqualTo(AVAILABLE);
+    assertThat(cancelledShow.availableSeats()).isEqualTo(show.seats().size());
+    assertThat(cancelledShow.process(new ReserveSeats(randomWalletId(), reservationId, List.of(7, 8))).getLeft()).isEqualTo(DUPLICATED_COMMAND);
+  }
+
   @Test
   public void shouldCancelSeatReservation() {
     //given
-    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var cancelSeatReservation = new CancelSeatReservation(reservationId);
@@ -166,7 +381,7 @@ class ShowTest {
 //  @Test
 //  public void shouldRejectCancellationDuplicate() {
 //    //given
-//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, new BigDecimal("123"));
+//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
 //    var reservationId = randomReservationId();
 //    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
 //    var cancelSeatReservation = new CancelSeatReservation(reservationId);
@@ -188,7 +403,7 @@ class ShowTest {
 //  @Test
 //  public void shouldConfirmAfterCancellation() {
 //    //given
-//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, new BigDecimal("123"));
+//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
 //    var reservationId = randomReservationId();
 //    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
 //    var cancelSeatReservation = new CancelSeatReservation(reservationId);
@@ -206,7 +421,7 @@ class ShowTest {
   @Test
   public void shouldConfirmSeatReservation() {
     //given
-    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, new BigDecimal("123"));
+    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
     var reservationId = randomReservationId();
     var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
     var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
@@ -221,10 +436,41 @@ class ShowTest {
     assertThat(updatedShow.pendingReservations().get(reservationId).isEmpty()).isTrue();
   }
 
+  @Test
+  public void shouldAnswerConfirmationRetriedAfterPaymentAsDuplicate() {
+    //given
+    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
+    var reservationId = randomReservationId();
+    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
+    var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
+    var paidShow = show.apply(show.process(confirmReservationPayment).get());
+
+    //when
+    var result = paidShow.process(confirmReservationPayment).getLeft();
+
+    //then
+    assertThat(result).isEqualTo(DUPLICATED_COMMAND);
+  }
+
+  @Test
+  public void shouldRejectConfirmationOfCancelledReservation() {
+    //given
+    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
+    var reservationId = randomReservationId();
+    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
+    var cancelledShow = show.apply(show.process(new CancelSeatReservation(reservationId)).get());
+
+    //when
+    var result = cancelledShow.process(new ConfirmReservationPayment(reservationId)).getLeft();
+
+    //then
+    assertThat(result).isEqualTo(RESERVATION_CANCELLED);
+  }
+
 //  @Test
 //  public void shouldRejectConfirmationDuplicate() {
 //    //given
-//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, new BigDecimal("123"));
+//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
 //    var reservationId = randomReservationId();
 //    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
 //    var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
@@ -246,7 +492,7 @@ class ShowTest {
 //  @Test
 //  public void shouldRejectCancellationAfterConfirmation() {
 //    //given
-//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, new BigDecimal("123"));
+//    var reservedSeat = new Show.Seat(2, Show.SeatStatus.RESERVED, Money.of(123));
 //    var reservationId = randomReservationId();
 //    var show = showBuilder().withRandomSeats().withSeatReservation(reservedSeat, reservationId).build();
 //    var confirmReservationPayment = new ConfirmReservationPayment(reservationId);
@@ -274,6 +520,168 @@ class ShowTest {
     assertThat(result).isEqualTo(RESERVATION_NOT_FOUND);
   }
 
+  @Test
+  public void shouldScheduleSingleAvailabilityFlushPerWindow() {
+    //given
+    var show = randomShow();
+    var reserveSeat = randomReserveSeat();
+    var seatReserved = show.process(reserveSeat).get();
+
+    //when
+    var flushScheduled = show.availabilityFlushFor(seatReserved).get();
+    var updatedShow = apply(show, List.of(seatReserved, flushScheduled));
+    var cancelled = updatedShow.process(new CancelSeatReservation(reserveSeat.reservationId())).get();
+
+    //then
+    assertThat(flushScheduled).isEqualTo(new AvailabilityFlushScheduled(show.id()));
+    assertThat(updatedShow.availabilityFlushPending()).isTrue();
+    assertThat(updatedShow.availabilityFlushFor(cancelled).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldPublishLatestAvailableSeatsOnce() {
+    //given
+    var show = randomShow();
+    var seatReserved = show.process(randomReserveSeat()).get();
+    var showWithPendingFlush = apply(show, List.of(seatReserved, show.availabilityFlushFor(seatReserved).get()));
+
+    //when
+    var published = showWithPendingFlush.handleAvailabilityFlush().get();
+    var publishedShow = showWithPendingFlush.apply(published);
+
+    //then
+    assertThat(published).isEqualTo(new AvailabilityPublished(show.id(), show.availableSeats() - 1));
+    assertThat(publishedShow.availabilityFlushPending()).isFalse();
+    assertThat(publishedShow.handleAvailabilityFlush().getLeft()).isEqualTo(AVAILABILITY_ALREADY_PUBLISHED);
+  }
+
+  @Test
+  public void shouldScheduleSingleReservationExpiryPerWindow() {
+    //given
+    var show = randomShow();
+    var seatReserved = show.process(new ReserveSeat(randomWalletId(), randomReservationId(), 1)).get();
+
+    //when
+    var expiryScheduled = show.reservationExpiryFor(seatReserved).get();
+    var updatedShow = apply(show, List.of(seatReserved, expiryScheduled));
+    var nextSeatReserved = updatedShow.process(new ReserveSeat(randomWalletId(), randomReservationId(), 2)).get();
+
+    //then
+    assertThat(expiryScheduled).isEqualTo(new ReservationExpiryScheduled(show.id(), 1));
+    assertThat(updatedShow.reservationExpiry().scheduled()).isTrue();
+    assertThat(updatedShow.reservationExpiryFor(nextSeatReserved).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldExpireReservationsPendingSinceThePreviousSweep() {
+    //given
+    var show = randomShow();
+    var expiringReservation = new ReserveSeat(randomWalletId(), randomReservationId(), 1);
+    var seatReserved = show.process(expiringReservation).get();
+    show = apply(show, List.of(seatReserved, show.reservationExpiryFor(seatReserved).get()));
+    var recentReservation = new ReserveSeat(randomWalletId(), randomReservationId(), 2);
+    show = show.apply(show.process(recentReservation).get());
+
+    //when
+    var firstSweep = show.handleReservationExpiry(1).get();
+    var sweptShow = apply(show, firstSweep);
+    var secondSweep = sweptShow.handleReservationExpiry(2).get();
+    var emptyShow = apply(sweptShow, secondSweep);
+
+    //then
+    assertThat(firstSweep).containsExactly(
+      new SeatReservationCancelled(show.id(), expiringReservation.reservationId(), expiringReservation.seatNumber(), show.availableSeats() + 1),
+      new ReservationExpiryScheduled(show.id(), 2));
+    assertThat(sweptShow.getSeat(expiringReservation.seatNumber()).get().status()).isEqualTo(AVAILABLE);
+    assertThat(sweptShow.getSeat(recentReservation.seatNumber()).get().status()).isEqualTo(RESERVED);
+    assertThat(secondSweep.get(secondSweep.size() - 1)).isEqualTo(new ReservationExpiryCompleted(show.id()));
+    assertThat(emptyShow.pendingReservations().isEmpty()).isTrue();
+    assertThat(emptyShow.handleReservationExpiry(2).getLeft()).isEqualTo(RESERVATION_EXPIRY_NOT_SCHEDULED);
+    assertThat(emptyShow.reservationExpiry().sweep()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldIgnoreRepeatedCallOfFinishedSweep() {
+    //given
+    var show = randomShow();
+    var seatReserved = show.process(new ReserveSeat(randomWalletId(), randomReservationId(), 1)).get();
+    show = apply(show, List.of(seatReserved, show.reservationExpiryFor(seatReserved).get()));
+    show = show.apply(show.process(new ReserveSeat(randomWalletId(), randomReservationId(), 2)).get());
+    var sweptShow = apply(show, show.handleReservationExpiry(1).get());
+
+    //when
+    var repeatedSweep = sweptShow.handleReservationExpiry(1);
+
+    //then
+    assertThat(repeatedSweep.getLeft()).isEqualTo(RESERVATION_EXPIRY_NOT_SCHEDULED);
+    assertThat(sweptShow.reservationExpiry().sweep()).isEqualTo(2);
+    assertThat(sweptShow.pendingReservations().size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldShardShowIntoSections() {
+    //given
+    String showId = randomShowId();
+    var layout = new VenueLayout(List.of(Money.of(50), Money.of(120)),
+      List.of(new VenueLayout.Section("stalls", 10, 20, 1), new VenueLayout.Section("balcony", 5, 10, 0)));
+
+    //when
+    var events = Show.ShowCreator.createSharded(showId, new CreateShowWithLayout(randomTitle(), layout)).get();
+    var show = apply(Show.create((ShowCreated) events.get(0)), events.subList(1, events.size()));
+
+    //then
+    assertThat(show.isSharded()).isTrue();
+    assertThat(show.availableSeats()).isEqualTo(250);
+    assertThat(show.sectionAvailableSeats().get(ShowSections.sectionShowId(showId, 0)).get()).isEqualTo(200);
+    assertThat(show.sectionAvailableSeats().get(ShowSections.sectionShowId(showId, 1)).get()).isEqualTo(50);
+    assertThat(ShowSections.sectionLayout(layout, 1).seatCount()).isEqualTo(50);
+    assertThat(show.process(new ReserveSeat(randomWalletId(), randomReservationId(), 1)).getLeft()).isEqualTo(SHOW_IS_SHARDED);
+    assertThat(show.process(new ReserveBestAvailableSeats(randomWalletId(), randomReservationId(), 2)).getLeft()).isEqualTo(SHOW_IS_SHARDED);
+  }
+
+  @Test
+  public void shouldCreateSectionShowsOnlyThroughSharding() {
+    //given
+    String sectionShowId = ShowSections.sectionShowId(randomShowId(), 0);
+    var layout = new VenueLayout(List.of(Money.of(50)), List.of(new VenueLayout.Section("stalls", 10, 20, 0)));
+    var createShowWithLayout = new CreateShowWithLayout(randomTitle(), layout);
+
+    //when
+    var created = Show.ShowCreator.create(sectionShowId, new CreateShow(randomTitle(), 100));
+    var createdWithLayout = Show.ShowCreator.create(sectionShowId, createShowWithLayout);
+    var createdSharded = Show.ShowCreator.createSharded(sectionShowId, createShowWithLayout);
+    var createdSection = Show.ShowCreator.createSection(sectionShowId, createShowWithLayout);
+
+    //then
+    assertThat(created.getLeft()).isEqualTo(INVALID_SHOW_ID);
+    assertThat(createdWithLayout.getLeft()).isEqualTo(INVALID_SHOW_ID);
+    assertThat(createdSharded.getLeft()).isEqualTo(INVALID_SHOW_ID);
+    assertThat(createdSection.get().showId()).isEqualTo(sectionShowId);
+    assertThat(Show.ShowCreator.createSection(randomShowId(), createShowWithLayout).getLeft()).isEqualTo(INVALID_SHOW_ID);
+  }
+
+  @Test
+  public void shouldAggregateAvailableSeatsOfSections() {
+    //given
+    String showId = randomShowId();
+    var layout = new VenueLayout(List.of(Money.of(50)),
+      List.of(new VenueLayout.Section("stalls", 10, 20, 0), new VenueLayout.Section("balcony", 5, 10, 0)));
+    var events = Show.ShowCreator.createSharded(showId, new CreateShowWithLayout(randomTitle(), layout)).get();
+    var show = apply(Show.create((ShowCreated) events.get(0)), events.subList(1, events.size()));
+    String balcony = ShowSections.sectionShowId(showId, 1);
+
+    //when
+    var updated = show.process(new UpdateSectionAvailability(balcony, 47)).get();
+    var updatedShow = show.apply(updated);
+
+    //then
+    assertThat(updated).isEqualTo(new SectionAvailabilityUpdated(showId, balcony, 47, 247));
+    assertThat(updatedShow.availableSeats()).isEqualTo(247);
+    assertThat(updatedShow.process(new UpdateSectionAvailability(balcony, 47)).getLeft()).isEqualTo(DUPLICATED_COMMAND);
+    assertThat(updatedShow.process(new UpdateSectionAvailability(ShowSections.sectionShowId(showId, 2), 1)).getLeft()).isEqualTo(SECTION_NOT_FOUND);
+    assertThat(ShowSections.shardedShowId(balcony)).isEqualTo(showId);
+  }
+
   private Show apply(Show show, List<ShowEvent> events) {
     return io.vavr.collection.List.ofAll(events).foldLeft(show, Show::apply);
   }
@@ -0,0 +1,104 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.common.CircuitBreaker.State.CLOSED;
+import static com.example.common.CircuitBreaker.State.OPEN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+  private final MutableClock clock = new MutableClock();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("wallet",
+    new CircuitBreaker.Settings(2, Duration.ofSeconds(1), Duration.ofSeconds(10)), clock);
+
+  @Test
+  public void shouldFailFastWhenOpen() {
+    //given
+    var calls = new AtomicInteger();
+    failingCall(calls);
+    failingCall(calls);
+
+    //when
+    var result = circuitBreaker.call(() -> {
+      calls.incrementAndGet();
+      return CompletableFuture.completedFuture("ok");
+    });
+
+    //then
+    assertThatThrownBy(() -> result.toCompletableFuture().join()).hasCauseInstanceOf(CircuitBreaker.OpenException.class);
+    assertThat(calls.get()).isEqualTo(2);
+    assertThat(circuitBreaker.stats()).isEqualTo(new CircuitBreaker.Stats("wallet", OPEN, 1, 0, 0, 1));
+  }
+
+  @Test
+  public void shouldCloseAfterSuccessfulTrialCall() {
+    //given
+    failingCall(new AtomicInteger());
+    failingCall(new AtomicInteger());
+    clock.advance(Duration.ofSeconds(10));
+
+    //when
+    var result = circuitBreaker.call(() -> CompletableFuture.completedFuture("ok"));
+
+    //then
+    assertThat(result.toCompletableFuture().join()).isEqualTo("ok");
+    assertThat(circuitBreaker.stats()).isEqualTo(new CircuitBreaker.Stats("wallet", CLOSED, 1, 1, 1, 0));
+  }
+
+  @Test
+  public void shouldNotOpenOnClientErrors() {
+    //given
+    var badRequest = WebClientResponseException.create(400, "bad request", null, null, null);
+
+    //when
+    for (int i = 0; i < 3; i++) {
+      circuitBreaker.call(() -> CompletableFuture.failedFuture(badRequest)).toCompletableFuture().exceptionally(throwable -> null).join();
+    }
+
+    //then
+    assertThat(circuitBreaker.stats().state()).isEqualTo(CLOSED);
+  }
+
+  private void failingCall(AtomicInteger calls) {
+    circuitBreaker.call(() -> {
+      calls.incrementAndGet();
+      return CompletableFuture.<String>failedFuture(new IllegalStateException("timeout"));
+    }).toCompletableFuture().exceptionally(throwable -> "failed").join();
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2023-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
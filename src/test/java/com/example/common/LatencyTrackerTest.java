@@ -0,0 +1,39 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyTrackerTest {
+
+  @Test
+  public void shouldComputePercentilesOverSlidingWindow() {
+    //given
+    var latencyTracker = new LatencyTracker(100);
+    for (int i = 1; i <= 200; i++) {
+      latencyTracker.record("charge-wallet", Duration.ofMillis(i));
+    }
+
+    //when
+    var percentiles = latencyTracker.percentiles().get("charge-wallet");
+
+    //then
+    assertThat(percentiles).isEqualTo(new LatencyTracker.Percentiles(200, Duration.ofMillis(150), Duration.ofMillis(190), Duration.ofMillis(199)));
+  }
+
+  @Test
+  public void shouldNotReportPercentileBeforeMinSamples() {
+    //given
+    var latencyTracker = new LatencyTracker(100);
+    latencyTracker.record("reserve-seat", Duration.ofMillis(10));
+
+    //when
+    var percentile = latencyTracker.percentile("reserve-seat", 99, 2);
+
+    //then
+    assertThat(percentile).isEmpty();
+    assertThat(latencyTracker.percentile("reserve-seat", 99, 1)).contains(Duration.ofMillis(10));
+  }
+}
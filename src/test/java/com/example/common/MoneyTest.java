@@ -0,0 +1,106 @@
+package com.example.common;
+
+import com.example.cinema.model.ShowEvent.SeatReserved;
+import com.example.wallet.model.WalletEvent.WalletCharged;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldCalculateInMinorUnits() {
+    //given
+    var balance = Money.of(new BigDecimal("10.05"));
+
+    //when
+    var charged = balance.minus(Money.ofMinor(6));
+
+    //then
+    assertThat(charged).isEqualTo(Money.ofMinor(999));
+    assertThat(charged.plus(Money.ofMinor(6))).isEqualTo(balance);
+    assertThat(charged.isLessThan(balance)).isTrue();
+    assertThat(Money.of(3).times(2)).isEqualTo(Money.of(6));
+    assertThat(charged.toBigDecimal()).isEqualTo(new BigDecimal("9.99"));
+  }
+
+  @Test
+  public void shouldRejectDifferentCurrencyOrFractionOfMinorUnit() {
+    assertThatThrownBy(() -> Money.of(1).plus(new Money(100, "EUR"))).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> Money.of(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  public void shouldReadLegacyDecimalAmounts() throws Exception {
+    //given
+    var legacyCharged = """
+      {"walletId": "w1", "amount": 100.5, "expenseId": "e1", "commandId": "c1"}""";
+    var legacyReserved = """
+      {"showId": "s1", "walletId": "w1", "reservationId": "r1", "seatNumber": 3, "price": "120", "availableSeatsCount": 9}""";
+
+    //when
+    var charged = objectMapper.readValue(legacyCharged, WalletCharged.class);
+    var reserved = objectMapper.readValue(legacyReserved, SeatReserved.class);
+
+    //then
+    assertThat(charged.amount()).isEqualTo(Money.ofMinor(10050));
+    assertThat(reserved.price()).isEqualTo(Money.of(120));
+  }
+
+  @Test
+  public void shouldRoundLegacyAmountsWithMoreDecimals() throws Exception {
+    //given
+    var legacyCharged = """
+      {"walletId": "w1", "amount": 10.125, "expenseId": "e1", "commandId": "c1"}""";
+
+    //when
+    var charged = objectMapper.readValue(legacyCharged, WalletCharged.class);
+
+    //then
+    assertThat(charged.amount()).isEqualTo(Money.ofMinor(1012));
+  }
+
+  @Test
+  public void shouldReadMinorUnitsObject() throws Exception {
+    //given
+    var charged = """
+      {"walletId": "w1", "amount": {"minorUnits": 12345, "currency": "USD"}, "expenseId": "e1", "commandId": "c1"}""";
+
+    //when
+    var amount = objectMapper.readValue(charged, WalletCharged.class).amount();
+
+    //then
+    assertThat(amount).isEqualTo(Money.ofMinor(12345));
+    assertThat(Money.parse("-0.05 EUR")).isEqualTo(new Money(-5, "EUR"));
+  }
+
+  @Test
+  public void shouldRoundTripMinorUnits() throws Exception {
+    //given
+    var charged = new WalletCharged("w1", Money.ofMinor(12345), "e1", "c1");
+
+    //when
+    var json = objectMapper.writeValueAsString(charged);
+
+    //then
+    assertThat(json).contains("\"amount\":\"123.45 USD\"");
+    assertThat(objectMapper.readValue(json, WalletCharged.class)).isEqualTo(charged);
+  }
+
+  @Test
+  public void shouldWriteMinorUnitsObjectOutsideOfEvents() throws Exception {
+    //when
+    var json = objectMapper.readTree(objectMapper.writeValueAsString(Money.ofMinor(12345)));
+
+    //then
+    assertThat(json.get("minorUnits").asLong()).isEqualTo(12345);
+    assertThat(json.get("currency").asText()).isEqualTo("USD");
+    assertThat(objectMapper.treeToValue(json, Money.class)).isEqualTo(Money.ofMinor(12345));
+  }
+}
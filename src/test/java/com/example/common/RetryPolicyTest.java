@@ -0,0 +1,94 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryPolicyTest {
+
+  private final RetryPolicy.Settings settings = new RetryPolicy.Settings(3, Duration.ofMillis(10), Duration.ofMillis(25), 0.5, 2);
+
+  @Test
+  public void shouldGrowBackoffExponentiallyUpToMax() {
+    //given
+    var retryPolicy = new RetryPolicy(settings, () -> 0.999);
+
+    //when
+    var backoffs = List.of(retryPolicy.backoff(1), retryPolicy.backoff(2), retryPolicy.backoff(3), retryPolicy.backoff(100));
+
+    //then
+    assertThat(backoffs).containsExactly(Duration.ofMillis(9), Duration.ofMillis(19), Duration.ofMillis(24), Duration.ofMillis(24));
+    assertThat(new RetryPolicy(settings, () -> 0).backoff(3)).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  public void shouldRetryUntilSuccess() {
+    //given
+    var retryPolicy = new RetryPolicy(settings, () -> 0.5);
+    var calls = new AtomicInteger();
+
+    //when
+    var result = retryPolicy.retry(() -> calls.incrementAndGet() < 3 ? failed(new IllegalStateException("timeout")) : done("ok"));
+
+    //then
+    assertThat(result.toCompletableFuture().join()).isEqualTo("ok");
+    assertThat(calls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldNotRetryClientErrors() {
+    //given
+    var retryPolicy = new RetryPolicy(settings, () -> 0.5);
+    var calls = new AtomicInteger();
+    var badRequest = WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "bad request", null, null, null);
+
+    //when
+    var result = retryPolicy.retry(() -> {
+      calls.incrementAndGet();
+      return RetryPolicyTest.<String>failed(new CompletionException(badRequest));
+    });
+
+    //then
+    assertThatThrownBy(() -> result.toCompletableFuture().join()).hasRootCauseInstanceOf(WebClientResponseException.class);
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(RetryPolicy.isRetryable(WebClientResponseException.create(503, "unavailable", null, null, null))).isTrue();
+    assertThat(RetryPolicy.isRetryable(WebClientResponseException.create(429, "too many requests", null, null, null))).isTrue();
+  }
+
+  @Test
+  public void shouldStopRetryingWhenBudgetIsSpent() {
+    //given
+    var retryPolicy = new RetryPolicy(settings, () -> 0);
+    var calls = new AtomicInteger();
+
+    //when
+    for (int i = 0; i < 3; i++) {
+      retryPolicy.retry(() -> {
+        calls.incrementAndGet();
+        return RetryPolicyTest.<String>failed(new IllegalStateException("timeout"));
+      }).toCompletableFuture().exceptionally(throwable -> "failed").join();
+    }
+
+    //then
+    //first call retries twice from the reserve, then every call deposits half a retry
+    assertThat(calls.get()).isEqualTo(3 + 1 + 2);
+  }
+
+  private static <T> CompletionStage<T> done(T value) {
+    return CompletableFuture.completedFuture(value);
+  }
+
+  private static <T> CompletionStage<T> failed(Throwable throwable) {
+    return CompletableFuture.failedFuture(throwable);
+  }
+}
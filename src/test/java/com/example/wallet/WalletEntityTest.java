@@ -1,14 +1,13 @@
 package com.example.wallet;
 
 import com.example.cinema.model.CinemaApiModel;
+import com.example.common.Money;
 import com.example.wallet.model.Wallet;
 import com.example.wallet.model.WalletEvent;
 import kalix.javasdk.testkit.EventSourcedResult;
 import kalix.javasdk.testkit.EventSourcedTestKit;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
-
 import static com.example.cinema.DomainGenerators.randomWalletId;
 import static com.example.wallet.DomainGenerators.randomCommandId;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,9 +30,9 @@ class WalletEntityTest {
 
     //then
     assertThat(result.isReply()).isTrue();
-    assertThat(result.getNextEventOfType(WalletCreated.class).initialAmount()).isEqualTo(BigDecimal.valueOf(initialAmount));
+    assertThat(result.getNextEventOfType(WalletCreated.class).initialAmount()).isEqualTo(Money.of(initialAmount));
     assertThat(testKit.getState().id()).isEqualTo(walletId);
-    assertThat(testKit.getState().balance()).isEqualTo(BigDecimal.valueOf(initialAmount));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(initialAmount));
   }
 
   @Test
@@ -44,7 +43,7 @@ class WalletEntityTest {
     var initialAmount = 100;
     EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
     testKit.call(wallet -> wallet.create(walletId, initialAmount));
-    var chargeWallet = new ChargeWallet(new BigDecimal(10),  randomCommandId());
+    var chargeWallet = new ChargeWallet(Money.of(10),  randomCommandId());
 
     //when
     EventSourcedResult<CinemaApiModel.Response> result = testKit.call(wallet -> wallet.charge(expenseId, chargeWallet));
@@ -52,7 +51,7 @@ class WalletEntityTest {
     //then
     assertThat(result.isReply()).isTrue();
     assertThat(result.getNextEventOfType(WalletCharged.class)).isEqualTo(new WalletCharged(walletId, chargeWallet.amount(), expenseId, chargeWallet.commandId()));
-    assertThat(testKit.getState().balance()).isEqualTo(new BigDecimal(90));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(90));
   }
 
   @Test
@@ -63,7 +62,7 @@ class WalletEntityTest {
     var initialAmount = 100;
     EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
     testKit.call(wallet -> wallet.create(walletId, initialAmount));
-    var chargeWallet = new ChargeWallet(new BigDecimal(10), randomCommandId());
+    var chargeWallet = new ChargeWallet(Money.of(10), randomCommandId());
     testKit.call(wallet -> wallet.charge(expenseId, chargeWallet));
 
     //when
@@ -72,7 +71,7 @@ class WalletEntityTest {
     //then
     assertThat(result.isReply()).isTrue();
     assertThat(result.didEmitEvents()).isFalse();
-    assertThat(testKit.getState().balance()).isEqualTo(new BigDecimal(90));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(90));
   }
 
   @Test
@@ -83,7 +82,7 @@ class WalletEntityTest {
     var initialAmount = 100;
     EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
     testKit.call(wallet -> wallet.create(walletId, initialAmount));
-    var chargeWallet = new ChargeWallet(new BigDecimal(10), randomCommandId());
+    var chargeWallet = new ChargeWallet(Money.of(10), randomCommandId());
     testKit.call(wallet -> wallet.charge(expenseId, chargeWallet));
 
     //when
@@ -92,6 +91,83 @@ class WalletEntityTest {
     //then
     assertThat(result.isReply()).isTrue();
     assertThat(result.didEmitEvents()).isFalse();
-    assertThat(testKit.getState().balance()).isEqualTo(new BigDecimal(90));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(90));
+  }
+
+  @Test
+  public void shouldHoldAndCaptureFunds() {
+    //given
+    var walletId = randomWalletId();
+    var holdId = "r1";
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
+    testKit.call(wallet -> wallet.create(walletId, 100));
+    var holdFunds = new HoldFunds(Money.of(10), randomCommandId());
+    testKit.call(wallet -> wallet.hold(holdId, holdFunds));
+
+    //when
+    EventSourcedResult<CinemaApiModel.Response> result = testKit.call(wallet -> wallet.capture(holdId));
+
+    //then
+    assertThat(result.isReply()).isTrue();
+    assertThat(result.getNextEventOfType(FundsCaptured.class)).isEqualTo(new FundsCaptured(walletId, holdFunds.amount(), holdId));
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(90));
+    assertThat(testKit.getState().held()).isEqualTo(Money.of(0));
+  }
+
+  @Test
+  public void shouldCaptureFundsOnlyOnce() {
+    //given
+    var walletId = randomWalletId();
+    var holdId = "r1";
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
+    testKit.call(wallet -> wallet.create(walletId, 100));
+    testKit.call(wallet -> wallet.hold(holdId, new HoldFunds(Money.of(10), randomCommandId())));
+    testKit.call(wallet -> wallet.capture(holdId));
+
+    //when
+    EventSourcedResult<CinemaApiModel.Response> result = testKit.call(wallet -> wallet.capture(holdId));
+
+    //then
+    assertThat(result.getReply()).isInstanceOf(CinemaApiModel.Response.Success.class);
+    assertThat(result.getAllEvents()).isEmpty();
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(90));
+  }
+
+  @Test
+  public void shouldNotCaptureReleasedHold() {
+    //given
+    var walletId = randomWalletId();
+    var holdId = "r1";
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
+    testKit.call(wallet -> wallet.create(walletId, 100));
+    testKit.call(wallet -> wallet.hold(holdId, new HoldFunds(Money.of(10), randomCommandId())));
+    testKit.call(wallet -> wallet.release(holdId));
+
+    //when
+    EventSourcedResult<CinemaApiModel.Response> result = testKit.call(wallet -> wallet.capture(holdId));
+
+    //then
+    assertThat(result.getReply()).isEqualTo(CinemaApiModel.Response.Failure.of("HOLD_ALREADY_RELEASED"));
+    assertThat(result.getAllEvents()).isEmpty();
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(100));
+  }
+
+  @Test
+  public void shouldNotReleaseCapturedHold() {
+    //given
+    var walletId = randomWalletId();
+    var holdId = "r1";
+    EventSourcedTestKit<Wallet, WalletEvent, WalletEntity> testKit = EventSourcedTestKit.of(WalletEntity::new);
+    testKit.call(wallet -> wallet.create(walletId, 100));
+    testKit.call(wallet -> wallet.hold(holdId, new HoldFunds(Money.of(10), randomCommandId())));
+    testKit.call(wallet -> wallet.capture(holdId));
+
+    //when
+    EventSourcedResult<CinemaApiModel.Response> result = testKit.call(wallet -> wallet.release(holdId));
+
+    //then
+    assertThat(result.getReply()).isEqualTo(CinemaApiModel.Response.Failure.of("HOLD_ALREADY_CAPTURED"));
+    assertThat(result.getAllEvents()).isEmpty();
+    assertThat(testKit.getState().balance()).isEqualTo(Money.of(90));
   }
-}
\ No newline at end of file
+}
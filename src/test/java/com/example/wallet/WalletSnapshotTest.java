@@ -0,0 +1,64 @@
+package com.example.wallet;
+
+import com.example.common.Money;
+import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletEvent;
+import com.example.wallet.model.WalletSnapshot;
+import com.example.wallet.model.WalletSnapshotMigration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.example.wallet.DomainGenerators.randomCommandId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletSnapshotTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldRestoreWalletFromCompactSnapshot() throws Exception {
+    //given
+    var wallet = Wallet.empty(new Wallet.Retention(5, 20, 10))
+      .apply(new WalletEvent.WalletCreated("1", Money.of(1_000)));
+    for (int expense = 0; expense < 50; expense++) {
+      wallet = wallet.apply(new WalletEvent.WalletCharged("1", Money.ofMinor(150), "expense-" + expense, randomCommandId()));
+    }
+    wallet = wallet.apply(new WalletEvent.FundsHeld("1", Money.ofMinor(250), "hold-1", randomCommandId(), Map.of()));
+    wallet = wallet.apply(new WalletEvent.FundsHeld("1", Money.ofMinor(100), "hold-2", randomCommandId(), Map.of()));
+    wallet = wallet.apply(new WalletEvent.FundsReleased("1", Money.ofMinor(100), "hold-2"));
+
+    //when
+    var json = objectMapper.writeValueAsString(wallet);
+    var restored = objectMapper.readValue(json, Wallet.class);
+
+    //then
+    assertThat(restored).isEqualTo(wallet);
+    assertThat(restored.expenses().size()).isEqualTo(10);
+    assertThat(restored.held()).isEqualTo(Money.ofMinor(250));
+    assertThat(restored.commandIds().digestedCount()).isEqualTo(47);
+    assertThat(restored.finishedHolds().isReleased("hold-2")).isTrue();
+    assertThat(objectMapper.readTree(json).get("version").asInt()).isEqualTo(WalletSnapshot.VERSION);
+  }
+
+  @Test
+  public void shouldMigrateBaselineSnapshot() throws Exception {
+    //given
+    var baseline = """
+      {"id": "1", "balance": 99.5,
+       "expenses": [{"_1": "expense-1", "_2": {"expenseId": "expense-1", "amount": 0.5}}],
+       "commandIds": ["command-1", "command-2"]}""";
+
+    //when
+    var migrated = new WalletSnapshotMigration().transform(0, objectMapper.readTree(baseline));
+    var wallet = objectMapper.treeToValue(migrated, Wallet.class);
+
+    //then
+    assertThat(wallet.id()).isEqualTo("1");
+    assertThat(wallet.balance()).isEqualTo(Money.ofMinor(9950));
+    assertThat(wallet.expenses().get("expense-1").get().amount()).isEqualTo(Money.ofMinor(50));
+    assertThat(wallet.commandIds().contains("command-2")).isTrue();
+    assertThat(new WalletSnapshotMigration().transform(0, migrated)).isEqualTo(migrated);
+  }
+}
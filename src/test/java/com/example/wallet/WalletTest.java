@@ -1,12 +1,20 @@
 package com.example.wallet;
 
+import com.example.common.Money;
 import com.example.wallet.model.Wallet;
+import com.example.wallet.model.WalletEvent;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Map;
 
 import static com.example.wallet.DomainGenerators.randomCommandId;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.CURRENCY_MISMATCH;
 import static com.example.wallet.model.WalletApiModel.WalletCommandError.DUPLICATED_COMMAND;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.EXPENSE_NOT_FOUND;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.HOLD_ALREADY_CAPTURED;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.HOLD_ALREADY_RELEASED;
+import static com.example.wallet.model.WalletApiModel.WalletCommandError.HOLD_NOT_FOUND;
 import static com.example.wallet.model.WalletApiModel.WalletCommandError.WALLET_ALREADY_EXISTS;
 import static com.example.wallet.model.WalletApiModel.WalletCommand.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -17,7 +25,7 @@ class WalletTest {
   public void shouldCreateWallet() {
     //given
     var wallet = Wallet.EMPTY_WALLET;
-    var createWallet = new CreateWallet("1", BigDecimal.TEN);
+    var createWallet = new CreateWallet("1", Money.of(10));
 
     //when
     var event = wallet.handleCreate(createWallet).get();
@@ -31,8 +39,8 @@ class WalletTest {
   @Test
   public void shouldRejectCommandIfWalletExists() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var createWallet = new CreateWallet("1", BigDecimal.TEN);
+    var wallet = new Wallet("1", Money.of(10));
+    var createWallet = new CreateWallet("1", Money.of(10));
 
     //when
     var error = wallet.handleCreate(createWallet).getLeft();
@@ -44,22 +52,50 @@ class WalletTest {
   @Test
   public void shouldChargeWallet() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var chargeWallet = new ChargeWallet(BigDecimal.valueOf(3), randomCommandId());
+    var wallet = new Wallet("1", Money.of(10));
+    var chargeWallet = new ChargeWallet(Money.of(3), randomCommandId());
 
     //when
     var event = wallet.handleCharge("abc", chargeWallet).get();
     var updatedWallet = wallet.apply(event);
 
     //then
-    assertThat(updatedWallet.balance()).isEqualTo(BigDecimal.valueOf(7));
+    assertThat(updatedWallet.balance()).isEqualTo(Money.of(7));
+  }
+
+  @Test
+  public void shouldRejectChargeInAnotherCurrency() {
+    //given
+    var wallet = new Wallet("1", Money.of(10));
+    var chargeWallet = new ChargeWallet(new Money(300, "EUR"), randomCommandId());
+
+    //when
+    var error = wallet.handleCharge("abc", chargeWallet).getLeft();
+
+    //then
+    assertThat(error).isEqualTo(CURRENCY_MISMATCH);
+  }
+
+  @Test
+  public void shouldEchoChargeMetadataInEvents() {
+    //given
+    var wallet = new Wallet("1", Money.of(10));
+    var metadata = Map.of("showId", "show-1");
+
+    //when
+    var charged = wallet.handleCharge("abc", new ChargeWallet(Money.of(3), randomCommandId(), metadata)).get();
+    var rejected = wallet.handleCharge("def", new ChargeWallet(Money.of(30), randomCommandId(), metadata)).get();
+
+    //then
+    assertThat(((WalletEvent.WalletCharged) charged).metadata()).isEqualTo(metadata);
+    assertThat(((WalletEvent.WalletChargeRejected) rejected).metadata()).isEqualTo(metadata);
   }
 
   @Test
   public void shouldRejectDuplicatedCharge() {
     //given
-    var wallet = new Wallet("1", BigDecimal.TEN);
-    var chargeWallet = new ChargeWallet(BigDecimal.valueOf(3), randomCommandId());
+    var wallet = new Wallet("1", Money.of(10));
+    var chargeWallet = new ChargeWallet(Money.of(3), randomCommandId());
 
     var event = wallet.handleCharge("abc", chargeWallet).get();
     var updatedWallet = wallet.apply(event);
@@ -70,4 +106,127 @@ class WalletTest {
     //then
     assertThat(error).isEqualTo(DUPLICATED_COMMAND);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldRejectDuplicatedChargeOutsideOfRecentWindow() {
+    //given
+    var retention = new Wallet.Retention(2, 10, 10);
+    var wallet = Wallet.empty(retention).apply(new WalletEvent.WalletCreated("1", Money.of(100)));
+    var chargeWallet = new ChargeWallet(Money.of(1), randomCommandId());
+    wallet = wallet.apply(wallet.handleCharge("abc", chargeWallet).get());
+
+    for (int i = 0; i < 5; i++) {
+      wallet = wallet.apply(wallet.handleCharge("exp-" + i, new ChargeWallet(Money.of(1), randomCommandId())).get());
+    }
+
+    //when
+    var error = wallet.handleCharge("abc", chargeWallet).getLeft();
+
+    //then
+    assertThat(error).isEqualTo(DUPLICATED_COMMAND);
+    assertThat(wallet.commandIds().recentCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldForgetCommandIdsOverwrittenInDigestRing() {
+    //given
+    var retention = new Wallet.Retention(1, 1, 10);
+    var wallet = Wallet.empty(retention).apply(new WalletEvent.WalletCreated("1", Money.of(10_000)));
+    var charges = new ArrayList<ChargeWallet>();
+
+    //when
+    for (int i = 0; i < 514; i++) {
+      var chargeWallet = new ChargeWallet(Money.of(1), randomCommandId());
+      charges.add(chargeWallet);
+      wallet = wallet.apply(wallet.handleCharge("exp-" + i, chargeWallet).get());
+    }
+
+    //then
+    assertThat(wallet.commandIds().digestedCount()).isEqualTo(512);
+    assertThat(wallet.commandIds().contains(charges.get(0).commandId())).isFalse();
+    assertThat(wallet.commandIds().contains(charges.get(1).commandId())).isTrue();
+    assertThat(wallet.commandIds().contains(charges.get(513).commandId())).isTrue();
+  }
+
+  @Test
+  public void shouldKeepStateBoundedAndSettleOldExpenses() {
+    //given
+    var retention = new Wallet.Retention(10, 100, 20);
+    var wallet = Wallet.empty(retention).apply(new WalletEvent.WalletCreated("1", Money.of(10_000)));
+
+    //when
+    for (int i = 0; i < 1_100; i++) {
+      wallet = wallet.apply(wallet.handleCharge("exp-" + i, new ChargeWallet(Money.of(1), randomCommandId())).get());
+    }
+
+    //then
+    assertThat(wallet.balance()).isEqualTo(Money.of(8_900));
+    assertThat(wallet.commandIds().recentCount()).isEqualTo(10);
+    assertThat(wallet.commandIds().digestedCount()).isEqualTo(512);
+    assertThat(wallet.toSnapshot().commandIds().digestCount()).isLessThan(2 * 512);
+    assertThat(wallet.expenses().size()).isEqualTo(20);
+    assertThat(wallet.handleRefund("exp-0", new Refund(randomCommandId())).getLeft()).isEqualTo(EXPENSE_NOT_FOUND);
+    assertThat(wallet.handleRefund("exp-1099", new Refund(randomCommandId())).isRight()).isTrue();
+  }
+
+  @Test
+  public void shouldHoldFundsAndCaptureThem() {
+    //given
+    var wallet = new Wallet("1", Money.of(10));
+    var holdFunds = new HoldFunds(Money.of(3), randomCommandId());
+    wallet = wallet.apply(wallet.handleHold("abc", holdFunds).get());
+
+    //when
+    var rejected = wallet.handleCharge("def", new ChargeWallet(Money.of(8), randomCommandId())).get();
+    var duplicate = wallet.handleHold("abc", new HoldFunds(Money.of(3), randomCommandId())).getLeft();
+    var captured = wallet.apply(wallet.handleCapture(new CaptureFunds("abc")).get());
+
+    //then
+    assertThat(wallet.balance()).isEqualTo(Money.of(10));
+    assertThat(wallet.available()).isEqualTo(Money.of(7));
+    assertThat(rejected).isInstanceOf(WalletEvent.WalletChargeRejected.class);
+    assertThat(duplicate).isEqualTo(DUPLICATED_COMMAND);
+    assertThat(captured.balance()).isEqualTo(Money.of(7));
+    assertThat(captured.held()).isEqualTo(Money.of(0));
+    assertThat(captured.handleRefund("abc", new Refund(randomCommandId())).isRight()).isTrue();
+    assertThat(captured.handleCapture(new CaptureFunds("abc")).getLeft()).isEqualTo(HOLD_ALREADY_CAPTURED);
+    assertThat(captured.handleRelease(new ReleaseFunds("abc")).getLeft()).isEqualTo(HOLD_ALREADY_CAPTURED);
+  }
+
+  @Test
+  public void shouldReleaseHoldWithoutExpenseOrCommandId() {
+    //given
+    var wallet = new Wallet("1", Money.of(10));
+    wallet = wallet.apply(wallet.handleHold("abc", new HoldFunds(Money.of(3), randomCommandId())).get());
+
+    //when
+    var released = wallet.apply(wallet.handleRelease(new ReleaseFunds("abc")).get());
+
+    //then
+    assertThat(released.balance()).isEqualTo(Money.of(10));
+    assertThat(released.available()).isEqualTo(Money.of(10));
+    assertThat(released.expenses().isEmpty()).isTrue();
+    assertThat(released.commandIds()).isEqualTo(wallet.commandIds());
+    assertThat(released.handleRelease(new ReleaseFunds("abc")).getLeft()).isEqualTo(HOLD_ALREADY_RELEASED);
+    assertThat(released.handleCapture(new CaptureFunds("abc")).getLeft()).isEqualTo(HOLD_ALREADY_RELEASED);
+    assertThat(released.handleRelease(new ReleaseFunds("def")).getLeft()).isEqualTo(HOLD_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldKeepFinishedHoldsBounded() {
+    //given
+    var retention = new Wallet.Retention(1, 0, 10);
+    var wallet = Wallet.empty(retention).apply(new WalletEvent.WalletCreated("1", Money.of(10)));
+
+    //when
+    for (int i = 0; i < 3; i++) {
+      wallet = wallet.apply(wallet.handleHold("hold-" + i, new HoldFunds(Money.of(1), randomCommandId())).get());
+      wallet = wallet.apply(wallet.handleRelease(new ReleaseFunds("hold-" + i)).get());
+    }
+
+    //then
+    assertThat(wallet.finishedHolds().released().recentCount()).isEqualTo(1);
+    assertThat(wallet.handleRelease(new ReleaseFunds("hold-2")).getLeft()).isEqualTo(HOLD_ALREADY_RELEASED);
+    assertThat(wallet.handleRelease(new ReleaseFunds("hold-0")).getLeft()).isEqualTo(HOLD_NOT_FOUND);
+  }
+}